@@ -3,19 +3,21 @@ package com.karandaev.retrolauncher;
 import com.formdev.flatlaf.FlatLightLaf;
 import com.karandaev.retrolauncher.controller.interfaces.IController;
 import com.karandaev.retrolauncher.model.UserProfile;
+import com.karandaev.retrolauncher.search.SearchScheduler;
 import com.karandaev.retrolauncher.utils.ConfigManager;
+import com.karandaev.retrolauncher.utils.ImageCache;
+import com.karandaev.retrolauncher.utils.JsonCodec;
 import com.karandaev.retrolauncher.utils.LanguageManager;
 import com.karandaev.retrolauncher.utils.LogManager;
+import com.karandaev.retrolauncher.utils.WindowFactory;
 import javafx.application.Application;
 import javafx.application.Platform;
 import javafx.beans.property.StringProperty;
-import javafx.fxml.FXMLLoader;
 import javafx.geometry.Pos;
 import javafx.scene.Scene;
 import javafx.scene.control.Alert;
 import javafx.scene.control.Label;
 import javafx.scene.control.TableColumn;
-import javafx.scene.image.Image;
 import javafx.scene.layout.StackPane;
 import javafx.stage.Modality;
 import javafx.stage.Stage;
@@ -23,7 +25,6 @@ import javafx.stage.Stage;
 import java.io.File;
 import java.io.IOException;
 import java.util.Locale;
-import java.util.Objects;
 import javafx.util.Pair;
 import com.formdev.flatlaf.FlatDarkLaf;
 
@@ -37,6 +38,14 @@ public class Main extends Application {
   public static final String PROGRAM_ICON_PATH = "/icons/retro_launcher_icon.png";
   public static final String THEME_CSS_BASE = "/atlantafx/base/theme/primer-";
 
+  @Override
+  public void init() {
+    // Build the JSON serializers of the model while the JavaFX toolkit starts
+    Thread warmUp = new Thread(JsonCodec.getInstance()::warmUp, "json-warm-up");
+    warmUp.setDaemon(true);
+    warmUp.start();
+  }
+
   @Override
   public void start(Stage primaryStage) {
     try {
@@ -45,6 +54,7 @@ public class Main extends Application {
 
       // Initialize configuration
       ConfigManager.getInstance().loadConfig();
+      ConfigManager.getInstance().startWatching();
 
       // Load user profiles and select active profile
       UserProfile activeProfile = ConfigManager.getInstance().getCurrentUserProfile();
@@ -78,6 +88,14 @@ public class Main extends Application {
 
       getWindow(getClass(), "/view/main.fxml", PROGRAM_NAME).getKey().show();
 
+      // Dialogs opened on every launch and edit are loaded while the user browses the ROMs
+      WindowFactory.getInstance()
+          .preload(
+              getClass(),
+              "/view/emulator_selection.fxml",
+              "/view/edit_rom.fxml",
+              "/view/add_rom.fxml");
+
     } catch (Exception e) {
       e.printStackTrace();
       // Log the exception
@@ -108,21 +126,7 @@ public class Main extends Application {
 
   public static Pair<Stage, IController> getWindow(
       Class<?> clazz, String fxmlPath, String name, String iconPath) throws IOException {
-    var fxml = clazz.getResource(fxmlPath);
-
-    // Load main FXML layout
-    FXMLLoader loader = new FXMLLoader(fxml);
-    loader.setResources(LanguageManager.getResourceBundle());
-    Scene scene = new Scene(loader.load());
-
-    // Get controller
-    var controller = loader.getController();
-
-    Stage stage = new Stage();
-    stage.setScene(scene);
-    stage.setTitle(name);
-    stage.getIcons().add(new Image(Objects.requireNonNull(clazz.getResourceAsStream(iconPath))));
-    return new Pair<>(stage, (IController) controller);
+    return WindowFactory.getInstance().getWindow(clazz, fxmlPath, name, iconPath);
   }
 
   public static Alert getAlert(
@@ -141,7 +145,7 @@ public class Main extends Application {
     alert.setTitle(title);
     ((Stage) alert.getDialogPane().getScene().getWindow())
         .getIcons()
-        .add(new Image(Objects.requireNonNull(clazz.getResourceAsStream(iconPath))));
+        .add(ImageCache.getInstance().get(clazz, iconPath));
     alert.setHeaderText(header);
     alert.setContentText(content);
 
@@ -209,8 +213,10 @@ public class Main extends Application {
 
   @Override
   public void stop() {
-    // Save configuration on exit
+    // Save changed configuration on exit and wait until it is written
     ConfigManager.getInstance().saveConfig();
+    ConfigManager.getInstance().shutdown();
+    SearchScheduler.getInstance().shutdown();
   }
 
   public static void main(String[] args) {
@@ -17,7 +17,6 @@ import javax.swing.*;
 import java.io.File;
 import java.util.ArrayList;
 import java.util.Arrays;
-import java.util.Comparator;
 
 import static com.karandaev.retrolauncher.Main.selectOnDriveAndUpdateStringProperty;
 
@@ -68,16 +67,13 @@ public class AddEmulatorController implements IController {
 
             newEmulator = new Emulator(name, path, new ArrayList<>(Arrays.asList(consoles)));
             newEmulator.setLaunchParameters(launchParameters);
-            newEmulator.setUniqueId(
-                ConfigManager.getInstance().getCurrentUserProfile().getEmulators());
 
             // Save emulator config
-            ConfigManager.getInstance().getCurrentUserProfile().getEmulators().add(newEmulator);
             ConfigManager.getInstance()
                 .getCurrentUserProfile()
-                .getEmulators()
-                .sort(Comparator.comparing(Emulator::getName));
-            ConfigManager.getInstance().saveConfig();
+                .getEmulatorRegistry()
+                .add(newEmulator);
+            ConfigManager.getInstance().saveEmulator(newEmulator);
 
             // Close the window
             Stage stage = (Stage) getScene().getWindow();
@@ -106,9 +102,10 @@ public class AddEmulatorController implements IController {
       errorMessage +=
           LanguageManager.getResourceBundle().getString("error.invalid.emulator.name") + "\n";
     }
-    if (ConfigManager.getInstance().getCurrentUserProfile().getEmulators().stream()
-        .map(Emulator::getName)
-        .anyMatch(x -> x.equals(nameField.getText()))) {
+    if (ConfigManager.getInstance()
+        .getCurrentUserProfile()
+        .getEmulatorRegistry()
+        .containsName(nameField.getText())) {
       errorMessage +=
           LanguageManager.getResourceBundle().getString("error.duplicate.emulator.name") + "\n";
     }
@@ -90,12 +90,8 @@ public class AddRomController implements IController {
                     launchParameters);
 
             // Save ROM config
-            ConfigManager.getInstance().getCurrentUserProfile().getRoms().add(newRom);
-            ConfigManager.getInstance()
-                .getCurrentUserProfile()
-                .getRoms()
-                .sort(Comparator.comparing(RomFile::getName));
-            ConfigManager.getInstance().saveConfig();
+            ConfigManager.getInstance().getCurrentUserProfile().getRomRegistry().add(newRom);
+            ConfigManager.getInstance().saveRom(newRom);
 
             // Close the window
             Stage stage = (Stage) getScene().getWindow();
@@ -124,9 +120,10 @@ public class AddRomController implements IController {
       errorMessage +=
           LanguageManager.getResourceBundle().getString("error.invalid.rom.name") + "\n";
     }
-    if (ConfigManager.getInstance().getCurrentUserProfile().getRoms().stream()
-        .map(RomFile::getName)
-        .anyMatch(x -> x.equals(nameField.getText()))) {
+    if (ConfigManager.getInstance()
+        .getCurrentUserProfile()
+        .getRomRegistry()
+        .containsName(nameField.getText())) {
       errorMessage +=
           LanguageManager.getResourceBundle().getString("error.duplicate.rom.name") + "\n";
     }
@@ -164,6 +161,17 @@ public class AddRomController implements IController {
     }
   }
 
+  @Override
+  public boolean reset() {
+    newRom = null;
+    nameField.clear();
+    pathField.clear();
+    consolesField.clear();
+    genresField.clear();
+    favoriteCheckBox.setSelected(false);
+    return true;
+  }
+
   @Override
   public ReadOnlyObjectProperty<Scene> getSceneProperty() {
     return nameField.sceneProperty();
@@ -17,7 +17,6 @@ import javax.swing.*;
 import java.io.File;
 import java.util.ArrayList;
 import java.util.Arrays;
-import java.util.Comparator;
 
 import static com.karandaev.retrolauncher.Main.selectOnDriveAndUpdateStringProperty;
 
@@ -62,7 +61,6 @@ public class EditEmulatorController implements IController {
                       .toArray(String[]::new)));
 
           if (isInputValid()) {
-            emulator.setName(nameField.getText());
             emulator.setExecutablePath(new File(pathField.getText()));
             String[] consoles = consolesField.getText().split(",");
             var supportedConsoles = emulator.getSupportedConsoles();
@@ -70,12 +68,14 @@ public class EditEmulatorController implements IController {
             supportedConsoles.addAll(new ArrayList<>(Arrays.asList(consoles)));
             emulator.getLaunchParameters().setLaunchParameters(launchParametersField.getText());
 
-            // Save emulator config
+            // Moves the emulator to its sorted position under the new name
             ConfigManager.getInstance()
                 .getCurrentUserProfile()
-                .getEmulators()
-                .sort(Comparator.comparing(Emulator::getName));
-            ConfigManager.getInstance().saveConfig();
+                .getEmulatorRegistry()
+                .rename(emulator, nameField.getText());
+
+            // Save emulator config
+            ConfigManager.getInstance().saveEmulator(emulator);
 
             // Close the window
             Stage stage = (Stage) getScene().getWindow();
@@ -123,9 +123,10 @@ public class EditEmulatorController implements IController {
           LanguageManager.getResourceBundle().getString("error.invalid.emulator.name") + "\n";
     }
     if (!nameField.getText().equals(emulator.getName())
-        && ConfigManager.getInstance().getCurrentUserProfile().getEmulators().stream()
-            .map(Emulator::getName)
-            .anyMatch(x -> x.equals(nameField.getText()))) {
+        && ConfigManager.getInstance()
+            .getCurrentUserProfile()
+            .getEmulatorRegistry()
+            .containsName(nameField.getText())) {
       errorMessage +=
           LanguageManager.getResourceBundle().getString("error.duplicate.emulator.name") + "\n";
     }
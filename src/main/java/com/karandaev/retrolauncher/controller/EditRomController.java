@@ -5,6 +5,7 @@ import com.karandaev.retrolauncher.controller.interfaces.IController;
 import com.karandaev.retrolauncher.model.Emulator;
 import com.karandaev.retrolauncher.model.LaunchParameters;
 import com.karandaev.retrolauncher.model.RomFile;
+import com.karandaev.retrolauncher.search.EmulatorRoutes;
 import com.karandaev.retrolauncher.utils.ConfigManager;
 import com.karandaev.retrolauncher.utils.LanguageManager;
 import javafx.animation.Interpolator;
@@ -25,7 +26,6 @@ import javafx.util.Duration;
 import javax.swing.*;
 import java.io.File;
 import java.util.*;
-import java.util.stream.Collectors;
 
 import static com.karandaev.retrolauncher.Main.selectOnDriveAndUpdateStringProperty;
 
@@ -123,7 +123,6 @@ public class EditRomController implements IController {
                       .toArray(String[]::new)));
 
           if (isInputValid()) {
-            rom.setName(nameField.getText());
             rom.setFilePath(new File(pathField.getText()));
             List<String> consoles = Arrays.asList(consolesField.getText().split(","));
             List<String> genres = Arrays.asList(genresField.getText().split(","));
@@ -159,12 +158,14 @@ public class EditRomController implements IController {
               }
             }
 
-            // Save ROM config
+            // Moves the ROM to its sorted position under the new name and publishes the edit
             ConfigManager.getInstance()
                 .getCurrentUserProfile()
-                .getRoms()
-                .sort(Comparator.comparing(RomFile::getName));
-            ConfigManager.getInstance().saveConfig();
+                .getRomRegistry()
+                .rename(rom, nameField.getText());
+
+            // Save ROM config
+            ConfigManager.getInstance().saveRom(rom);
 
             // Close the window
             Stage stage = (Stage) getScene().getWindow();
@@ -203,43 +204,33 @@ public class EditRomController implements IController {
     // Clear existing children
     launchParametersGrid.getChildren().clear();
 
-    // Retrieve emulators and ROM consoles
-    List<Emulator> emulators = ConfigManager.getInstance().getCurrentUserProfile().getEmulators();
-    Set<String> romConsoles =
-        rom.getConsoles().stream().map(String::toLowerCase).collect(Collectors.toSet());
+    // Retrieve emulators supporting the ROM consoles
+    List<Emulator> emulators =
+        EmulatorRoutes.of(ConfigManager.getInstance().getCurrentUserProfile())
+            .compatibleWith(rom);
 
     int row = 0;
     for (Emulator emulator : emulators) {
-      Set<String> emulatorConsoles =
-          emulator.getSupportedConsoles().stream()
-              .map(String::toLowerCase)
-              .collect(Collectors.toSet());
-      emulatorConsoles.retainAll(romConsoles);
-
-      if (!emulatorConsoles.isEmpty()) {
-        Label nameLabel = new Label(emulator.getName());
-        TextField paramsField = new TextField();
-
-        LaunchParameters lp = rom.getLaunchParameters().get(emulator.getId());
-        if (lp != null) {
-          paramsField.setText(lp.getLaunchParameters());
-        }
-
-        GridPane.setHgrow(paramsField, Priority.ALWAYS);
-        launchParametersGrid.add(nameLabel, 0, row);
-        launchParametersGrid.add(paramsField, 1, row);
-        row++;
+      Label nameLabel = new Label(emulator.getName());
+      TextField paramsField = new TextField();
+
+      LaunchParameters lp = rom.getLaunchParameters().get(emulator.getId());
+      if (lp != null) {
+        paramsField.setText(lp.getLaunchParameters());
       }
+
+      GridPane.setHgrow(paramsField, Priority.ALWAYS);
+      launchParametersGrid.add(nameLabel, 0, row);
+      launchParametersGrid.add(paramsField, 1, row);
+      row++;
     }
   }
 
   private Emulator findEmulatorByName(String name) {
-    for (Emulator emulator : ConfigManager.getInstance().getCurrentUserProfile().getEmulators()) {
-      if (emulator.getName().equals(name)) {
-        return emulator;
-      }
-    }
-    return null;
+    return ConfigManager.getInstance()
+        .getCurrentUserProfile()
+        .getEmulatorRegistry()
+        .getByName(name);
   }
 
   private void animateWindowHeight(Stage stage, Boolean isNowExpanded) {
@@ -285,10 +276,12 @@ public class EditRomController implements IController {
       errorMessage +=
           LanguageManager.getResourceBundle().getString("error.invalid.rom.name") + "\n";
     }
-    if (!nameField.getText().equals(rom.getName())
-        && ConfigManager.getInstance().getCurrentUserProfile().getRoms().stream()
-            .map(RomFile::getName)
-            .anyMatch(x -> x.equals(nameField.getText()))) {
+    RomFile sameName =
+        ConfigManager.getInstance()
+            .getCurrentUserProfile()
+            .getRomRegistry()
+            .getByName(nameField.getText());
+    if (sameName != null && sameName != rom) {
       errorMessage +=
           LanguageManager.getResourceBundle().getString("error.duplicate.rom.name") + "\n";
     }
@@ -6,6 +6,7 @@ import com.karandaev.retrolauncher.model.Emulator;
 import com.karandaev.retrolauncher.utils.ConfigManager;
 import com.karandaev.retrolauncher.utils.LanguageManager;
 import com.karandaev.retrolauncher.utils.LogManager;
+import com.karandaev.retrolauncher.utils.ProfileDiff;
 import javafx.beans.property.ReadOnlyObjectProperty;
 import javafx.beans.property.SimpleStringProperty;
 import javafx.collections.FXCollections;
@@ -18,6 +19,7 @@ import javafx.stage.Modality;
 import javafx.stage.Stage;
 
 import java.io.IOException;
+import java.util.function.Consumer;
 import java.util.function.Supplier;
 
 import static com.karandaev.retrolauncher.Main.centerColumnHeaderText;
@@ -33,6 +35,7 @@ public class EmulatorManagerController implements IController {
   @FXML private Button addEmulatorButton;
 
   private ObservableList<Emulator> emulatorList;
+  private final Consumer<ProfileDiff> externalChangeListener = this::applyExternalChanges;
 
   @FXML
   public void initialize() {
@@ -60,6 +63,7 @@ public class EmulatorManagerController implements IController {
         FXCollections.observableArrayList(
             ConfigManager.getInstance().getCurrentUserProfile().getEmulators());
     emulatorTableView.setItems(emulatorList);
+    ConfigManager.getInstance().addExternalChangeListener(externalChangeListener);
 
     // Add context menu to table rows
     emulatorTableView.setRowFactory(
@@ -156,8 +160,8 @@ public class EmulatorManagerController implements IController {
             LanguageManager.getResourceBundle().getString("alert.delete.emulator.content"));
     var result = alert.showAndWait();
     if (result.isPresent() && result.get() == ButtonType.OK) {
-      ConfigManager.getInstance().getCurrentUserProfile().getEmulators().remove(emulator);
-      ConfigManager.getInstance().saveConfig();
+      ConfigManager.getInstance().getCurrentUserProfile().getEmulatorRegistry().remove(emulator);
+      ConfigManager.getInstance().removeEmulator(emulator);
 
       // Reload window
       reloadWindow();
@@ -181,6 +185,17 @@ public class EmulatorManagerController implements IController {
     return null;
   }
 
+  /** Patches the table with emulator changes merged from edited configuration files. */
+  private void applyExternalChanges(ProfileDiff diff) {
+    if (diff.getProfile() != ConfigManager.getInstance().getCurrentUserProfile()) {
+      return;
+    }
+    diff.patchEmulators(emulatorList);
+    if (!diff.getUpdatedEmulators().isEmpty()) {
+      emulatorTableView.refresh();
+    }
+  }
+
   @Override
   public ReadOnlyObjectProperty<Scene> getSceneProperty() {
     return emulatorTableView.sceneProperty();
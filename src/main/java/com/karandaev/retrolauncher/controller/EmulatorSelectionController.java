@@ -139,6 +139,12 @@ public class EmulatorSelectionController implements IController {
     return arguments;
   }
 
+  @Override
+  public boolean reset() {
+    emulatorButtonContainer.getChildren().clear();
+    return true;
+  }
+
   @FXML
   private void closeWindow() {
     Stage stage = (Stage) getScene().getWindow();
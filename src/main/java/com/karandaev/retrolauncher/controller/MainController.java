@@ -3,30 +3,48 @@ package com.karandaev.retrolauncher.controller;
 import com.karandaev.retrolauncher.Main;
 import com.karandaev.retrolauncher.controller.interfaces.IController;
 import com.karandaev.retrolauncher.model.Emulator;
+import com.karandaev.retrolauncher.model.LibraryChange;
 import com.karandaev.retrolauncher.model.RomFile;
+import com.karandaev.retrolauncher.search.EmulatorRoutes;
+import com.karandaev.retrolauncher.search.FacetCounts;
+import com.karandaev.retrolauncher.search.FilterMode;
+import com.karandaev.retrolauncher.search.RomSearchIndex;
+import com.karandaev.retrolauncher.search.SearchIndexFile;
+import com.karandaev.retrolauncher.search.SearchScheduler;
 import com.karandaev.retrolauncher.utils.ConfigManager;
 import com.karandaev.retrolauncher.utils.LanguageManager;
 import com.karandaev.retrolauncher.utils.LogManager;
+import com.karandaev.retrolauncher.utils.ProfileDiff;
 import com.karandaev.retrolauncher.utils.UpdateManager;
+import javafx.animation.AnimationTimer;
 import javafx.application.Platform;
 import javafx.beans.property.ReadOnlyObjectProperty;
-import javafx.beans.property.SimpleBooleanProperty;
 import javafx.beans.property.SimpleStringProperty;
+import javafx.beans.property.StringProperty;
 import javafx.collections.FXCollections;
 import javafx.collections.ObservableList;
-import javafx.collections.transformation.FilteredList;
 import javafx.concurrent.Task;
 import javafx.fxml.FXML;
+import javafx.scene.Cursor;
 import javafx.scene.Scene;
 import javafx.scene.control.*;
 import javafx.scene.control.cell.CheckBoxTableCell;
 import javafx.scene.input.MouseButton;
 import javafx.stage.Modality;
 import javafx.stage.Stage;
+import javafx.util.Pair;
 
+import javax.swing.*;
 import java.io.IOException;
-import java.util.Collections;
+import java.nio.file.Path;
+import java.text.MessageFormat;
+import java.util.ArrayList;
+import java.util.BitSet;
 import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.FutureTask;
+import java.util.function.Consumer;
+import java.util.function.Predicate;
 
 import static com.karandaev.retrolauncher.Main.*;
 import static com.karandaev.retrolauncher.utils.UpdateManager.getVersion;
@@ -37,13 +55,46 @@ public class MainController implements IController {
   @FXML private TableColumn<RomFile, String> romNameColumn;
   @FXML private TableColumn<RomFile, String> romConsolesColumn;
   @FXML public TableColumn<RomFile, String> romGenresColumn;
+  @FXML private TableColumn<RomFile, String> romEmulatorsColumn;
   @FXML private TableColumn<RomFile, Boolean> romFavoriteColumn;
 
   @FXML private TextField searchField;
   @FXML private ComboBox<String> filterComboBox;
-
-  private ObservableList<RomFile> romList = FXCollections.observableArrayList();
-  private FilteredList<RomFile> filteredData;
+  @FXML private Label facetLabel;
+
+  // Number of consoles and genres listed in the facet line; the tooltip lists all of them
+  private static final int FACET_LABEL_LIMIT = 4;
+  // Number of ROMs shown for a search answered from the stored index; loading finds the rest
+  private static final int STORED_RESULT_LIMIT = 1000;
+
+  // ROMs published to the table per chunk, and the time spent on them per frame
+  private static final int LOAD_CHUNK_SIZE = 500;
+  private static final long LOAD_FRAME_BUDGET_NANOS = 8_000_000;
+
+  private final List<RomFile> romList = new ArrayList<>();
+  // Copy of the ROM list handed to searches, or null once the list changed; taken at the version
+  private List<RomFile> romSnapshot;
+  private long romSnapshotVersion;
+  private final ObservableList<RomFile> visibleRoms = FXCollections.observableArrayList();
+  private RomTableSort tableSort;
+  private boolean romsLoaded = false;
+  // The counts shown below the table, or null while loading progress is shown instead
+  private FacetCounts shownFacets;
+  private Task<Void> loadTask;
+  private AnimationTimer romPublisher;
+  // Filter of the ROMs published while loading; null shows all of them
+  private Predicate<RomFile> loadingFilter;
+  private boolean romsPublished = false;
+  private boolean indexLoaded = false;
+  private long loadedVersion;
+  private long loadStartNanos;
+  private boolean firstRowShown = false;
+  // Answers searches from disk until the ROMs are loaded
+  private SearchIndexFile storedIndex;
+  // A menu action waiting for the profile to load in the background
+  private Runnable pendingProfileAction;
+  private final Consumer<ProfileDiff> externalChangeListener = this::applyExternalChanges;
+  private final Consumer<LibraryChange> libraryListener = this::applyLibraryChange;
 
   @FXML
   public void initialize() {
@@ -54,18 +105,32 @@ public class MainController implements IController {
     centerColumnHeaderText(romNameColumn);
     centerColumnHeaderText(romConsolesColumn);
     centerColumnHeaderText(romGenresColumn);
+    centerColumnHeaderText(romEmulatorsColumn);
     centerColumnHeaderText(romFavoriteColumn);
 
-    // Sets value factories
-    romNameColumn.setCellValueFactory(
-        cellData -> new SimpleStringProperty(cellData.getValue().getName()));
+    // Sets value factories; cells share the cached values of each ROM
+    romNameColumn.setCellValueFactory(cellData -> RomRow.of(cellData.getValue()).nameProperty());
     romConsolesColumn.setCellValueFactory(
-        cellData -> new SimpleStringProperty(String.join(", ", cellData.getValue().getConsoles())));
+        cellData -> RomRow.of(cellData.getValue()).consolesProperty());
     romGenresColumn.setCellValueFactory(
-        cellData -> new SimpleStringProperty(String.join(", ", cellData.getValue().getGenres())));
+        cellData -> RomRow.of(cellData.getValue()).genresProperty());
+    romEmulatorsColumn.setCellValueFactory(
+        cellData ->
+            RomRow.of(cellData.getValue())
+                .emulatorsProperty(
+                    cellData.getValue(),
+                    ConfigManager.getInstance().getCurrentUserProfile().getVersion(),
+                    this::compatibleEmulatorNames));
     romFavoriteColumn.setCellValueFactory(
-        cellData -> new SimpleBooleanProperty(cellData.getValue().isFavorite()));
+        cellData -> RomRow.of(cellData.getValue()).favoriteProperty());
     romFavoriteColumn.setCellFactory(tc -> new CheckBoxTableCell<>());
+    romTableView.setItems(visibleRoms);
+    tableSort =
+        RomTableSort.install(romTableView)
+            .byName(romNameColumn)
+            .byConsoles(romConsolesColumn)
+            .byGenres(romGenresColumn)
+            .byFavorite(romFavoriteColumn);
 
     // Add double-click event handler to table rows
     romTableView.setRowFactory(
@@ -73,7 +138,8 @@ public class MainController implements IController {
           TableRow<RomFile> row = new TableRow<>();
           row.setOnMouseClicked(
               event -> {
-                if (!row.isEmpty()) {
+                // Rows of the stored index are stand-ins and can not be launched or edited
+                if (!row.isEmpty() && showsProfileRoms()) {
                   RomFile clickedRom = row.getItem();
                   if (event.getButton() == MouseButton.PRIMARY && event.getClickCount() == 2) {
                     openEmulatorSelectionWindow(clickedRom);
@@ -104,20 +170,21 @@ public class MainController implements IController {
     var langBundle = LanguageManager.getResourceBundle();
 
     // Initialize filter options
-    filterComboBox
-        .getItems()
-        .addAll(
-            langBundle.getString("filter.all.rom"),
-            langBundle.getString("filter.favorites"),
-            langBundle.getString("filter.console"),
-            langBundle.getString("filter.genre"));
-    filterComboBox.setValue(langBundle.getString("filter.all.rom"));
+    for (FilterMode mode : FilterMode.values()) {
+      filterComboBox.getItems().add(langBundle.getString(mode.getLabelKey()));
+    }
+    filterComboBox.setValue(langBundle.getString(FilterMode.ALL.getLabelKey()));
 
     // Load ROM files asynchronously
     loadRomFiles();
+    ConfigManager.getInstance().addExternalChangeListener(externalChangeListener);
+    ConfigManager.getInstance().getCurrentUserProfile().addLibraryListener(libraryListener);
 
     // Add listeners
-    searchField.textProperty().addListener((observable, oldValue, newValue) -> applyFilters());
+    searchField
+        .textProperty()
+        .addListener(
+            (observable, oldValue, newValue) -> applyFilters(SearchScheduler.DEBOUNCE_MILLIS));
     filterComboBox.valueProperty().addListener((observable, oldValue, newValue) -> applyFilters());
 
     // Close window event
@@ -138,58 +205,439 @@ public class MainController implements IController {
             });
   }
 
-  /** Loads ROM files into the table view asynchronously. */
+  /**
+   * Loads the ROMs of the profile and its search index on a background thread. Meanwhile the
+   * stored search index answers searches, and loaded ROMs are published to the table in chunks.
+   * The ROM list is copied on the application thread, where it is edited, and the background
+   * thread indexes only the copy.
+   */
   private void loadRomFiles() {
-    Task<Void> loadTask =
+    loadStartNanos = System.nanoTime();
+    loadTask =
         new Task<>() {
           @Override
-          protected Void call() {
-            romList.setAll(ConfigManager.getInstance().getCurrentUserProfile().getRoms());
+          protected Void call() throws Exception {
+            var profile = ConfigManager.getInstance().getCurrentUserProfile();
+            Path indexPath = ConfigManager.getInstance().getSearchIndexPath(profile);
+            long stamp = ConfigManager.getInstance().getStoredStamp(profile);
+            SearchIndexFile stored = SearchIndexFile.open(indexPath, stamp);
+            if (stored != null) {
+              Platform.runLater(
+                  () -> {
+                    if (!isCancelled() && !romsLoaded && romPublisher == null) {
+                      storedIndex = stored;
+                      applyFilters();
+                    }
+                  });
+            }
+
+            profile.ensureLoaded();
+            FutureTask<Pair<List<RomFile>, Long>> snapshot =
+                new FutureTask<>(
+                    () -> {
+                      if (isCancelled()) {
+                        return null;
+                      }
+                      List<RomFile> roms = new ArrayList<>(profile.getRoms());
+                      publishRoms(roms, profile.getVersion());
+                      // After the snapshot is handed over, as the action may open a dialog
+                      Platform.runLater(MainController.this::runPendingProfileAction);
+                      return new Pair<>(roms, profile.getVersion());
+                    });
+            Platform.runLater(snapshot);
+            Pair<List<RomFile>, Long> roms = snapshot.get();
+            if (roms == null || isCancelled()) {
+              return null;
+            }
+
+            // Builds the search index of the profile off the application thread
+            RomSearchIndex.of(profile, roms.getKey(), roms.getValue());
+            if (!isCancelled()) {
+              SearchIndexFile.rebuildInBackground(indexPath, stamp, roms.getKey());
+            }
             return null;
           }
 
           @Override
           protected void succeeded() {
-            filteredData = new FilteredList<>(romList, p -> true);
-            applyFilters();
+            indexLoaded = true;
+            finishLoading();
+          }
+
+          @Override
+          protected void failed() {
+            Throwable e = getException();
+            e.printStackTrace();
+            LogManager.getLogger().severe("Failed to load ROMs: " + e.getMessage());
+            // Leaves the loading mode and shows the ROMs of the profile as they are
+            if (romPublisher != null) {
+              romPublisher.stop();
+            }
+            loadedVersion = -1;
+            romsPublished = true;
+            indexLoaded = true;
+            finishLoading();
+            runPendingProfileAction();
+          }
+        };
+
+    Thread thread = new Thread(loadTask, "rom-loader");
+    thread.setDaemon(true);
+    thread.start();
+  }
+
+  /**
+   * Appends loaded ROMs to the table in chunks, one chunk after another within a time budget per
+   * frame, so the first rows show up right away and the window stays responsive. ROMs not
+   * matching the current filter are only added to the full list.
+   */
+  private void publishRoms(List<RomFile> roms, long version) {
+    loadedVersion = version;
+    storedIndex = null;
+    romPublisher =
+        new AnimationTimer() {
+          private int published = 0;
+
+          @Override
+          public void handle(long now) {
+            long deadline = System.nanoTime() + LOAD_FRAME_BUDGET_NANOS;
+            boolean first = published == 0;
+            List<RomFile> matches = new ArrayList<>();
+            do {
+              int end = Math.min(published + LOAD_CHUNK_SIZE, roms.size());
+              List<RomFile> chunk = roms.subList(published, end);
+              romList.addAll(chunk);
+              for (RomFile rom : chunk) {
+                if (loadingFilter == null || loadingFilter.test(rom)) {
+                  matches.add(rom);
+                }
+              }
+              published = end;
+            } while (published < roms.size() && System.nanoTime() < deadline);
+
+            if (first) {
+              // Replaces the stand-ins of the stored index
+              visibleRoms.setAll(matches);
+            } else {
+              visibleRoms.addAll(matches);
+            }
+            markFirstRow();
+            shownFacets = null;
+            facetLabel.setText(
+                MessageFormat.format(
+                    LanguageManager.getResourceBundle().getString("label.loading.progress"),
+                    published,
+                    roms.size()));
+            if (published == roms.size()) {
+              stop();
+              LogManager.getLogger()
+                  .info(
+                      String.format(
+                          "Published %d ROMs in %.0f ms.",
+                          roms.size(), (System.nanoTime() - loadStartNanos) / 1e6));
+              romsPublished = true;
+              finishLoading();
+            }
           }
         };
+    updateLoadingFilter();
+    romPublisher.start();
+  }
+
+  /** Shows the loaded ROMs the normal way once they are published and indexed. */
+  private void finishLoading() {
+    if (!indexLoaded || !romsPublished) {
+      return;
+    }
+    romsLoaded = true;
+    var profile = ConfigManager.getInstance().getCurrentUserProfile();
+    if (profile.getVersion() != loadedVersion) {
+      // The ROMs were edited while they were published
+      romList.clear();
+      romList.addAll(profile.getRoms());
+    }
+    romSnapshot = null;
+    applyFilters();
+  }
+
+  /**
+   * Runs a menu action that needs the loaded profile. While the profile loads in the background,
+   * the action waits for the load with a wait cursor instead of loading the profile on the
+   * application thread. A later action replaces a waiting one.
+   */
+  private void whenProfileLoaded(Runnable action) {
+    if (ConfigManager.getInstance().getCurrentUserProfile().isLoaded()) {
+      action.run();
+      return;
+    }
+    pendingProfileAction = action;
+    getScene().setCursor(Cursor.WAIT);
+  }
+
+  private void runPendingProfileAction() {
+    Runnable action = pendingProfileAction;
+    pendingProfileAction = null;
+    if (action != null) {
+      getScene().setCursor(Cursor.DEFAULT);
+      action.run();
+    }
+  }
+
+  /** Compiles the current filter for the ROMs published while loading. */
+  private void updateLoadingFilter() {
+    FilterMode mode =
+        FilterMode.fromLabel(filterComboBox.getValue(), LanguageManager.getResourceBundle());
+    // Fuzzy ranks need all names, so everything is shown until the ROMs are loaded
+    loadingFilter = mode.isFuzzy() ? null : mode.compile(searchField.getText());
+  }
+
+  /** Records the time to the first visible row of this window. */
+  private void markFirstRow() {
+    if (!firstRowShown && !visibleRoms.isEmpty()) {
+      firstRowShown = true;
+      LogManager.getLogger()
+          .info(
+              String.format(
+                  "First ROM row shown %.0f ms after the window opened.",
+                  (System.nanoTime() - loadStartNanos) / 1e6));
+    }
+  }
+
+  /** Tells whether the table shows ROMs of the profile rather than stand-ins. */
+  private boolean showsProfileRoms() {
+    return romsLoaded || romPublisher != null;
+  }
 
-    new Thread(loadTask).start();
+  /**
+   * Stops loading ROMs into this window and stops following edits of the ROMs, e.g. because it is
+   * replaced by a new one.
+   */
+  private void cancelLoading() {
+    ConfigManager.getInstance().removeExternalChangeListener(externalChangeListener);
+    ConfigManager.getInstance().getCurrentUserProfile().removeLibraryListener(libraryListener);
+    if (loadTask != null) {
+      // Not interrupted: the profile is loaded for the new window anyway
+      loadTask.cancel(false);
+    }
+    if (romPublisher != null) {
+      romPublisher.stop();
+    }
   }
 
   /** Applies search and filter criteria to the ROM list. */
   private void applyFilters() {
-    String searchText = searchField.getText().toLowerCase();
-    String filterOption = filterComboBox.getValue();
-
-    filteredData.setPredicate(
-        rom -> {
-          boolean matchesSearch =
-              rom.getName().toLowerCase().contains(searchText)
-                  || rom.getConsoles().stream().anyMatch(x -> x.toLowerCase().contains(searchText))
-                  || rom.getGenres().stream().anyMatch(x -> x.toLowerCase().contains(searchText));
-          if (!matchesSearch) {
-            return false;
-          }
-          var langBundle = LanguageManager.getResourceBundle();
-          if (langBundle.getString("filter.favorites").equals(filterOption)) {
-            return rom.isFavorite();
-          }
-          if (langBundle.getString("filter.console").equals(filterOption)) {
-            return rom.getConsoles().stream().anyMatch(x -> x.toLowerCase().contains(searchText));
-          }
-          if (langBundle.getString("filter.genre").equals(filterOption)) {
-            return rom.getGenres().stream().anyMatch(x -> x.toLowerCase().contains(searchText));
+    applyFilters(0);
+  }
+
+  /**
+   * Evaluates the search and filter criteria on the search thread and shows the matching ROMs
+   * once the evaluation is done. A newer call cancels an evaluation still in progress.
+   *
+   * @param delayMillis How long to wait for further input before evaluating
+   */
+  private void applyFilters(long delayMillis) {
+    long inputNanos = System.nanoTime();
+    String searchText = searchField.getText();
+    FilterMode mode =
+        FilterMode.fromLabel(filterComboBox.getValue(), LanguageManager.getResourceBundle());
+    if (!romsLoaded) {
+      // The ROMs are still loading and get filtered once they are loaded
+      if (romPublisher != null) {
+        updateLoadingFilter();
+        List<RomFile> matches = new ArrayList<>();
+        for (RomFile rom : romList) {
+          if (loadingFilter == null || loadingFilter.test(rom)) {
+            matches.add(rom);
           }
-          return true;
-        });
+        }
+        visibleRoms.setAll(matches);
+      } else if (storedIndex != null) {
+        applyStoredFilters(inputNanos, delayMillis, searchText, mode);
+      }
+      return;
+    }
+
+    var profile = ConfigManager.getInstance().getCurrentUserProfile();
+    if (romSnapshot == null) {
+      // Copied once per edit of the ROMs rather than once per keystroke
+      romSnapshot = List.copyOf(romList);
+      romSnapshotVersion = profile.getVersion();
+    }
+    List<RomFile> roms = romSnapshot;
+    long version = romSnapshotVersion;
+
+    SearchScheduler.getInstance()
+        .submit(
+            inputNanos,
+            delayMillis,
+            cancelled -> {
+              // Usually a no-op, as edits of the ROMs are applied to the index as they happen
+              RomSearchIndex index = RomSearchIndex.of(profile, roms, version);
+              List<RomFile> result = mode.select(searchText, index, roms, cancelled);
+              if (result == null) {
+                return null;
+              }
+              // Everything matched: the maintained library counts apply
+              FacetCounts facets =
+                  result.size() == roms.size() ? index.getFacetCounts() : FacetCounts.of(result);
+              return new Pair<>(result, facets);
+            },
+            result -> showRoms(result.getKey(), result.getValue(), roms.size()));
+  }
 
-    romTableView.setItems(filteredData);
+  /**
+   * Evaluates the search with the index stored on disk and shows stand-ins for the first
+   * matching ROMs until the ROMs are loaded.
+   */
+  private void applyStoredFilters(
+      long inputNanos, long delayMillis, String searchText, FilterMode mode) {
+    SearchIndexFile index = storedIndex;
+    SearchScheduler.getInstance()
+        .submit(
+            inputNanos,
+            delayMillis,
+            cancelled -> {
+              BitSet matches = index.search(searchText, mode, cancelled);
+              if (matches == null) {
+                return null;
+              }
+              return new Pair<>(
+                  index.getRoms(matches, STORED_RESULT_LIMIT), index.countFacets(matches));
+            },
+            result -> {
+              if (!romsLoaded && romPublisher == null) {
+                showRoms(result.getKey(), result.getValue(), index.size());
+              }
+            });
+  }
+
+  /** Replaces the visible ROMs in one update, keeping the sort order chosen in the table. */
+  private void showRoms(List<RomFile> roms, FacetCounts facets, int total) {
+    visibleRoms.setAll(roms);
+    if (!romTableView.getSortOrder().isEmpty()) {
+      romTableView.sort();
+    }
+    showFacets(facets, total);
+    markFirstRow();
+  }
+
+  /** Shows the number of matching ROMs per console and genre and of matching favorites. */
+  private void showFacets(FacetCounts facets, int total) {
+    shownFacets = facets;
+    var langBundle = LanguageManager.getResourceBundle();
+    String summary =
+        MessageFormat.format(
+            langBundle.getString("label.facets.summary"),
+            facets.getTotal(),
+            total,
+            facets.getFavorites());
+    String consoles = formatFacets(facets.getConsoles(), FACET_LABEL_LIMIT);
+    String genres = formatFacets(facets.getGenres(), FACET_LABEL_LIMIT);
+    facetLabel.setText(String.join("  |  ", summary, consoles, genres));
+    facetLabel.setTooltip(
+        new Tooltip(
+            summary
+                + "\n"
+                + langBundle.getString("label.facets.consoles")
+                + " "
+                + formatFacets(facets.getConsoles(), Integer.MAX_VALUE)
+                + "\n"
+                + langBundle.getString("label.facets.genres")
+                + " "
+                + formatFacets(facets.getGenres(), Integer.MAX_VALUE)));
+  }
+
+  private static String formatFacets(List<FacetCounts.Facet> facets, int limit) {
+    StringBuilder text = new StringBuilder();
+    for (int i = 0; i < facets.size() && i < limit; i++) {
+      if (i > 0) {
+        text.append(", ");
+      }
+      text.append(facets.get(i).name()).append(' ').append(facets.get(i).count());
+    }
+    if (facets.size() > limit) {
+      text.append(", …");
+    }
+    return text.toString();
+  }
+
+  /** Patches the ROM table with ROM changes merged from edited configuration files. */
+  private void applyExternalChanges(ProfileDiff diff) {
+    if (diff.getProfile() != ConfigManager.getInstance().getCurrentUserProfile()
+        || !romsLoaded) {
+      // Not shown, or the ROMs are still loading
+      return;
+    }
+    diff.patchRoms(romList);
+    romSnapshot = null;
+    // Added and updated ROMs may match the filter differently
+    applyFilters();
+    if (!diff.getUpdatedRoms().isEmpty()) {
+      romTableView.refresh();
+    }
+  }
+
+  /**
+   * Patches the ROM table with an edit of the ROMs. Only the rows of the changed ROMs are touched,
+   * so the table keeps its scroll position and selection.
+   */
+  private void applyLibraryChange(LibraryChange change) {
+    if (change.getProfile() != ConfigManager.getInstance().getCurrentUserProfile()
+        || !romsLoaded) {
+      // Not shown, or the ROMs are still loading and include the change once loaded
+      return;
+    }
+    change.patch(romList);
+    romSnapshot = null;
+    FilterMode mode =
+        FilterMode.fromLabel(filterComboBox.getValue(), LanguageManager.getResourceBundle());
+    if (mode.isFuzzy() && !searchField.getText().isEmpty()) {
+      // Ranks depend on all names, so the search runs again
+      applyFilters();
+      return;
+    }
+
+    RomSearchIndex index = RomSearchIndex.peek(change.getProfile());
+    if (index == null) {
+      applyFilters();
+      return;
+    }
+    RomFile selected = romTableView.getSelectionModel().getSelectedItem();
+    Predicate<RomFile> filter = mode.compile(searchField.getText());
+    boolean removed = change.getType() == LibraryChange.Type.REMOVED;
+    FacetCounts facets = shownFacets;
+    for (RomFile rom : change.getRoms()) {
+      // The keys before the change, counted while the ROM was shown
+      RomSearchIndex.IndexedKeys keys = index.keysOf(rom);
+      String name = change.isRenamed() ? change.getPreviousName() : rom.getName();
+      boolean matches = !removed && filter.test(rom);
+      if (tableSort.update(rom, name, matches) && keys != null && facets != null) {
+        facets = facets.adjusted(keys.consoles(), keys.genres(), keys.favorite(), -1);
+      }
+      if (matches && facets != null) {
+        facets =
+            facets.adjusted(
+                rom.getConsoleTags(), rom.getGenreTags(), Boolean.TRUE.equals(rom.isFavorite()), 1);
+      }
+    }
+    index.apply(change);
+    if (selected != null && romTableView.getSelectionModel().getSelectedItem() != selected) {
+      int selectedIndex = tableSort.indexOf(selected, selected.getName());
+      if (selectedIndex >= 0) {
+        romTableView.getSelectionModel().select(selectedIndex);
+      }
+    }
+    if (facets != null) {
+      showFacets(facets, romList.size());
+    }
   }
 
   @FXML
   private void openProfileSettings() {
+    whenProfileLoaded(this::showProfileSettings);
+  }
+
+  private void showProfileSettings() {
     try {
       var pair =
           Main.getWindow(
@@ -228,6 +676,10 @@ public class MainController implements IController {
 
   @FXML
   private void manageEmulators() {
+    whenProfileLoaded(this::showEmulatorManager);
+  }
+
+  private void showEmulatorManager() {
     try {
       Stage emulatorStage =
           Main.getWindow(
@@ -249,16 +701,20 @@ public class MainController implements IController {
 
   @FXML
   private void manageRoms() {
+    whenProfileLoaded(this::showRomManager);
+  }
+
+  private void showRomManager() {
     try {
-      Stage romStage =
+      var pair =
           Main.getWindow(
-                  getClass(),
-                  "/view/rom_manager.fxml",
-                  LanguageManager.getResourceBundle().getString("menu.manage.roms"))
-              .getKey();
+              getClass(),
+              "/view/rom_manager.fxml",
+              LanguageManager.getResourceBundle().getString("menu.manage.roms"));
+      Stage romStage = pair.getKey();
       romStage.initModality(Modality.APPLICATION_MODAL);
-      RomManagerController.setReloadMainWindow(this::reloadWindow);
       romStage.showAndWait();
+      ((RomManagerController) pair.getValue()).stopListening();
 
     } catch (IOException e) {
       e.printStackTrace();
@@ -266,19 +722,30 @@ public class MainController implements IController {
     }
   }
 
+  /** Returns the names of the emulators able to launch a ROM. */
+  private String compatibleEmulatorNames(RomFile rom) {
+    if (!showsProfileRoms()) {
+      // Stand-in rows; routing them would load the profile on the application thread
+      return "";
+    }
+    StringBuilder names = new StringBuilder();
+    for (Emulator emulator :
+        EmulatorRoutes.of(ConfigManager.getInstance().getCurrentUserProfile())
+            .compatibleWith(rom)) {
+      if (!names.isEmpty()) {
+        names.append(", ");
+      }
+      names.append(emulator.getName());
+    }
+    return names.toString();
+  }
+
   /** Opens the emulator selection window for the selected ROM. */
   private void openEmulatorSelectionWindow(RomFile selectedRom) {
     try {
       List<Emulator> compatibleEmulators =
-          ConfigManager.getInstance().getCurrentUserProfile().getEmulators().stream()
-              .filter(
-                  emulator ->
-                      !Collections.disjoint(
-                          emulator.getSupportedConsoles().stream()
-                              .map(String::toLowerCase)
-                              .toList(),
-                          selectedRom.getConsoles().stream().map(String::toLowerCase).toList()))
-              .toList();
+          EmulatorRoutes.of(ConfigManager.getInstance().getCurrentUserProfile())
+              .compatibleWith(selectedRom);
 
       if (compatibleEmulators.isEmpty()) {
         Alert alert =
@@ -316,12 +783,92 @@ public class MainController implements IController {
     }
   }
 
+  /** Exports all profiles into a single JSON file in a chosen directory. */
+  @FXML
+  private void exportConfig() {
+    StringProperty directory = new SimpleStringProperty();
+    directory.addListener(
+        (observable, oldValue, newValue) -> {
+          Path target = Path.of(newValue).resolve(ConfigManager.getInstance().getConfigFilePath());
+          try {
+            ConfigManager.getInstance().exportJson(target);
+          } catch (IOException e) {
+            e.printStackTrace();
+            LogManager.getLogger().severe("Failed to export configuration: " + e.getMessage());
+            showConfigTransferError();
+          }
+        });
+    selectOnDriveAndUpdateStringProperty(
+        getScene(),
+        directory,
+        LanguageManager.getResourceBundle().getString("file.chooser.select.export.directory"),
+        JFileChooser.DIRECTORIES_ONLY);
+  }
+
+  /** Replaces all profiles with the ones from a chosen JSON configuration file. */
+  @FXML
+  private void importConfig() {
+    StringProperty file = new SimpleStringProperty();
+    // The chooser reports on the Swing thread, the import reloads the JavaFX window
+    file.addListener(
+        (observable, oldValue, newValue) -> Platform.runLater(() -> importConfig(newValue)));
+    selectOnDriveAndUpdateStringProperty(
+        getScene(),
+        file,
+        LanguageManager.getResourceBundle().getString("file.chooser.select.config.file"),
+        JFileChooser.FILES_ONLY);
+  }
+
+  private void importConfig(String file) {
+    var langBundle = LanguageManager.getResourceBundle();
+    Alert alert =
+        getAlert(
+            getClass(),
+            Alert.AlertType.CONFIRMATION,
+            langBundle.getString("alert.import.config.title"),
+            langBundle.getString("alert.import.config.header"),
+            langBundle.getString("alert.import.config.content"));
+    if (alert.showAndWait().orElse(ButtonType.CANCEL) != ButtonType.OK) {
+      return;
+    }
+
+    try {
+      ConfigManager.getInstance().importJson(Path.of(file));
+    } catch (IOException e) {
+      e.printStackTrace();
+      LogManager.getLogger().severe("Failed to import configuration: " + e.getMessage());
+      showConfigTransferError();
+      return;
+    }
+
+    var currentProfile = ConfigManager.getInstance().getCurrentUserProfile();
+    if (currentProfile != null) {
+      setTheme(currentProfile.getPreferredThemeEn());
+      LanguageManager.setLocale(new Locale(currentProfile.getPreferredLanguageShort()));
+    }
+    reloadWindow();
+  }
+
+  private void showConfigTransferError() {
+    Platform.runLater(
+        () ->
+            getAlert(
+                    getClass(),
+                    Alert.AlertType.ERROR,
+                    LanguageManager.getResourceBundle().getString("alert.error"),
+                    null,
+                    LanguageManager.getResourceBundle()
+                        .getString("alert.config.transfer.failed.content"))
+                .showAndWait());
+  }
+
   @FXML
   private void exitApplication() {
     Platform.exit();
   }
 
   public IController reloadWindow() {
+    cancelLoading();
     try {
       Stage oldStage = (Stage) getScene().getWindow();
       var newPair = getWindow(getClass(), "/view/main.fxml", PROGRAM_NAME);
@@ -337,13 +884,14 @@ public class MainController implements IController {
   /** Toggles the favorite status of a ROM and updates the config and UI. */
   private void toggleFavorite(RomFile rom) {
     rom.setFavorite(!rom.isFavorite());
-    ConfigManager.getInstance().saveConfig();
-    applyFilters();
+    ConfigManager.getInstance().getCurrentUserProfile().getRomRegistry().updated(rom);
+    ConfigManager.getInstance().saveRom(rom);
   }
 
   @FXML
   private void updateApplication() {
-    UpdateManager.tryUpdate(getClass());
+    // Saves the profile before updating
+    whenProfileLoaded(() -> UpdateManager.tryUpdate(getClass()));
   }
 
   @FXML
@@ -220,7 +220,7 @@ public class ProfileCreateController implements IController {
     ConfigManager.getInstance().getProfiles().sort(Comparator.comparing(UserProfile::getUsername));
     var profileIndex = ConfigManager.getInstance().getProfiles().indexOf(newProfile);
     ConfigManager.getInstance().setCurrentUserProfileIndex(profileIndex);
-    ConfigManager.getInstance().saveConfig();
+    ConfigManager.getInstance().saveProfile(newProfile);
 
     // Resetting static fields
     setDefaultStaticFields();
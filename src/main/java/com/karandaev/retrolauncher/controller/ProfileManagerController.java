@@ -107,7 +107,7 @@ public class ProfileManagerController implements IController {
     int index = ConfigManager.getInstance().getProfiles().indexOf(profile);
     if (index != -1) {
       ConfigManager.getInstance().setCurrentUserProfileIndex(index);
-      ConfigManager.getInstance().saveConfig();
+      ConfigManager.getInstance().saveIndex();
 
       // Change theme
       String preferredTheme =
@@ -131,7 +131,7 @@ public class ProfileManagerController implements IController {
     ConfigManager.getInstance().getProfiles().remove(profile);
     var currentProfileIndex = ConfigManager.getInstance().getProfiles().indexOf(currentProfile);
     ConfigManager.getInstance().setCurrentUserProfileIndex(currentProfileIndex);
-    ConfigManager.getInstance().saveConfig();
+    ConfigManager.getInstance().saveIndex();
 
     // Reload window
     reloadWindow();
@@ -119,7 +119,7 @@ public class ProfileSettingsController implements IController {
     }
 
     // Save configuration
-    ConfigManager.getInstance().saveConfig();
+    ConfigManager.getInstance().saveProfile(profile);
 
     // Reload UI
     reloadWindow();
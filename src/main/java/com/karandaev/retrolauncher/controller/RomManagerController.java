@@ -2,13 +2,14 @@ package com.karandaev.retrolauncher.controller;
 
 import com.karandaev.retrolauncher.Main;
 import com.karandaev.retrolauncher.controller.interfaces.IController;
+import com.karandaev.retrolauncher.model.LibraryChange;
 import com.karandaev.retrolauncher.model.RomFile;
+import com.karandaev.retrolauncher.model.UserProfile;
 import com.karandaev.retrolauncher.utils.ConfigManager;
 import com.karandaev.retrolauncher.utils.LanguageManager;
 import com.karandaev.retrolauncher.utils.LogManager;
+import com.karandaev.retrolauncher.utils.ProfileDiff;
 import javafx.beans.property.ReadOnlyObjectProperty;
-import javafx.beans.property.SimpleBooleanProperty;
-import javafx.beans.property.SimpleStringProperty;
 import javafx.collections.FXCollections;
 import javafx.collections.ObservableList;
 import javafx.fxml.FXML;
@@ -20,10 +21,9 @@ import javafx.stage.Modality;
 import javafx.stage.Stage;
 
 import java.io.IOException;
-import java.util.function.Supplier;
+import java.util.function.Consumer;
 
 import static com.karandaev.retrolauncher.Main.centerColumnHeaderText;
-import static com.karandaev.retrolauncher.Main.getWindow;
 
 /** Controller class for the ROM Manager window. */
 public class RomManagerController implements IController {
@@ -37,7 +37,9 @@ public class RomManagerController implements IController {
   @FXML private Button addRomButton;
 
   private ObservableList<RomFile> romList;
-  private static Supplier<IController> reloadMainWindow;
+  private RomTableSort tableSort;
+  private final Consumer<ProfileDiff> externalChangeListener = this::applyExternalChanges;
+  private final Consumer<LibraryChange> libraryListener = this::applyLibraryChange;
 
   @FXML
   public void initialize() {
@@ -52,25 +54,31 @@ public class RomManagerController implements IController {
     centerColumnHeaderText(romFavoriteColumn);
 
     // Initialize table columns
-    romNameColumn.setCellValueFactory(
-        cellData -> new SimpleStringProperty(cellData.getValue().getName()));
-    romPathColumn.setCellValueFactory(
-        cellData -> new SimpleStringProperty(cellData.getValue().getFilePath().getAbsolutePath()));
+    // Cells share the cached values of each ROM
+    romNameColumn.setCellValueFactory(cellData -> RomRow.of(cellData.getValue()).nameProperty());
+    romPathColumn.setCellValueFactory(cellData -> RomRow.of(cellData.getValue()).pathProperty());
     romConsolesColumn.setCellValueFactory(
-        cellData -> new SimpleStringProperty(String.join(", ", cellData.getValue().getConsoles())));
+        cellData -> RomRow.of(cellData.getValue()).consolesProperty());
     romGenresColumn.setCellValueFactory(
-        cellData -> new SimpleStringProperty(String.join(", ", cellData.getValue().getGenres())));
+        cellData -> RomRow.of(cellData.getValue()).genresProperty());
     romFavoriteColumn.setCellValueFactory(
-        cellData -> new SimpleBooleanProperty(cellData.getValue().isFavorite()));
+        cellData -> RomRow.of(cellData.getValue()).favoriteProperty());
 
     // Set cell factory for favorite column to display checkbox
     romFavoriteColumn.setCellFactory(tc -> new CheckBoxTableCell<>());
 
     // Load ROM list from user profile
-    romList =
-        FXCollections.observableArrayList(
-            ConfigManager.getInstance().getCurrentUserProfile().getRoms());
+    UserProfile profile = ConfigManager.getInstance().getCurrentUserProfile();
+    romList = FXCollections.observableArrayList(profile.getRoms());
     romTableView.setItems(romList);
+    tableSort =
+        RomTableSort.install(romTableView)
+            .byName(romNameColumn)
+            .byConsoles(romConsolesColumn)
+            .byGenres(romGenresColumn)
+            .byFavorite(romFavoriteColumn);
+    ConfigManager.getInstance().addExternalChangeListener(externalChangeListener);
+    profile.addLibraryListener(libraryListener);
 
     // Add context menu to table rows
     romTableView.setRowFactory(
@@ -116,12 +124,8 @@ public class RomManagerController implements IController {
       stage.setMaxHeight(h);
       stage.setMinHeight(h);
 
+      // Open windows are patched through the library listeners of the profile
       stage.showAndWait();
-
-      // Reload UI
-      reloadWindow();
-      var mainController = (MainController) reloadMainWindow.get();
-      reloadMainWindow = mainController::reloadWindow;
     } catch (IOException e) {
       LogManager.getLogger().severe(e.getMessage());
       e.printStackTrace();
@@ -142,13 +146,8 @@ public class RomManagerController implements IController {
       controller.setRom(rom);
       stage.initModality(Modality.APPLICATION_MODAL);
 
+      // Open windows are patched through the library listeners of the profile
       stage.showAndWait();
-
-      // Reload UI
-      reloadWindow();
-      var mainController = (MainController) reloadMainWindow.get();
-      reloadMainWindow = mainController::reloadWindow;
-
     } catch (IOException e) {
       LogManager.getLogger().severe(e.getMessage());
       e.printStackTrace();
@@ -166,35 +165,48 @@ public class RomManagerController implements IController {
             LanguageManager.getResourceBundle().getString("alert.delete.rom.content"));
     var result = alert.showAndWait();
     if (result.isPresent() && result.get() == ButtonType.OK) {
-      ConfigManager.getInstance().getCurrentUserProfile().getRoms().remove(rom);
-      ConfigManager.getInstance().saveConfig();
-
-      // Reload UI
-      reloadWindow();
-      var mainController = (MainController) reloadMainWindow.get();
-      reloadMainWindow = mainController::reloadWindow;
+      ConfigManager.getInstance().getCurrentUserProfile().getRomRegistry().remove(rom);
+      ConfigManager.getInstance().removeRom(rom);
     }
   }
 
-  private IController reloadWindow() {
-    try {
-      Stage oldStage = (Stage) getScene().getWindow();
-      var newPair =
-          getWindow(
-              getClass(),
-              "/view/rom_manager.fxml",
-              LanguageManager.getResourceBundle().getString("menu.manage.roms"));
-      Main.reloadWindow(oldStage, newPair.getKey());
-      return newPair.getValue();
-    } catch (IOException e) {
-      LogManager.getLogger().severe(e.getMessage());
-      e.printStackTrace();
+  /** Patches the table with an edit of the ROMs, keeping the selected ROM selected. */
+  private void applyLibraryChange(LibraryChange change) {
+    if (change.getProfile() != ConfigManager.getInstance().getCurrentUserProfile()) {
+      return;
+    }
+    RomFile selected = romTableView.getSelectionModel().getSelectedItem();
+    boolean removed = change.getType() == LibraryChange.Type.REMOVED;
+    for (RomFile rom : change.getRoms()) {
+      String name = change.isRenamed() ? change.getPreviousName() : rom.getName();
+      tableSort.update(rom, name, !removed);
     }
-    return null;
+    if (selected != null
+        && romTableView.getSelectionModel().getSelectedItem() != selected
+        && !(change.getType() == LibraryChange.Type.REMOVED
+            && change.getRoms().contains(selected))) {
+      romTableView.getSelectionModel().select(selected);
+    }
+  }
+
+  /** Stops following edits of the ROMs once the window is closed. */
+  void stopListening() {
+    ConfigManager.getInstance().removeExternalChangeListener(externalChangeListener);
+    ConfigManager.getInstance().getCurrentUserProfile().removeLibraryListener(libraryListener);
   }
 
-  public static void setReloadMainWindow(Supplier<IController> reloadMainWindow) {
-    RomManagerController.reloadMainWindow = reloadMainWindow;
+  /** Patches the table with ROM changes merged from edited configuration files. */
+  private void applyExternalChanges(ProfileDiff diff) {
+    if (diff.getProfile() != ConfigManager.getInstance().getCurrentUserProfile()) {
+      return;
+    }
+    diff.patchRoms(romList);
+    if (!romTableView.getSortOrder().isEmpty()) {
+      romTableView.sort();
+    }
+    if (!diff.getUpdatedRoms().isEmpty()) {
+      romTableView.refresh();
+    }
   }
 
   @Override
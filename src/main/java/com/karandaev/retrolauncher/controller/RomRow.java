@@ -0,0 +1,169 @@
+package com.karandaev.retrolauncher.controller;
+
+import com.karandaev.retrolauncher.model.RomFile;
+import com.karandaev.retrolauncher.utils.LanguageManager;
+import javafx.beans.property.ReadOnlyBooleanProperty;
+import javafx.beans.property.ReadOnlyBooleanWrapper;
+import javafx.beans.property.ReadOnlyStringProperty;
+import javafx.beans.property.ReadOnlyStringWrapper;
+
+import java.text.Collator;
+import java.util.Map;
+import java.util.WeakHashMap;
+import java.util.function.Function;
+
+/**
+ * Values of a ROM as shown in the cells of a table row.
+ *
+ * <p>Each ROM has one projection whose properties are handed to every cell showing it. The values
+ * are computed again only after the ROM changed, so redrawing cells while scrolling creates no
+ * properties and no strings. Cells listen to the properties and follow a recomputation. Must be
+ * used on the JavaFX application thread.
+ *
+ * <p>The projection also keeps the collation keys of its texts for sorting. A key is created on
+ * first use and again only after its text changed or the language changed, so sorting a table
+ * does not run the collator for every comparison.
+ */
+final class RomRow {
+  // Projections do not reference their ROM, so removed ROMs and their projections are collected
+  private static final Map<RomFile, RomRow> rows = new WeakHashMap<>();
+
+  private final ReadOnlyStringWrapper name = new ReadOnlyStringWrapper();
+  private final ReadOnlyStringWrapper path = new ReadOnlyStringWrapper();
+  private final ReadOnlyStringWrapper consoles = new ReadOnlyStringWrapper();
+  private final ReadOnlyStringWrapper genres = new ReadOnlyStringWrapper();
+  private final ReadOnlyBooleanWrapper favorite = new ReadOnlyBooleanWrapper();
+  private final ReadOnlyStringWrapper emulators = new ReadOnlyStringWrapper();
+  private int revision = -1;
+  private long emulatorsVersion = -1;
+  private int emulatorsRevision = -1;
+  // Collation keys as bytes, compared without the collator; null until needed
+  private Collator collator;
+  private byte[] nameKey;
+  private byte[] consolesKey;
+  private byte[] genresKey;
+
+  private RomRow() {}
+
+  /**
+   * Returns the up-to-date projection of a ROM.
+   *
+   * @param rom The ROM of the row
+   * @return The projection
+   */
+  static RomRow of(RomFile rom) {
+    RomRow row = rows.get(rom);
+    if (row == null) {
+      row = new RomRow();
+      rows.put(rom, row);
+    }
+    row.refresh(rom);
+    return row;
+  }
+
+  private void refresh(RomFile rom) {
+    if (revision == rom.getRevision()) {
+      return;
+    }
+    revision = rom.getRevision();
+    if (update(name, rom.getName())) {
+      nameKey = null;
+    }
+    path.set(rom.getFilePath() != null ? rom.getFilePath().getAbsolutePath() : "");
+    if (update(consoles, rom.getConsoles() != null ? String.join(", ", rom.getConsoles()) : "")) {
+      consolesKey = null;
+    }
+    if (update(genres, rom.getGenres() != null ? String.join(", ", rom.getGenres()) : "")) {
+      genresKey = null;
+    }
+    favorite.set(Boolean.TRUE.equals(rom.isFavorite()));
+  }
+
+  private static boolean update(ReadOnlyStringWrapper property, String value) {
+    if (value == null) {
+      value = "";
+    }
+    if (value.equals(property.get())) {
+      return false;
+    }
+    property.set(value);
+    return true;
+  }
+
+  ReadOnlyStringProperty nameProperty() {
+    return name.getReadOnlyProperty();
+  }
+
+  ReadOnlyStringProperty pathProperty() {
+    return path.getReadOnlyProperty();
+  }
+
+  ReadOnlyStringProperty consolesProperty() {
+    return consoles.getReadOnlyProperty();
+  }
+
+  ReadOnlyStringProperty genresProperty() {
+    return genres.getReadOnlyProperty();
+  }
+
+  ReadOnlyBooleanProperty favoriteProperty() {
+    return favorite.getReadOnlyProperty();
+  }
+
+  /** Returns the collation key of the name in the current language. */
+  byte[] nameKey() {
+    collate();
+    if (nameKey == null) {
+      nameKey = collator.getCollationKey(name.get()).toByteArray();
+    }
+    return nameKey;
+  }
+
+  /** Returns the collation key of the consoles in the current language. */
+  byte[] consolesKey() {
+    collate();
+    if (consolesKey == null) {
+      consolesKey = collator.getCollationKey(consoles.get()).toByteArray();
+    }
+    return consolesKey;
+  }
+
+  /** Returns the collation key of the genres in the current language. */
+  byte[] genresKey() {
+    collate();
+    if (genresKey == null) {
+      genresKey = collator.getCollationKey(genres.get()).toByteArray();
+    }
+    return genresKey;
+  }
+
+  /** Drops the keys created for another language. */
+  private void collate() {
+    Collator current = LanguageManager.getCollator();
+    if (collator != current) {
+      collator = current;
+      nameKey = null;
+      consolesKey = null;
+      genresKey = null;
+    }
+  }
+
+  /**
+   * Returns the names of the emulators able to launch the ROM. They depend on the emulators of
+   * the profile too, so they are computed again when the ROM or the profile changed.
+   *
+   * @param rom The ROM of the row
+   * @param profileVersion The change version of the profile
+   * @param compute Lists the emulator names of the ROM
+   * @return The emulator names
+   */
+  ReadOnlyStringProperty emulatorsProperty(
+      RomFile rom, long profileVersion, Function<RomFile, String> compute) {
+    if (emulatorsVersion != profileVersion || emulatorsRevision != rom.getRevision()) {
+      emulatorsVersion = profileVersion;
+      emulatorsRevision = rom.getRevision();
+      emulators.set(compute.apply(rom));
+    }
+    return emulators.getReadOnlyProperty();
+  }
+}
@@ -0,0 +1,322 @@
+package com.karandaev.retrolauncher.controller;
+
+import com.karandaev.retrolauncher.model.RomFile;
+import javafx.collections.ListChangeListener;
+import javafx.collections.ObservableList;
+import javafx.scene.control.TableColumn;
+import javafx.scene.control.TableView;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+import java.util.function.ToIntFunction;
+
+/**
+ * Sorts a table of ROMs by the columns chosen in its header, comparing texts in the order of the
+ * current language.
+ *
+ * <p>Texts are compared by the collation keys kept in the {@linkplain RomRow projections} of the
+ * ROMs, so re-sorting runs the collator only for ROMs that changed since the last sort. Rows equal
+ * in all chosen columns stay in library order, the order of the ROMs in the profile, which is also
+ * the order of the table when no column is chosen. Must be used on the JavaFX application thread.
+ *
+ * <p>The sort remembers the values each ROM was sorted by, so a ROM that changed since is still
+ * found by binary search at the position its old values gave it and moved to its new position
+ * without sorting the table again.
+ */
+final class RomTableSort {
+  /** The order of the ROMs in the profile, in which views receive and patch their lists. */
+  static final Comparator<RomFile> LIBRARY_ORDER = Comparator.comparing(RomFile::getName);
+
+  private final TableView<RomFile> table;
+  private final Map<TableColumn<RomFile, ?>, Function<RomRow, Object>> rowValues = new HashMap<>();
+  private final Map<TableColumn<RomFile, ?>, Comparator<Object>> rowOrders = new HashMap<>();
+  // The values the items were sorted by while a column is chosen, matched by ROM identity
+  private final Map<RomFile, Entry> entries = new IdentityHashMap<>();
+  // Whether the items changed other than through this sort since they were last sorted
+  private boolean stale = true;
+  private boolean placing = false;
+  private final ListChangeListener<RomFile> itemsListener =
+      change -> {
+        if (!placing) {
+          stale = true;
+        }
+      };
+
+  /** A ROM with the values of the chosen columns and the name it was sorted by. */
+  private record Entry(RomFile rom, Object[] values, String name) {}
+
+  /** A chosen column: how to read the sort value of a ROM and how to order the values. */
+  private record Column(Function<RomFile, Object> value, Comparator<Object> order) {}
+
+  private RomTableSort(TableView<RomFile> table) {
+    this.table = table;
+  }
+
+  /**
+   * Makes a table sort its ROMs with this sort. Columns without an order of their own are sorted by
+   * the comparator of the column.
+   *
+   * @param table The table
+   * @return The sort of the table
+   */
+  static RomTableSort install(TableView<RomFile> table) {
+    RomTableSort sort = new RomTableSort(table);
+    if (table.getItems() != null) {
+      table.getItems().addListener(sort.itemsListener);
+    }
+    table
+        .itemsProperty()
+        .addListener(
+            (observable, oldItems, newItems) -> {
+              if (oldItems != null) {
+                oldItems.removeListener(sort.itemsListener);
+              }
+              if (newItems != null) {
+                newItems.addListener(sort.itemsListener);
+              }
+              sort.stale = true;
+            });
+    table.setSortPolicy(
+        view -> {
+          sort.sort();
+          return true;
+        });
+    return sort;
+  }
+
+  /** Sorts a column by the collation keys of the names. */
+  RomTableSort byName(TableColumn<RomFile, ?> column) {
+    return byRow(column, RomRow::nameKey, RomTableSort::compareKeys);
+  }
+
+  /** Sorts a column by the collation keys of the consoles. */
+  RomTableSort byConsoles(TableColumn<RomFile, ?> column) {
+    return byRow(column, RomRow::consolesKey, RomTableSort::compareKeys);
+  }
+
+  /** Sorts a column by the collation keys of the genres. */
+  RomTableSort byGenres(TableColumn<RomFile, ?> column) {
+    return byRow(column, RomRow::genresKey, RomTableSort::compareKeys);
+  }
+
+  /** Sorts a column by the favorite flags, non-favorites first. */
+  RomTableSort byFavorite(TableColumn<RomFile, ?> column) {
+    return byRow(
+        column,
+        row -> row.favoriteProperty().get(),
+        (a, b) -> Boolean.compare((Boolean) a, (Boolean) b));
+  }
+
+  private RomTableSort byRow(
+      TableColumn<RomFile, ?> column, Function<RomRow, Object> value, Comparator<Object> order) {
+    rowValues.put(column, value);
+    rowOrders.put(column, order);
+    return this;
+  }
+
+  private static int compareKeys(Object a, Object b) {
+    return Arrays.compareUnsigned((byte[]) a, (byte[]) b);
+  }
+
+  /**
+   * Finds a ROM in the table by binary search.
+   *
+   * @param rom A ROM of the table
+   * @param name The name the ROM had when it was placed, which differs from its current name while
+   *     a renamed ROM is still at its old position
+   * @return The position of the ROM, or -1 if the table does not show it
+   */
+  int indexOf(RomFile rom, String name) {
+    List<RomFile> items = table.getItems();
+    if (table.getSortOrder().isEmpty()) {
+      int index = lowerBound(items, other -> other.getName().compareTo(name));
+      for (; index < items.size() && items.get(index).getName().equals(name); index++) {
+        if (items.get(index) == rom) {
+          return index;
+        }
+      }
+      return -1;
+    }
+    if (stale) {
+      // The items were replaced without sorting them, so their sort values are unknown
+      sort();
+    }
+    Entry entry = entries.get(rom);
+    if (entry == null) {
+      return -1;
+    }
+    Comparator<Entry> order = entryOrder(columns());
+    int index = lowerBound(items, other -> order.compare(entries.get(other), entry));
+    for (; index < items.size(); index++) {
+      RomFile other = items.get(index);
+      if (other == rom) {
+        return index;
+      }
+      if (order.compare(entries.get(other), entry) != 0) {
+        break;
+      }
+    }
+    return -1;
+  }
+
+  /**
+   * Moves a changed ROM to its position in the table, adds it or removes it. A ROM that keeps its
+   * position is set again, so the table redraws its one row.
+   *
+   * @param rom The changed ROM
+   * @param name The name the ROM had when it was placed
+   * @param shown Whether the table shows the ROM after the change
+   * @return Whether the table showed the ROM before the change
+   */
+  boolean update(RomFile rom, String name, boolean shown) {
+    int index = indexOf(rom, name);
+    placing = true;
+    try {
+      place(rom, index, shown);
+    } finally {
+      placing = false;
+    }
+    return index >= 0;
+  }
+
+  private void place(RomFile rom, int index, boolean shown) {
+    List<RomFile> items = table.getItems();
+    if (!shown) {
+      if (index >= 0) {
+        items.remove(index);
+        entries.remove(rom);
+      }
+      return;
+    }
+
+    List<Column> columns = columns();
+    Comparator<Entry> order = entryOrder(columns);
+    Entry entry = entry(rom, columns);
+    if (index >= 0
+        && (index == 0 || order.compare(entryAt(index - 1, columns), entry) <= 0)
+        && (index == items.size() - 1 || order.compare(entry, entryAt(index + 1, columns)) <= 0)) {
+      placed(entry, columns);
+      items.set(index, rom);
+      return;
+    }
+    if (index >= 0) {
+      items.remove(index);
+    }
+    placed(entry, columns);
+    items.add(lowerBound(items, other -> order.compare(entryAt(other, columns), entry)), rom);
+  }
+
+  private void sort() {
+    ObservableList<RomFile> items = table.getItems();
+    entries.clear();
+    stale = false;
+    if (items == null) {
+      return;
+    }
+    // Fetches every sort value once instead of on every comparison
+    List<Column> columns = columns();
+    Entry[] sortedEntries = new Entry[items.size()];
+    for (int i = 0; i < sortedEntries.length; i++) {
+      sortedEntries[i] = entry(items.get(i), columns);
+      placed(sortedEntries[i], columns);
+    }
+    Arrays.sort(sortedEntries, entryOrder(columns));
+
+    List<RomFile> sorted = new ArrayList<>(sortedEntries.length);
+    for (Entry entry : sortedEntries) {
+      sorted.add(entry.rom());
+    }
+    if (sorted.equals(items)) {
+      return;
+    }
+    List<RomFile> selected = new ArrayList<>(table.getSelectionModel().getSelectedItems());
+    placing = true;
+    try {
+      items.setAll(sorted);
+    } finally {
+      placing = false;
+    }
+    for (RomFile rom : selected) {
+      table.getSelectionModel().select(rom);
+    }
+  }
+
+  /** Remembers the values a ROM was placed by while a column is chosen. */
+  private void placed(Entry entry, List<Column> columns) {
+    if (!columns.isEmpty()) {
+      entries.put(entry.rom(), entry);
+    }
+  }
+
+  private Entry entryAt(int index, List<Column> columns) {
+    return entryAt(table.getItems().get(index), columns);
+  }
+
+  private Entry entryAt(RomFile rom, List<Column> columns) {
+    // Without a chosen column the name is the only sort value
+    return columns.isEmpty() ? entry(rom, columns) : entries.get(rom);
+  }
+
+  /** Returns the first position whose ROM does not compare below the searched one. */
+  private static int lowerBound(List<RomFile> items, ToIntFunction<RomFile> compareToSearched) {
+    int low = 0;
+    int high = items.size();
+    while (low < high) {
+      int middle = (low + high) >>> 1;
+      if (compareToSearched.applyAsInt(items.get(middle)) < 0) {
+        low = middle + 1;
+      } else {
+        high = middle;
+      }
+    }
+    return low;
+  }
+
+  private List<Column> columns() {
+    List<Column> columns = new ArrayList<>();
+    for (TableColumn<RomFile, ?> column : table.getSortOrder()) {
+      Column sortColumn = column(column);
+      if (column.getSortType() == TableColumn.SortType.DESCENDING) {
+        sortColumn = new Column(sortColumn.value(), sortColumn.order().reversed());
+      }
+      columns.add(sortColumn);
+    }
+    return columns;
+  }
+
+  @SuppressWarnings("unchecked")
+  private <T> Column column(TableColumn<RomFile, T> column) {
+    Function<RomRow, Object> rowValue = rowValues.get(column);
+    if (rowValue != null) {
+      return new Column(rom -> rowValue.apply(RomRow.of(rom)), rowOrders.get(column));
+    }
+    Comparator<T> cellOrder = column.getComparator();
+    return new Column(column::getCellData, (a, b) -> cellOrder.compare((T) a, (T) b));
+  }
+
+  private static Entry entry(RomFile rom, List<Column> columns) {
+    Object[] values = new Object[columns.size()];
+    for (int i = 0; i < values.length; i++) {
+      values[i] = columns.get(i).value().apply(rom);
+    }
+    return new Entry(rom, values, rom.getName());
+  }
+
+  private static Comparator<Entry> entryOrder(List<Column> columns) {
+    return (a, b) -> {
+      for (int i = 0; i < columns.size(); i++) {
+        int result = columns.get(i).order().compare(a.values()[i], b.values()[i]);
+        if (result != 0) {
+          return result;
+        }
+      }
+      return a.name().compareTo(b.name());
+    };
+  }
+}
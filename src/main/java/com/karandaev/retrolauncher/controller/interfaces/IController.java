@@ -6,4 +6,14 @@ import javafx.scene.Scene;
 public interface IController {
     ReadOnlyObjectProperty<Scene> getSceneProperty();
     Scene getScene();
+
+    /**
+     * Prepares the controller of a closed window for showing its view again, e.g. by clearing the
+     * data the window was opened with. Views of controllers that can not be reset are loaded anew.
+     *
+     * @return Whether the view can be shown again
+     */
+    default boolean reset() {
+        return false;
+    }
 }
@@ -1,21 +1,25 @@
 package com.karandaev.retrolauncher.model;
 
 import com.fasterxml.jackson.annotation.JsonIdentityInfo;
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import com.fasterxml.jackson.annotation.ObjectIdGenerators;
 
 import java.io.File;
-import java.util.Comparator;
+import java.util.ArrayList;
 import java.util.List;
 import java.util.Objects;
 
 /** Model class representing an emulator. */
-public class Emulator {
+public class Emulator extends TrackedModel {
   private Integer id;
   private String name;
   private File executablePath;
   private List<String> supportedConsoles;
   private LaunchParameters launchParameters;
 
+  // Tag ids of the supported consoles; computed on first use and dropped when the consoles change
+  private transient int[] supportedConsoleTags;
+
   public Emulator() {
     // Default constructor for JSON deserialization
   }
@@ -23,8 +27,23 @@ public class Emulator {
   public Emulator(String name, File executablePath, List<String> supportedConsoles) {
     this.name = name;
     this.executablePath = executablePath;
-    this.supportedConsoles = supportedConsoles;
-    this.launchParameters = new LaunchParameters();
+    setSupportedConsoles(supportedConsoles);
+    setLaunchParameters(new LaunchParameters());
+  }
+
+  /**
+   * Copy constructor. Strings and paths are immutable and shared with the original.
+   *
+   * @param other The emulator to copy
+   */
+  public Emulator(Emulator other) {
+    this.id = other.id;
+    this.name = other.name;
+    this.executablePath = other.executablePath;
+    setSupportedConsoles(
+        other.supportedConsoles != null ? new ArrayList<>(other.supportedConsoles) : null);
+    setLaunchParameters(
+        other.launchParameters != null ? new LaunchParameters(other.launchParameters) : null);
   }
 
   public String getName() {
@@ -32,7 +51,10 @@ public class Emulator {
   }
 
   public void setName(String name) {
-    this.name = name;
+    if (!Objects.equals(this.name, name)) {
+      this.name = name;
+      fireChanged();
+    }
   }
 
   public File getExecutablePath() {
@@ -40,7 +62,10 @@ public class Emulator {
   }
 
   public void setExecutablePath(File executablePath) {
-    this.executablePath = executablePath;
+    if (!Objects.equals(this.executablePath, executablePath)) {
+      this.executablePath = executablePath;
+      fireChanged();
+    }
   }
 
   public LaunchParameters getLaunchParameters() {
@@ -49,19 +74,53 @@ public class Emulator {
 
   public void setLaunchParameters(LaunchParameters launchParameters) {
     this.launchParameters = launchParameters;
+    if (launchParameters != null) {
+      launchParameters.setChangeListener(forwardChange);
+    }
+    fireChanged();
   }
 
   public List<String> getSupportedConsoles() {
     return supportedConsoles;
   }
 
+  public void setSupportedConsoles(List<String> supportedConsoles) {
+    this.supportedConsoles =
+        supportedConsoles != null
+            ? new TrackedList<>(supportedConsoles, this::supportedConsolesChanged)
+            : null;
+    supportedConsolesChanged();
+  }
+
+  private void supportedConsolesChanged() {
+    supportedConsoleTags = null;
+    fireChanged();
+  }
+
+  /**
+   * Returns the sorted tag ids of the supported consoles in the {@link TagDictionary}. The array
+   * is shared and must not be modified; a new one is created whenever the consoles change.
+   */
+  @JsonIgnore
+  public int[] getSupportedConsoleTags() {
+    int[] tags = supportedConsoleTags;
+    if (tags == null) {
+      tags = TagDictionary.getInstance().idsOf(supportedConsoles);
+      supportedConsoleTags = tags;
+    }
+    return tags;
+  }
+
   public Integer getId() {
     return id;
   }
 
-  public void setUniqueId(List<Emulator> emulators) {
-    var res = emulators.stream().max(Comparator.comparing(Emulator::getId));
-    id = res.map(emulator -> emulator.getId() + 1).orElse(0);
+  /** Sets the id; new emulators get theirs from the {@link EmulatorRegistry} of their profile. */
+  void setId(Integer id) {
+    if (!Objects.equals(this.id, id)) {
+      this.id = id;
+      fireChanged();
+    }
   }
 
   @Override
@@ -0,0 +1,164 @@
+package com.karandaev.retrolauncher.model;
+
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Lookup of the emulators of a profile by id and by name.
+ *
+ * <p>The lookup tables are rebuilt lazily after the emulators changed, so ROM edits never
+ * invalidate them. Ids are allocated from a counter that only grows, so an id freed by a removal
+ * is not handed to the next new emulator while the profile is open. After a restart the counter
+ * starts above the highest stored id and may hand out the id of a removed emulator again, so
+ * removing an emulator also removes its launch parameters from the ROMs.
+ */
+public class EmulatorRegistry {
+  private static final Comparator<Emulator> NAME_ORDER = Comparator.comparing(Emulator::getName);
+
+  private final UserProfile profile;
+  private final Map<Integer, Emulator> byId = new HashMap<>();
+  private final Map<String, Emulator> byName = new HashMap<>();
+  private boolean stale = true;
+  private int nextId = 0;
+
+  EmulatorRegistry(UserProfile profile) {
+    this.profile = profile;
+  }
+
+  /** Marks the lookup tables outdated after a change of the emulators. */
+  synchronized void invalidate() {
+    stale = true;
+  }
+
+  private void refresh() {
+    if (!stale) {
+      return;
+    }
+    byId.clear();
+    byName.clear();
+    for (Emulator emulator : profile.getEmulators()) {
+      Integer id = emulator.getId();
+      if (id != null) {
+        byId.putIfAbsent(id, emulator);
+        nextId = Math.max(nextId, id + 1);
+      }
+      if (emulator.getName() != null) {
+        byName.putIfAbsent(emulator.getName(), emulator);
+      }
+    }
+    stale = false;
+  }
+
+  /**
+   * Finds an emulator by id.
+   *
+   * @param id The emulator id
+   * @return The emulator, or null if the profile has none with this id
+   */
+  public synchronized Emulator get(Integer id) {
+    refresh();
+    return byId.get(id);
+  }
+
+  /**
+   * Finds an emulator by name.
+   *
+   * @param name The exact emulator name
+   * @return The emulator, or null if the profile has none with this name
+   */
+  public synchronized Emulator getByName(String name) {
+    refresh();
+    return byName.get(name);
+  }
+
+  /** Tells whether the profile has an emulator with the exact name. */
+  public boolean containsName(String name) {
+    return getByName(name) != null;
+  }
+
+  /**
+   * Gives a new emulator a unique id and inserts it into the emulators of the profile, which are
+   * kept sorted by name.
+   *
+   * @param emulator The new emulator
+   */
+  public synchronized void add(Emulator emulator) {
+    refresh();
+    emulator.setId(nextId++);
+    List<Emulator> emulators = profile.getEmulators();
+    emulators.add(insertionPoint(emulators, emulator), emulator);
+  }
+
+  /**
+   * Renames an emulator and moves it to its sorted position.
+   *
+   * @param emulator An emulator of the profile
+   * @param name The new name
+   */
+  public synchronized void rename(Emulator emulator, String name) {
+    List<Emulator> emulators = profile.getEmulators();
+    boolean removed = removeInstance(emulators, emulator);
+    emulator.setName(name);
+    if (removed) {
+      emulators.add(insertionPoint(emulators, emulator), emulator);
+    }
+  }
+
+  /** Returns the first position whose emulator sorts after the given one. */
+  private static int insertionPoint(List<Emulator> emulators, Emulator emulator) {
+    int low = 0;
+    int high = emulators.size();
+    while (low < high) {
+      int middle = (low + high) >>> 1;
+      if (NAME_ORDER.compare(emulators.get(middle), emulator) <= 0) {
+        low = middle + 1;
+      } else {
+        high = middle;
+      }
+    }
+    return low;
+  }
+
+  /**
+   * Removes an emulator instance from the profile. Other emulators that are equal to it are kept.
+   *
+   * @param emulator The emulator to remove
+   * @return Whether the emulator belonged to the profile
+   */
+  public synchronized boolean remove(Emulator emulator) {
+    if (!removeInstance(profile.getEmulators(), emulator)) {
+      return false;
+    }
+    removeLaunchParameters(emulator.getId());
+    return true;
+  }
+
+  private static boolean removeInstance(List<Emulator> emulators, Emulator emulator) {
+    for (int i = 0; i < emulators.size(); i++) {
+      if (emulators.get(i) == emulator) {
+        emulators.remove(i);
+        return true;
+      }
+    }
+    return false;
+  }
+
+  /**
+   * Removes the launch parameters of an emulator from all ROMs of the profile, so they do not
+   * apply to a later emulator that gets the same id.
+   *
+   * @param emulatorId The id of a removed emulator
+   */
+  public void removeLaunchParameters(Integer emulatorId) {
+    if (emulatorId == null) {
+      return;
+    }
+    for (RomFile rom : profile.getRoms()) {
+      if (rom.getLaunchParameters() != null) {
+        rom.getLaunchParameters().remove(emulatorId);
+      }
+    }
+  }
+}
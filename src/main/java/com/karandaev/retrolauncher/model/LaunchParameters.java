@@ -1,18 +1,32 @@
 package com.karandaev.retrolauncher.model;
 
+import java.util.Objects;
+
 /** Model class representing settings for an emulator. */
-public class LaunchParameters {
+public class LaunchParameters extends TrackedModel {
   private String launchParameters;
 
   public LaunchParameters() {
     // Default constructor
   }
 
+  /**
+   * Copy constructor.
+   *
+   * @param other The launch parameters to copy
+   */
+  public LaunchParameters(LaunchParameters other) {
+    this.launchParameters = other.launchParameters;
+  }
+
   public String getLaunchParameters() {
     return launchParameters;
   }
 
   public void setLaunchParameters(String launchParameters) {
-    this.launchParameters = launchParameters;
+    if (!Objects.equals(this.launchParameters, launchParameters)) {
+      this.launchParameters = launchParameters;
+      fireChanged();
+    }
   }
 }
@@ -0,0 +1,94 @@
+package com.karandaev.retrolauncher.model;
+
+import java.util.List;
+
+/**
+ * An edit of the ROMs of a profile, published to the library listeners of the profile after the
+ * ROM list was changed. Views keep their own lists of ROMs and patch them with the change instead
+ * of copying the ROMs of the profile again.
+ */
+public class LibraryChange {
+  public enum Type {
+    ADDED,
+    REMOVED,
+    UPDATED
+  }
+
+  private final UserProfile profile;
+  private final Type type;
+  private final List<RomFile> roms;
+  private final String previousName;
+
+  LibraryChange(UserProfile profile, Type type, List<RomFile> roms, String previousName) {
+    this.profile = profile;
+    this.type = type;
+    this.roms = roms;
+    this.previousName = previousName;
+  }
+
+  /**
+   * Patches a list of ROMs sorted by name with this change. Added ROMs are inserted at their
+   * sorted position, removed ROMs are matched by identity, and an updated ROM is replaced in place
+   * or moved if it was renamed, so observers of the list see only the rows that changed.
+   *
+   * @param list A list sorted by ROM name
+   */
+  public void patch(List<RomFile> list) {
+    switch (type) {
+      case ADDED:
+        if (roms.size() == 1) {
+          list.add(RomRegistry.insertionPoint(list, roms.get(0)), roms.get(0));
+        } else {
+          list.addAll(roms);
+          // Merges the two sorted runs in linear time
+          list.sort(RomRegistry.NAME_ORDER);
+        }
+        break;
+      case REMOVED:
+        for (RomFile rom : roms) {
+          int index = RomRegistry.indexOf(list, rom, rom.getName());
+          if (index >= 0) {
+            list.remove(index);
+          }
+        }
+        break;
+      case UPDATED:
+        RomFile rom = roms.get(0);
+        int index = RomRegistry.indexOf(list, rom, isRenamed() ? previousName : rom.getName());
+        if (index < 0) {
+          return;
+        }
+        if (isRenamed()) {
+          list.remove(index);
+          list.add(RomRegistry.insertionPoint(list, rom), rom);
+        } else {
+          // Lets observers of the list redraw the one row
+          list.set(index, rom);
+        }
+        break;
+    }
+  }
+
+  public UserProfile getProfile() {
+    return profile;
+  }
+
+  public Type getType() {
+    return type;
+  }
+
+  /** Returns the added or removed ROMs, or the one updated ROM. */
+  public List<RomFile> getRoms() {
+    return roms;
+  }
+
+  /** Returns the name of an updated ROM before the update. */
+  public String getPreviousName() {
+    return previousName;
+  }
+
+  /** Tells whether an updated ROM changed its name and thereby its position. */
+  public boolean isRenamed() {
+    return type == Type.UPDATED && !roms.get(0).getName().equals(previousName);
+  }
+}
@@ -1,11 +1,19 @@
 package com.karandaev.retrolauncher.model;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
+
 import java.io.File;
+import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Locale;
 import java.util.Map;
+import java.util.Objects;
+import java.util.function.BiConsumer;
 
 /** Model class representing a ROM file. */
-public class RomFile {
+public class RomFile extends TrackedModel {
+  private Integer id;
   private String name;
   private File filePath;
   private List<String> consoles; // Supports multiple consoles
@@ -14,6 +22,18 @@ public class RomFile {
   private Map<Integer, LaunchParameters>
       launchParameters; // Dictionary <Emulator ID, LaunchParameters>
 
+  // Search keys: the lowercased name and the tag ids of consoles and genres; computed on first
+  // use and dropped when their source changes
+  private transient String nameKey;
+  private transient int[] consoleTags;
+  private transient int[] genreTags;
+
+  // Tells the registry of the owning profile about renames
+  private transient BiConsumer<RomFile, String> renameListener;
+
+  // Incremented on every change, so values derived from the ROM know when to recompute
+  private transient int revision = 0;
+
   /** Default constructor for JSON deserialization. */
   public RomFile() {
     // Empty constructor
@@ -38,20 +58,82 @@ public class RomFile {
       Map<Integer, LaunchParameters> launchParameters) {
     this.name = name;
     this.filePath = filePath;
-    this.consoles = consoles;
-    this.genres = genres;
     this.favorite = favorite;
-    this.launchParameters = launchParameters;
+    setConsoles(consoles);
+    setGenres(genres);
+    setLaunchParameters(launchParameters);
+  }
+
+  /**
+   * Copy constructor. Strings and paths are immutable and shared with the original.
+   *
+   * @param other The ROM file to copy
+   */
+  public RomFile(RomFile other) {
+    this.id = other.id;
+    this.name = other.name;
+    this.filePath = other.filePath;
+    this.favorite = other.favorite;
+    setConsoles(other.consoles != null ? new ArrayList<>(other.consoles) : null);
+    setGenres(other.genres != null ? new ArrayList<>(other.genres) : null);
+    if (other.launchParameters != null) {
+      Map<Integer, LaunchParameters> copies = new HashMap<>(other.launchParameters.size() * 2);
+      other.launchParameters.forEach(
+          (emulatorId, parameters) ->
+              copies.put(emulatorId, parameters != null ? new LaunchParameters(parameters) : null));
+      setLaunchParameters(copies);
+    }
+  }
+
+  @Override
+  protected void fireChanged() {
+    revision++;
+    super.fireChanged();
+  }
+
+  /** Returns a counter that grows with every change of this ROM, its tags or its parameters. */
+  @JsonIgnore
+  public int getRevision() {
+    return revision;
   }
 
   // Getters and Setters
 
+  public Integer getId() {
+    return id;
+  }
+
+  /** Sets the id; new ROMs get theirs from the {@link RomRegistry} of their profile. */
+  void setId(Integer id) {
+    if (!Objects.equals(this.id, id)) {
+      this.id = id;
+      fireChanged();
+    }
+  }
+
+  /** Sets the id of a ROM being loaded, which is no change of the ROM. */
+  void assignId(Integer id) {
+    this.id = id;
+  }
+
+  void setRenameListener(BiConsumer<RomFile, String> renameListener) {
+    this.renameListener = renameListener;
+  }
+
   public String getName() {
     return name;
   }
 
   public void setName(String name) {
-    this.name = name;
+    if (!Objects.equals(this.name, name)) {
+      String previousName = this.name;
+      this.name = name;
+      nameKey = null;
+      if (renameListener != null) {
+        renameListener.accept(this, previousName);
+      }
+      fireChanged();
+    }
   }
 
   public File getFilePath() {
@@ -59,19 +141,40 @@ public class RomFile {
   }
 
   public void setFilePath(File filePath) {
-    this.filePath = filePath;
+    if (!Objects.equals(this.filePath, filePath)) {
+      this.filePath = filePath;
+      fireChanged();
+    }
   }
 
   public List<String> getConsoles() {
     return consoles;
   }
 
+  public void setConsoles(List<String> consoles) {
+    this.consoles =
+        consoles != null ? new TrackedList<>(internTags(consoles), this::consolesChanged) : null;
+    consolesChanged();
+  }
+
+  private void consolesChanged() {
+    consoleTags = null;
+    fireChanged();
+  }
+
   public List<String> getGenres() {
     return genres;
   }
 
   public void setGenres(List<String> genres) {
-    this.genres = genres;
+    this.genres =
+        genres != null ? new TrackedList<>(internTags(genres), this::genresChanged) : null;
+    genresChanged();
+  }
+
+  private void genresChanged() {
+    genreTags = null;
+    fireChanged();
   }
 
   public Boolean isFavorite() {
@@ -79,7 +182,10 @@ public class RomFile {
   }
 
   public void setFavorite(Boolean favorite) {
-    this.favorite = favorite;
+    if (!Objects.equals(this.favorite, favorite)) {
+      this.favorite = favorite;
+      fireChanged();
+    }
   }
 
   public Map<Integer, LaunchParameters> getLaunchParameters() {
@@ -87,6 +193,71 @@ public class RomFile {
   }
 
   public void setLaunchParameters(Map<Integer, LaunchParameters> launchParameters) {
-    this.launchParameters = launchParameters;
+    this.launchParameters =
+        launchParameters != null
+            ? new TrackedMap<>(
+                launchParameters,
+                forwardChange,
+                parameters -> parameters.setChangeListener(forwardChange))
+            : null;
+    fireChanged();
+  }
+
+  // Search keys
+
+  /**
+   * Normalizes a value for case-insensitive search.
+   *
+   * @param value The value, may be null
+   * @return The lowercased value, or an empty string for null
+   */
+  public static String toSearchKey(String value) {
+    return value != null ? value.toLowerCase(Locale.ROOT) : "";
+  }
+
+  /** Returns the normalized name. A new key object is created whenever the name changes. */
+  @JsonIgnore
+  public String getNameKey() {
+    String key = nameKey;
+    if (key == null) {
+      key = toSearchKey(name);
+      nameKey = key;
+    }
+    return key;
+  }
+
+  /**
+   * Returns the sorted tag ids of the consoles in the {@link TagDictionary}. The array is shared
+   * and must not be modified; a new one is created whenever the consoles change.
+   */
+  @JsonIgnore
+  public int[] getConsoleTags() {
+    int[] tags = consoleTags;
+    if (tags == null) {
+      tags = TagDictionary.getInstance().idsOf(consoles);
+      consoleTags = tags;
+    }
+    return tags;
+  }
+
+  /**
+   * Returns the sorted tag ids of the genres in the {@link TagDictionary}. The array is shared and
+   * must not be modified; a new one is created whenever the genres change.
+   */
+  @JsonIgnore
+  public int[] getGenreTags() {
+    int[] tags = genreTags;
+    if (tags == null) {
+      tags = TagDictionary.getInstance().idsOf(genres);
+      genreTags = tags;
+    }
+    return tags;
+  }
+
+  /** Replaces tags with their shared instances, copying lists that cannot be modified. */
+  private static List<String> internTags(List<String> tags) {
+    List<String> interned = tags instanceof ArrayList ? tags : new ArrayList<>(tags);
+    interned.replaceAll(TagDictionary.getInstance()::intern);
+    return interned;
   }
 }
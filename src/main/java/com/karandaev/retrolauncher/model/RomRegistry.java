@@ -0,0 +1,309 @@
+package com.karandaev.retrolauncher.model;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Lookup of the ROMs of a profile by id and by normalized name, and the sorted insertion point of
+ * new or renamed ROMs.
+ *
+ * <p>Adding, removing and renaming through the registry update the lookup tables in place and
+ * find list positions by binary search, so no edit re-sorts the ROMs. Changes made to the list
+ * by other means, e.g. by merging a stored profile, mark the tables stale and the next lookup
+ * rebuilds them. Every ROM gets an id on load or insertion; ids are stored with the ROM and never
+ * reused while the profile is open. Each edit is published to the library listeners of the profile.
+ */
+public class RomRegistry {
+  static final Comparator<RomFile> NAME_ORDER = Comparator.comparing(RomFile::getName);
+
+  private final UserProfile profile;
+  private final Map<Integer, RomFile> byId = new HashMap<>();
+  private final Map<String, RomFile> byName = new HashMap<>();
+  private boolean stale = true;
+  // Set when ROMs share a normalized name, so removing one of them does not unindex the others
+  private boolean sharedNames = false;
+  // Set while the registry edits the list itself and keeps the tables up to date
+  private boolean editing = false;
+  private int nextId = 0;
+
+  RomRegistry(UserProfile profile) {
+    this.profile = profile;
+  }
+
+  /**
+   * Gives ids to loaded ROMs stored without one, or with the id of another ROM, without reporting
+   * a change, so loading a profile from before ids does not make it dirty. Ids are handed out in
+   * name order above the highest stored id, so loading the same stored ROMs again gives them the
+   * same ids, which journal records written before the next save refer to.
+   *
+   * @param roms The loaded ROMs, before the journal of the profile is replayed over them
+   */
+  static void assignIds(List<RomFile> roms) {
+    int nextId = 0;
+    for (RomFile rom : roms) {
+      if (rom.getId() != null) {
+        nextId = Math.max(nextId, rom.getId() + 1);
+      }
+    }
+    List<RomFile> byNameOrder = new ArrayList<>(roms);
+    // Stable, so ROMs of the same name keep their stored order
+    byNameOrder.sort(NAME_ORDER);
+    Set<Integer> ids = new HashSet<>();
+    for (RomFile rom : byNameOrder) {
+      if (rom.getId() == null || !ids.add(rom.getId())) {
+        rom.assignId(nextId++);
+        ids.add(rom.getId());
+      }
+    }
+  }
+
+  /** Marks the lookup tables outdated after a change of the ROM list made elsewhere. */
+  synchronized void invalidate() {
+    if (!editing) {
+      stale = true;
+    }
+  }
+
+  /** Re-indexes a ROM of the profile under its new name. */
+  synchronized void renamed(RomFile rom, String previousName) {
+    if (stale || byId.get(rom.getId()) != rom) {
+      // Removed from the profile, or indexed on the next lookup anyway
+      return;
+    }
+    unindexName(RomFile.toSearchKey(previousName), rom);
+    indexName(rom);
+  }
+
+  private void refresh() {
+    if (!stale) {
+      return;
+    }
+    byId.clear();
+    byName.clear();
+    sharedNames = false;
+    List<RomFile> roms = profile.getRoms();
+    for (RomFile rom : roms) {
+      Integer id = rom.getId();
+      if (id != null) {
+        nextId = Math.max(nextId, id + 1);
+      }
+    }
+    for (RomFile rom : roms) {
+      if (rom.getId() == null || byId.putIfAbsent(rom.getId(), rom) != null) {
+        // Added to the list without the registry, without an id or with another ROM's id
+        rom.setId(nextId++);
+        byId.put(rom.getId(), rom);
+      }
+      indexName(rom);
+    }
+    stale = false;
+  }
+
+  private void indexName(RomFile rom) {
+    if (byName.putIfAbsent(rom.getNameKey(), rom) != null) {
+      sharedNames = true;
+    }
+  }
+
+  private void unindexName(String key, RomFile rom) {
+    if (sharedNames) {
+      stale = true;
+    } else {
+      byName.remove(key, rom);
+    }
+  }
+
+  /**
+   * Finds a ROM by id.
+   *
+   * @param id The ROM id
+   * @return The ROM, or null if the profile has none with this id
+   */
+  public synchronized RomFile get(Integer id) {
+    refresh();
+    return byId.get(id);
+  }
+
+  /**
+   * Finds a ROM by name, ignoring case.
+   *
+   * @param name The ROM name
+   * @return The ROM, or null if the profile has none with this name
+   */
+  public synchronized RomFile getByName(String name) {
+    refresh();
+    return byName.get(RomFile.toSearchKey(name));
+  }
+
+  /** Tells whether the profile has a ROM with the name, ignoring case. */
+  public boolean containsName(String name) {
+    return getByName(name) != null;
+  }
+
+  /**
+   * Gives a new ROM a unique id and inserts it into the ROMs of the profile, which are kept
+   * sorted by name.
+   *
+   * @param rom The new ROM
+   */
+  public synchronized void add(RomFile rom) {
+    refresh();
+    List<RomFile> roms = profile.getRoms();
+    editing = true;
+    try {
+      rom.setId(nextId++);
+      roms.add(insertionPoint(roms, rom), rom);
+    } finally {
+      editing = false;
+    }
+    byId.put(rom.getId(), rom);
+    indexName(rom);
+    profile.publish(new LibraryChange(profile, LibraryChange.Type.ADDED, List.of(rom), null));
+  }
+
+  /**
+   * Adds many new ROMs at once. The ROMs are sorted among themselves and merged into the sorted
+   * ROMs of the profile in a single pass.
+   *
+   * @param added The new ROMs
+   */
+  public synchronized void addAll(Collection<RomFile> added) {
+    refresh();
+    List<RomFile> sorted = new ArrayList<>(added);
+    sorted.sort(NAME_ORDER);
+    List<RomFile> roms = profile.getRoms();
+    editing = true;
+    try {
+      for (RomFile rom : sorted) {
+        rom.setId(nextId++);
+      }
+      roms.addAll(sorted);
+      // Merges the two sorted runs in linear time
+      roms.sort(NAME_ORDER);
+    } finally {
+      editing = false;
+    }
+    for (RomFile rom : sorted) {
+      byId.put(rom.getId(), rom);
+      indexName(rom);
+    }
+    if (!sorted.isEmpty()) {
+      profile.publish(new LibraryChange(profile, LibraryChange.Type.ADDED, sorted, null));
+    }
+  }
+
+  /**
+   * Renames a ROM and moves it to its sorted position. Other edits of the ROM are published
+   * along with the rename, so they are best made before it.
+   *
+   * @param rom A ROM of the profile
+   * @param name The new name
+   */
+  public synchronized void rename(RomFile rom, String name) {
+    refresh();
+    List<RomFile> roms = profile.getRoms();
+    int index = indexOf(roms, rom, rom.getName());
+    String previousName = rom.getName();
+    editing = true;
+    try {
+      if (index >= 0) {
+        roms.remove(index);
+      }
+      // Re-indexes the name through the rename listener of the profile
+      rom.setName(name);
+      if (index >= 0) {
+        roms.add(insertionPoint(roms, rom), rom);
+      }
+    } finally {
+      editing = false;
+    }
+    if (index >= 0) {
+      profile.publish(
+          new LibraryChange(profile, LibraryChange.Type.UPDATED, List.of(rom), previousName));
+    }
+  }
+
+  /**
+   * Publishes an edit of a ROM that kept its name, e.g. a changed path or favorite flag.
+   *
+   * @param rom The edited ROM of the profile
+   */
+  public void updated(RomFile rom) {
+    profile.publish(
+        new LibraryChange(profile, LibraryChange.Type.UPDATED, List.of(rom), rom.getName()));
+  }
+
+  /**
+   * Removes a ROM instance from the profile.
+   *
+   * @param rom The ROM to remove
+   * @return Whether the ROM belonged to the profile
+   */
+  public synchronized boolean remove(RomFile rom) {
+    refresh();
+    List<RomFile> roms = profile.getRoms();
+    int index = indexOf(roms, rom, rom.getName());
+    if (index < 0) {
+      return false;
+    }
+    editing = true;
+    try {
+      roms.remove(index);
+    } finally {
+      editing = false;
+    }
+    byId.remove(rom.getId(), rom);
+    unindexName(rom.getNameKey(), rom);
+    profile.publish(new LibraryChange(profile, LibraryChange.Type.REMOVED, List.of(rom), null));
+    return true;
+  }
+
+  /** Returns the first position whose ROM sorts after the given one. */
+  static int insertionPoint(List<RomFile> roms, RomFile rom) {
+    return insertionPoint(roms, rom.getName());
+  }
+
+  private static int insertionPoint(List<RomFile> roms, String name) {
+    int low = 0;
+    int high = roms.size();
+    while (low < high) {
+      int middle = (low + high) >>> 1;
+      if (roms.get(middle).getName().compareTo(name) <= 0) {
+        low = middle + 1;
+      } else {
+        high = middle;
+      }
+    }
+    return low;
+  }
+
+  /**
+   * Finds the position of a ROM instance by binary search on the name it is sorted by, which
+   * differs from its current name while a renamed ROM is still at its old position.
+   */
+  static int indexOf(List<RomFile> roms, RomFile rom, String name) {
+    int end = insertionPoint(roms, name);
+    // ROMs with the same name precede the insertion point
+    for (int i = end - 1; i >= 0; i--) {
+      if (roms.get(i) == rom) {
+        return i;
+      }
+      if (!roms.get(i).getName().equals(name)) {
+        break;
+      }
+    }
+    // Not at its sorted position, e.g. the list was never sorted
+    for (int i = 0; i < roms.size(); i++) {
+      if (roms.get(i) == rom) {
+        return i;
+      }
+    }
+    return -1;
+  }
+}
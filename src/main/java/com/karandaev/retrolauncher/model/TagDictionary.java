@@ -0,0 +1,123 @@
+package com.karandaev.retrolauncher.model;
+
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Dictionary of the console and genre tags of all ROMs.
+ *
+ * <p>Interning keeps a single instance of every tag spelling, however many ROMs carry it. Every
+ * normalized tag also gets a small int id, so a ROM can keep its tags as a sorted id array and a
+ * set of tags becomes a bit set. Ids are never reused; tags are few and long-lived.
+ */
+public class TagDictionary {
+  private static final TagDictionary instance = new TagDictionary();
+  private static final int[] NO_TAGS = new int[0];
+
+  private final Map<String, String> spellings = new ConcurrentHashMap<>();
+  private final Map<String, Integer> ids = new ConcurrentHashMap<>();
+  private volatile String[] keys = new String[0];
+  private volatile String[] displayNames = new String[0];
+
+  private TagDictionary() {}
+
+  public static TagDictionary getInstance() {
+    return instance;
+  }
+
+  /** Returns the shared instance of a tag spelling. */
+  public String intern(String tag) {
+    if (tag == null) {
+      return null;
+    }
+    String shared = spellings.putIfAbsent(tag, tag);
+    return shared != null ? shared : tag;
+  }
+
+  /** Returns the id of a tag, ignoring case. Unknown tags get a new id. */
+  public int idOf(String tag) {
+    String key = RomFile.toSearchKey(tag);
+    Integer id = ids.get(key);
+    return id != null ? id : register(key, tag);
+  }
+
+  private synchronized int register(String key, String tag) {
+    Integer id = ids.get(key);
+    if (id != null) {
+      return id;
+    }
+    int newId = keys.length;
+    String[] extendedNames = Arrays.copyOf(displayNames, newId + 1);
+    extendedNames[newId] = intern(tag);
+    displayNames = extendedNames;
+    String[] extendedKeys = Arrays.copyOf(keys, newId + 1);
+    extendedKeys[newId] = key;
+    keys = extendedKeys;
+    ids.put(key, newId);
+    return newId;
+  }
+
+  /** Returns the sorted, distinct ids of tags. */
+  public int[] idsOf(List<String> tags) {
+    if (tags == null || tags.isEmpty()) {
+      return NO_TAGS;
+    }
+    int[] tagIds = new int[tags.size()];
+    for (int i = 0; i < tagIds.length; i++) {
+      tagIds[i] = idOf(tags.get(i));
+    }
+    Arrays.sort(tagIds);
+    int distinct = 1;
+    for (int i = 1; i < tagIds.length; i++) {
+      if (tagIds[i] != tagIds[distinct - 1]) {
+        tagIds[distinct++] = tagIds[i];
+      }
+    }
+    return distinct == tagIds.length ? tagIds : Arrays.copyOf(tagIds, distinct);
+  }
+
+  /** Returns the normalized tag of an id. */
+  public String keyOf(int id) {
+    return keys[id];
+  }
+
+  /** Returns the spelling of a tag as it was first seen. */
+  public String displayNameOf(int id) {
+    return displayNames[id];
+  }
+
+  /** Returns the number of known tags. */
+  public int size() {
+    return keys.length;
+  }
+
+  /**
+   * Finds the tags containing a normalized query.
+   *
+   * @param query The normalized query
+   * @return The ids of the matching tags
+   */
+  public BitSet matching(String query) {
+    String[] known = keys;
+    BitSet matches = new BitSet(known.length);
+    for (int id = 0; id < known.length; id++) {
+      if (known[id].contains(query)) {
+        matches.set(id);
+      }
+    }
+    return matches;
+  }
+
+  /** Tells whether any of the sorted tag ids is in the set. */
+  public static boolean containsAny(int[] tagIds, BitSet tags) {
+    for (int id : tagIds) {
+      if (tags.get(id)) {
+        return true;
+      }
+    }
+    return false;
+  }
+}
@@ -0,0 +1,118 @@
+package com.karandaev.retrolauncher.model;
+
+import java.util.AbstractList;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.List;
+import java.util.RandomAccess;
+import java.util.function.Consumer;
+import java.util.function.Predicate;
+
+/**
+ * List that reports every structural or element change to a listener. Elements put into the list
+ * are passed to an attach callback, e.g. to make them report their own changes to the same
+ * listener.
+ *
+ * <p>The list wraps the given list instead of copying it, so the caller hands it over.
+ */
+class TrackedList<E> extends AbstractList<E> implements RandomAccess {
+  private final List<E> delegate;
+  private final Runnable onChange;
+  private final Consumer<E> onAttach;
+
+  TrackedList(List<E> elements, Runnable onChange) {
+    this(elements, onChange, element -> {});
+  }
+
+  TrackedList(List<E> elements, Runnable onChange, Consumer<E> onAttach) {
+    if (elements == null) {
+      this.delegate = new ArrayList<>();
+    } else if (elements instanceof TrackedList) {
+      // Never share a list with another owner
+      this.delegate = new ArrayList<>(elements);
+    } else {
+      this.delegate = elements;
+    }
+    this.onChange = onChange;
+    this.onAttach = onAttach;
+    delegate.forEach(this::attach);
+  }
+
+  private void attach(E element) {
+    if (element != null) {
+      onAttach.accept(element);
+    }
+  }
+
+  @Override
+  public E get(int index) {
+    return delegate.get(index);
+  }
+
+  @Override
+  public int size() {
+    return delegate.size();
+  }
+
+  @Override
+  public E set(int index, E element) {
+    E previous = delegate.set(index, element);
+    attach(element);
+    onChange.run();
+    return previous;
+  }
+
+  @Override
+  public void add(int index, E element) {
+    delegate.add(index, element);
+    modCount++;
+    attach(element);
+    onChange.run();
+  }
+
+  @Override
+  public E remove(int index) {
+    E removed = delegate.remove(index);
+    modCount++;
+    onChange.run();
+    return removed;
+  }
+
+  @Override
+  public boolean addAll(Collection<? extends E> elements) {
+    boolean changed = delegate.addAll(elements);
+    if (changed) {
+      modCount++;
+      elements.forEach(this::attach);
+      onChange.run();
+    }
+    return changed;
+  }
+
+  @Override
+  public boolean removeIf(Predicate<? super E> filter) {
+    boolean changed = delegate.removeIf(filter);
+    if (changed) {
+      modCount++;
+      onChange.run();
+    }
+    return changed;
+  }
+
+  @Override
+  public void clear() {
+    if (!delegate.isEmpty()) {
+      delegate.clear();
+      modCount++;
+      onChange.run();
+    }
+  }
+
+  @Override
+  public void sort(Comparator<? super E> comparator) {
+    delegate.sort(comparator);
+    modCount++;
+    onChange.run();
+  }
+}
@@ -0,0 +1,226 @@
+package com.karandaev.retrolauncher.model;
+
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Consumer;
+
+/**
+ * Map that reports every change to a listener. Values put into the map are passed to an attach
+ * callback. Changes made through the key set, the values, the entry set, their iterators and the
+ * entries are reported as well.
+ *
+ * <p>The map wraps the given map instead of copying it, so the caller hands it over.
+ */
+class TrackedMap<K, V> extends AbstractMap<K, V> {
+  private final Map<K, V> delegate;
+  private final Runnable onChange;
+  private final Consumer<V> onAttach;
+
+  TrackedMap(Map<K, V> entries, Runnable onChange, Consumer<V> onAttach) {
+    if (entries == null) {
+      this.delegate = new HashMap<>();
+    } else if (entries instanceof TrackedMap) {
+      // Never share a map with another owner
+      this.delegate = new HashMap<>(entries);
+    } else {
+      this.delegate = entries;
+    }
+    this.onChange = onChange;
+    this.onAttach = onAttach;
+    delegate.values().forEach(this::attach);
+  }
+
+  private void attach(V value) {
+    if (value != null) {
+      onAttach.accept(value);
+    }
+  }
+
+  @Override
+  public Set<Entry<K, V>> entrySet() {
+    return new AbstractSet<>() {
+      @Override
+      public Iterator<Entry<K, V>> iterator() {
+        Iterator<Entry<K, V>> entries = delegate.entrySet().iterator();
+        return new Iterator<>() {
+          @Override
+          public boolean hasNext() {
+            return entries.hasNext();
+          }
+
+          @Override
+          public Entry<K, V> next() {
+            return new TrackedEntry(entries.next());
+          }
+
+          @Override
+          public void remove() {
+            entries.remove();
+            onChange.run();
+          }
+        };
+      }
+
+      @Override
+      public int size() {
+        return delegate.size();
+      }
+
+      @Override
+      public boolean contains(Object entry) {
+        return delegate.entrySet().contains(entry);
+      }
+
+      @Override
+      public boolean remove(Object entry) {
+        if (!contains(entry)) {
+          return false;
+        }
+        TrackedMap.this.remove(((Entry<?, ?>) entry).getKey());
+        return true;
+      }
+
+      @Override
+      public void clear() {
+        TrackedMap.this.clear();
+      }
+    };
+  }
+
+  @Override
+  public Set<K> keySet() {
+    return new AbstractSet<>() {
+      @Override
+      public Iterator<K> iterator() {
+        Iterator<Entry<K, V>> entries = entrySet().iterator();
+        return new Iterator<>() {
+          @Override
+          public boolean hasNext() {
+            return entries.hasNext();
+          }
+
+          @Override
+          public K next() {
+            return entries.next().getKey();
+          }
+
+          @Override
+          public void remove() {
+            entries.remove();
+          }
+        };
+      }
+
+      @Override
+      public int size() {
+        return delegate.size();
+      }
+
+      @Override
+      public boolean contains(Object key) {
+        return delegate.containsKey(key);
+      }
+
+      @Override
+      public boolean remove(Object key) {
+        if (!delegate.containsKey(key)) {
+          return false;
+        }
+        TrackedMap.this.remove(key);
+        return true;
+      }
+
+      @Override
+      public void clear() {
+        TrackedMap.this.clear();
+      }
+    };
+  }
+
+  /** An entry of the map whose value changes are reported. */
+  private class TrackedEntry implements Entry<K, V> {
+    private final Entry<K, V> entry;
+
+    TrackedEntry(Entry<K, V> entry) {
+      this.entry = entry;
+    }
+
+    @Override
+    public K getKey() {
+      return entry.getKey();
+    }
+
+    @Override
+    public V getValue() {
+      return entry.getValue();
+    }
+
+    @Override
+    public V setValue(V value) {
+      V previous = entry.setValue(value);
+      attach(value);
+      onChange.run();
+      return previous;
+    }
+
+    @Override
+    public boolean equals(Object other) {
+      return entry.equals(other);
+    }
+
+    @Override
+    public int hashCode() {
+      return entry.hashCode();
+    }
+
+    @Override
+    public String toString() {
+      return entry.toString();
+    }
+  }
+
+  @Override
+  public int size() {
+    return delegate.size();
+  }
+
+  @Override
+  public boolean containsKey(Object key) {
+    return delegate.containsKey(key);
+  }
+
+  @Override
+  public V get(Object key) {
+    return delegate.get(key);
+  }
+
+  @Override
+  public V put(K key, V value) {
+    V previous = delegate.put(key, value);
+    attach(value);
+    onChange.run();
+    return previous;
+  }
+
+  @Override
+  public V remove(Object key) {
+    boolean present = delegate.containsKey(key);
+    V removed = delegate.remove(key);
+    if (present) {
+      onChange.run();
+    }
+    return removed;
+  }
+
+  @Override
+  public void clear() {
+    if (!delegate.isEmpty()) {
+      delegate.clear();
+      onChange.run();
+    }
+  }
+}
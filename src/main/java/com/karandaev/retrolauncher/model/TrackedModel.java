@@ -0,0 +1,21 @@
+package com.karandaev.retrolauncher.model;
+
+/** Base class of model objects that report their changes to the profile owning them. */
+abstract class TrackedModel {
+  private transient Runnable changeListener;
+
+  // Forwards changes of owned collections and objects to the listener of this object
+  final transient Runnable forwardChange = this::fireChanged;
+
+  void setChangeListener(Runnable changeListener) {
+    this.changeListener = changeListener;
+  }
+
+  /** Notifies the owner that this object changed. */
+  protected void fireChanged() {
+    Runnable listener = changeListener;
+    if (listener != null) {
+      listener.run();
+    }
+  }
+}
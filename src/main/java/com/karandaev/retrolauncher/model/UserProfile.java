@@ -1,14 +1,19 @@
 package com.karandaev.retrolauncher.model;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
-import com.fasterxml.jackson.databind.ObjectMapper;
 import com.karandaev.retrolauncher.utils.LanguageManager;
 import com.karandaev.retrolauncher.utils.LogManager;
 import jdk.jshell.spi.ExecutionControl;
 
-import java.io.IOException;
+import java.lang.ref.WeakReference;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.BiConsumer;
+import java.util.function.Consumer;
 
 /** Model class representing a user profile. */
 @JsonIgnoreProperties(ignoreUnknown = true)
@@ -19,6 +24,21 @@ public class UserProfile {
   private List<Emulator> emulators;
   private List<RomFile> roms;
 
+  // Loads the rest of the profile on first access; null once the profile is loaded
+  private transient volatile Consumer<UserProfile> loader;
+  private transient boolean loading = false;
+
+  // Incremented on every change of the profile, its emulators or its ROMs
+  private final transient AtomicLong version = new AtomicLong();
+  private final transient Runnable changeListener = this::markChanged;
+  private final transient Runnable emulatorChangeListener = this::emulatorsChanged;
+  private final transient EmulatorRegistry emulatorRegistry = new EmulatorRegistry(this);
+  private final transient Runnable romListChangeListener = this::romsChanged;
+  private final transient RomRegistry romRegistry = new RomRegistry(this);
+  private final transient BiConsumer<RomFile, String> romRenameListener = romRegistry::renamed;
+  private final transient List<WeakReference<Consumer<LibraryChange>>> libraryListeners =
+      new CopyOnWriteArrayList<>();
+
   public UserProfile() {
     // Default constructor for JSON deserialization
   }
@@ -27,36 +47,167 @@ public class UserProfile {
     this.username = username;
     this.preferredLanguageShort = "en";
     this.preferredThemeEn = "light";
-    this.emulators = new ArrayList<>();
-    this.roms = new ArrayList<>();
+    this.emulators = trackEmulators(null);
+    this.roms = trackRoms(null);
   }
 
+  /**
+   * Copy constructor. Emulators and ROMs are deep-copied, while their strings and paths are
+   * immutable and shared with the original.
+   *
+   * @param other The profile to copy
+   */
   public UserProfile(UserProfile other) {
-    ObjectMapper mapper = new ObjectMapper();
-    try {
-      String json = mapper.writeValueAsString(other);
-      UserProfile copy = mapper.readValue(json, UserProfile.class);
-
-      this.username = copy.username;
-      this.preferredLanguageShort = copy.preferredLanguageShort;
-      this.preferredThemeEn = copy.preferredThemeEn;
-      this.emulators = copy.emulators;
-      this.roms = copy.roms;
-    } catch (IOException e) {
-      e.printStackTrace();
-      LogManager.getLogger().severe(e.getMessage());
+    other.ensureLoaded();
+    this.username = other.username;
+    this.preferredLanguageShort = other.preferredLanguageShort;
+    this.preferredThemeEn = other.preferredThemeEn;
+
+    List<Emulator> emulatorCopies = new ArrayList<>(other.emulators.size());
+    for (Emulator emulator : other.emulators) {
+      emulatorCopies.add(new Emulator(emulator));
+    }
+    this.emulators = trackEmulators(emulatorCopies);
+    List<RomFile> romCopies = new ArrayList<>(other.roms.size());
+    for (RomFile rom : other.roms) {
+      romCopies.add(new RomFile(rom));
+    }
+    this.roms = trackRoms(romCopies);
+  }
+
+  private List<Emulator> trackEmulators(List<Emulator> emulators) {
+    return new TrackedList<>(
+        emulators,
+        emulatorChangeListener,
+        emulator -> emulator.setChangeListener(emulatorChangeListener));
+  }
+
+  private List<RomFile> trackRoms(List<RomFile> roms) {
+    return new TrackedList<>(
+        roms,
+        romListChangeListener,
+        rom -> {
+          rom.setChangeListener(changeListener);
+          rom.setRenameListener(romRenameListener);
+        });
+  }
+
+  /**
+   * Creates a profile stub that only knows its username. Everything else is loaded by the loader
+   * the first time it is accessed.
+   *
+   * @param username Name of the profile
+   * @param loader Fills the stub with the stored profile data
+   * @return The profile stub
+   */
+  public static UserProfile stub(String username, Consumer<UserProfile> loader) {
+    UserProfile stub = new UserProfile();
+    stub.username = username;
+    stub.loader = loader;
+    return stub;
+  }
+
+  @JsonIgnore
+  public boolean isLoaded() {
+    return loader == null;
+  }
+
+  /**
+   * Sets the language and theme of a stub ahead of the rest of the profile, so they can be
+   * applied while the profile is still loading. Loading the profile sets them again.
+   *
+   * @param preferredLanguageShort The stored language, or null if unknown
+   * @param preferredThemeEn The stored theme, or null if unknown
+   */
+  public void preloadSettings(String preferredLanguageShort, String preferredThemeEn) {
+    synchronized (this) {
+      if (isLoaded()) {
+        return;
+      }
+      this.preferredLanguageShort = preferredLanguageShort;
+      this.preferredThemeEn = preferredThemeEn;
+    }
+  }
+
+  /** Loads the profile unless its settings were read ahead. */
+  private void ensureSettingsLoaded() {
+    if (preferredLanguageShort == null || preferredThemeEn == null) {
+      ensureLoaded();
+    }
+  }
+
+  /** Loads the profile data if this profile is still a stub. */
+  public void ensureLoaded() {
+    if (loader == null) {
+      return;
+    }
+    synchronized (this) {
+      if (loader == null || loading) {
+        // Already loaded, or called back from the loader itself
+        return;
+      }
+      loading = true;
+      try {
+        loader.accept(this);
+
+        // Fall back to defaults for anything the stored profile was missing
+        if (preferredLanguageShort == null) {
+          preferredLanguageShort = "en";
+        }
+        if (preferredThemeEn == null) {
+          preferredThemeEn = "light";
+        }
+        if (emulators == null) {
+          emulators = trackEmulators(null);
+        }
+        if (roms == null) {
+          roms = trackRoms(null);
+        }
+      } finally {
+        loading = false;
+        loader = null;
+      }
     }
   }
 
+  /**
+   * Returns the change version of this profile. It grows with every change of the profile
+   * settings, its emulators or its ROMs, so comparing it with the version that was last saved
+   * tells whether the profile needs saving.
+   */
+  @JsonIgnore
+  public long getVersion() {
+    return version.get();
+  }
+
+  private void markChanged() {
+    version.incrementAndGet();
+  }
+
+  private void romsChanged() {
+    romRegistry.invalidate();
+    markChanged();
+  }
+
+  private void emulatorsChanged() {
+    emulatorRegistry.invalidate();
+    markChanged();
+  }
+
   public String getUsername() {
     return username;
   }
 
   public void setUsername(String username) {
-    this.username = username;
+    if (!Objects.equals(this.username, username)) {
+      this.username = username;
+      markChanged();
+    }
   }
 
+  @JsonIgnore
   public String getPreferredLanguage() {
+    ensureSettingsLoaded();
     switch (preferredLanguageShort) {
       case "en":
         return LanguageManager.getResourceBundle().getString("language.english");
@@ -73,7 +224,9 @@ public class UserProfile {
     }
   }
 
+  @JsonIgnore
   public String getPreferredTheme() {
+    ensureSettingsLoaded();
     switch (preferredThemeEn) {
       case "light":
         return LanguageManager.getResourceBundle().getString("theme.light");
@@ -90,26 +243,92 @@ public class UserProfile {
   }
 
   public String getPreferredThemeEn() {
+    ensureSettingsLoaded();
     return preferredThemeEn;
   }
 
   public void setPreferredThemeEn(String preferredThemeEn) {
-    this.preferredThemeEn = preferredThemeEn;
+    ensureLoaded();
+    if (!Objects.equals(this.preferredThemeEn, preferredThemeEn)) {
+      this.preferredThemeEn = preferredThemeEn;
+      markChanged();
+    }
   }
 
   public String getPreferredLanguageShort() {
+    ensureSettingsLoaded();
     return preferredLanguageShort;
   }
 
   public void setPreferredLanguageShort(String preferredLanguageShort) {
-    this.preferredLanguageShort = preferredLanguageShort;
+    ensureLoaded();
+    if (!Objects.equals(this.preferredLanguageShort, preferredLanguageShort)) {
+      this.preferredLanguageShort = preferredLanguageShort;
+      markChanged();
+    }
   }
 
   public List<Emulator> getEmulators() {
+    ensureLoaded();
     return emulators;
   }
 
+  public void setEmulators(List<Emulator> emulators) {
+    this.emulators = trackEmulators(emulators);
+    emulatorsChanged();
+  }
+
+  /** Returns the lookup of the emulators of this profile by id and by name. */
+  @JsonIgnore
+  public EmulatorRegistry getEmulatorRegistry() {
+    ensureLoaded();
+    return emulatorRegistry;
+  }
+
   public List<RomFile> getRoms() {
+    ensureLoaded();
     return roms;
   }
+
+  public void setRoms(List<RomFile> roms) {
+    if (roms != null) {
+      RomRegistry.assignIds(roms);
+    }
+    this.roms = trackRoms(roms);
+    romsChanged();
+  }
+
+  /** Returns the lookup of the ROMs of this profile by id and by name. */
+  @JsonIgnore
+  public RomRegistry getRomRegistry() {
+    ensureLoaded();
+    return romRegistry;
+  }
+
+  /**
+   * Registers a listener for the ROMs added, removed and updated through the ROM registry of this
+   * profile. Listeners are called on the thread that made the edit, after the ROMs were changed.
+   * They are held weakly, so the caller keeps a reference for as long as it listens. Registering
+   * does not load the profile.
+   *
+   * @param listener Receives the changes of the ROMs
+   */
+  public void addLibraryListener(Consumer<LibraryChange> listener) {
+    libraryListeners.add(new WeakReference<>(listener));
+  }
+
+  public void removeLibraryListener(Consumer<LibraryChange> listener) {
+    libraryListeners.removeIf(reference -> reference.get() == listener);
+  }
+
+  void publish(LibraryChange change) {
+    for (var reference : libraryListeners) {
+      Consumer<LibraryChange> listener = reference.get();
+      if (listener != null) {
+        listener.accept(change);
+      } else {
+        libraryListeners.remove(reference);
+      }
+    }
+  }
 }
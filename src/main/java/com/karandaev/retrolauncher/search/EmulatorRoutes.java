@@ -0,0 +1,128 @@
+package com.karandaev.retrolauncher.search;
+
+import com.karandaev.retrolauncher.model.Emulator;
+import com.karandaev.retrolauncher.model.RomFile;
+import com.karandaev.retrolauncher.model.UserProfile;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.WeakHashMap;
+
+/**
+ * Routing table from consoles to the emulators of a profile supporting them.
+ *
+ * <p>Consoles are keyed by their tag id, so finding the emulators for a ROM is one lookup per ROM
+ * console instead of comparing every emulator's console list with the ROM's. The table follows
+ * the change version of its profile and re-routes only emulators that were added, removed or
+ * whose consoles changed.
+ */
+public class EmulatorRoutes {
+  private static final Map<UserProfile, EmulatorRoutes> routes = new WeakHashMap<>();
+
+  // Emulators per console tag id, in no particular order
+  private final Map<Integer, List<Emulator>> emulatorsByConsole = new HashMap<>();
+  // Console tag ids each emulator is routed with
+  private final Map<Emulator, int[]> routedTags = new IdentityHashMap<>();
+  // Position of each emulator in the profile, to return emulators in profile order
+  private final Map<Emulator, Integer> positions = new IdentityHashMap<>();
+  private long syncedVersion = -1;
+
+  /**
+   * Returns the routing table of a profile, bringing it up to date with the profile's emulators
+   * first.
+   *
+   * @param profile A loaded profile
+   * @return The routing table
+   */
+  public static EmulatorRoutes of(UserProfile profile) {
+    EmulatorRoutes table;
+    synchronized (routes) {
+      table = routes.computeIfAbsent(profile, p -> new EmulatorRoutes());
+    }
+    table.sync(profile);
+    return table;
+  }
+
+  /** Re-routes the emulators of the profile that changed since the last synchronization. */
+  public synchronized void sync(UserProfile profile) {
+    long version = profile.getVersion();
+    if (version == syncedVersion) {
+      return;
+    }
+    List<Emulator> emulators = profile.getEmulators();
+    Map<Emulator, Integer> current = new IdentityHashMap<>();
+    for (int i = 0; i < emulators.size(); i++) {
+      Emulator emulator = emulators.get(i);
+      current.put(emulator, i);
+      int[] tags = routedTags.get(emulator);
+      if (tags != emulator.getSupportedConsoleTags()) {
+        if (tags != null) {
+          unroute(emulator, tags);
+        }
+        route(emulator);
+      }
+    }
+    for (Emulator emulator : new ArrayList<>(routedTags.keySet())) {
+      if (!current.containsKey(emulator)) {
+        unroute(emulator, routedTags.remove(emulator));
+      }
+    }
+    positions.clear();
+    positions.putAll(current);
+    syncedVersion = version;
+  }
+
+  private void route(Emulator emulator) {
+    int[] tags = emulator.getSupportedConsoleTags();
+    routedTags.put(emulator, tags);
+    for (int tag : tags) {
+      emulatorsByConsole.computeIfAbsent(tag, t -> new ArrayList<>(2)).add(emulator);
+    }
+  }
+
+  private void unroute(Emulator emulator, int[] tags) {
+    for (int tag : tags) {
+      List<Emulator> emulators = emulatorsByConsole.get(tag);
+      if (emulators != null) {
+        emulators.removeIf(routed -> routed == emulator);
+        if (emulators.isEmpty()) {
+          emulatorsByConsole.remove(tag);
+        }
+      }
+    }
+  }
+
+  /**
+   * Returns the emulators supporting any console of a ROM, ignoring case.
+   *
+   * @param rom The ROM to launch
+   * @return The compatible emulators in profile order
+   */
+  public synchronized List<Emulator> compatibleWith(RomFile rom) {
+    int[] tags = rom.getConsoleTags();
+    if (tags.length == 1) {
+      List<Emulator> emulators = emulatorsByConsole.get(tags[0]);
+      if (emulators == null) {
+        return List.of();
+      }
+      List<Emulator> compatible = new ArrayList<>(emulators);
+      compatible.sort(Comparator.comparing(positions::get));
+      return compatible;
+    }
+
+    List<Emulator> compatible = new ArrayList<>();
+    for (int tag : tags) {
+      for (Emulator emulator : emulatorsByConsole.getOrDefault(tag, List.of())) {
+        if (!compatible.contains(emulator)) {
+          compatible.add(emulator);
+        }
+      }
+    }
+    compatible.sort(Comparator.comparing(positions::get));
+    return compatible;
+  }
+}
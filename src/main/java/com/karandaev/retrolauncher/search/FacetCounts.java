@@ -0,0 +1,124 @@
+package com.karandaev.retrolauncher.search;
+
+import com.karandaev.retrolauncher.model.RomFile;
+import com.karandaev.retrolauncher.model.TagDictionary;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Number of ROMs per console, per genre and of favorites in a set of ROMs. Counts are indexed by
+ * tag id of the {@link TagDictionary}.
+ */
+public class FacetCounts {
+  /** A tag and the number of ROMs carrying it. */
+  public record Facet(String name, int count) {}
+
+  private final int total;
+  private final int favorites;
+  private final int[] consoleCounts;
+  private final int[] genreCounts;
+
+  FacetCounts(int total, int favorites, int[] consoleCounts, int[] genreCounts) {
+    this.total = total;
+    this.favorites = favorites;
+    this.consoleCounts = consoleCounts;
+    this.genreCounts = genreCounts;
+  }
+
+  /**
+   * Counts the facets of some ROMs, e.g. a search result. Takes time proportional to the number
+   * of ROMs and their tags.
+   *
+   * @param roms The ROMs to count
+   * @return The counts
+   */
+  public static FacetCounts of(Collection<RomFile> roms) {
+    int tagCount = TagDictionary.getInstance().size();
+    int[] consoleCounts = new int[tagCount];
+    int[] genreCounts = new int[tagCount];
+    int favorites = 0;
+    for (RomFile rom : roms) {
+      consoleCounts = count(rom.getConsoleTags(), consoleCounts);
+      genreCounts = count(rom.getGenreTags(), genreCounts);
+      if (Boolean.TRUE.equals(rom.isFavorite())) {
+        favorites++;
+      }
+    }
+    return new FacetCounts(roms.size(), favorites, consoleCounts, genreCounts);
+  }
+
+  /**
+   * Returns these counts with one ROM added to or removed from the counted ROMs. Takes time
+   * proportional to the number of tags, not of ROMs.
+   *
+   * @param consoles The console tag ids of the ROM
+   * @param genres The genre tag ids of the ROM
+   * @param favorite Whether the ROM is a favorite
+   * @param change 1 to add the ROM, -1 to remove it
+   * @return The new counts
+   */
+  public FacetCounts adjusted(int[] consoles, int[] genres, boolean favorite, int change) {
+    int tagCount = Math.max(TagDictionary.getInstance().size(), consoleCounts.length);
+    int[] newConsoleCounts = Arrays.copyOf(consoleCounts, tagCount);
+    int[] newGenreCounts = Arrays.copyOf(genreCounts, tagCount);
+    for (int tag : consoles) {
+      newConsoleCounts = add(newConsoleCounts, tag, change);
+    }
+    for (int tag : genres) {
+      newGenreCounts = add(newGenreCounts, tag, change);
+    }
+    return new FacetCounts(
+        total + change, favorites + (favorite ? change : 0), newConsoleCounts, newGenreCounts);
+  }
+
+  private static int[] add(int[] counts, int tag, int change) {
+    if (tag >= counts.length) {
+      counts = Arrays.copyOf(counts, tag + 1);
+    }
+    counts[tag] += change;
+    return counts;
+  }
+
+  private static int[] count(int[] tags, int[] counts) {
+    for (int tag : tags) {
+      if (tag >= counts.length) {
+        // Tag created while counting
+        counts = Arrays.copyOf(counts, TagDictionary.getInstance().size());
+      }
+      counts[tag]++;
+    }
+    return counts;
+  }
+
+  public int getTotal() {
+    return total;
+  }
+
+  public int getFavorites() {
+    return favorites;
+  }
+
+  /** Returns the consoles with at least one ROM, the most frequent first. */
+  public List<Facet> getConsoles() {
+    return facets(consoleCounts);
+  }
+
+  /** Returns the genres with at least one ROM, the most frequent first. */
+  public List<Facet> getGenres() {
+    return facets(genreCounts);
+  }
+
+  private static List<Facet> facets(int[] counts) {
+    List<Facet> facets = new ArrayList<>();
+    for (int tag = 0; tag < counts.length; tag++) {
+      if (counts[tag] > 0) {
+        facets.add(new Facet(TagDictionary.getInstance().displayNameOf(tag), counts[tag]));
+      }
+    }
+    facets.sort((a, b) -> Integer.compare(b.count(), a.count()));
+    return facets;
+  }
+}
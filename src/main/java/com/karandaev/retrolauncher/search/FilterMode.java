@@ -0,0 +1,150 @@
+package com.karandaev.retrolauncher.search;
+
+import com.karandaev.retrolauncher.model.RomFile;
+import com.karandaev.retrolauncher.model.TagDictionary;
+
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Comparator;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.ResourceBundle;
+import java.util.Set;
+import java.util.function.BooleanSupplier;
+import java.util.function.Predicate;
+
+/**
+ * Filter modes of the main window ROM search. A mode is resolved once per query and compiled
+ * together with the search text into a predicate that matches a ROM against its cached search
+ * keys without allocating, or answered from the search index when the query is selective.
+ */
+public enum FilterMode {
+  ALL("filter.all.rom", EnumSet.allOf(RomSearchIndex.Field.class), false, false),
+  FAVORITES("filter.favorites", EnumSet.allOf(RomSearchIndex.Field.class), true, false),
+  CONSOLE("filter.console", EnumSet.of(RomSearchIndex.Field.CONSOLE), false, false),
+  GENRE("filter.genre", EnumSet.of(RomSearchIndex.Field.GENRE), false, false),
+  FUZZY("filter.fuzzy", EnumSet.of(RomSearchIndex.Field.NAME), false, true);
+
+  // Index results up to this fraction of all ROMs are cheaper to sort than to find by a scan
+  private static final int SELECTIVITY = 16;
+  private static final int CANCEL_CHECK_INTERVAL = 4096;
+  private static final Comparator<RomFile> NAME_ORDER = Comparator.comparing(RomFile::getName);
+  // Fuzzy search keeps the best matches only and returns within one frame
+  private static final int FUZZY_LIMIT = 200;
+  private static final long FUZZY_BUDGET_NANOS = 16_000_000;
+
+  private final String labelKey;
+  private final Set<RomSearchIndex.Field> fields;
+  private final boolean favoritesOnly;
+  private final boolean fuzzy;
+
+  FilterMode(
+      String labelKey, Set<RomSearchIndex.Field> fields, boolean favoritesOnly, boolean fuzzy) {
+    this.labelKey = labelKey;
+    this.fields = fields;
+    this.favoritesOnly = favoritesOnly;
+    this.fuzzy = fuzzy;
+  }
+
+  /** Returns the resource bundle key of the label shown in the filter combo box. */
+  public String getLabelKey() {
+    return labelKey;
+  }
+
+  /** Returns the fields searched in this mode. */
+  public Set<RomSearchIndex.Field> getFields() {
+    return fields;
+  }
+
+  public boolean isFavoritesOnly() {
+    return favoritesOnly;
+  }
+
+  /** Tells whether this mode ranks names by similarity instead of matching substrings. */
+  public boolean isFuzzy() {
+    return fuzzy;
+  }
+
+  /**
+   * Resolves a mode from its label.
+   *
+   * @param label The label selected in the filter combo box
+   * @param bundle The bundle the labels were taken from
+   * @return The mode, or {@link #ALL} for an unknown label
+   */
+  public static FilterMode fromLabel(String label, ResourceBundle bundle) {
+    for (FilterMode mode : values()) {
+      if (bundle.getString(mode.labelKey).equals(label)) {
+        return mode;
+      }
+    }
+    return ALL;
+  }
+
+  /**
+   * Compiles a query into a predicate over the cached search keys of a ROM.
+   *
+   * @param query The search text
+   * @return The predicate
+   */
+  public Predicate<RomFile> compile(String query) {
+    String key = RomFile.toSearchKey(query);
+    boolean names = fields.contains(RomSearchIndex.Field.NAME);
+    boolean consoles = fields.contains(RomSearchIndex.Field.CONSOLE);
+    boolean genres = fields.contains(RomSearchIndex.Field.GENRE);
+    // Tags are matched once per query; every ROM then only probes its tag ids
+    BitSet tags = TagDictionary.getInstance().matching(key);
+    return rom ->
+        (!favoritesOnly || rom.isFavorite())
+            && ((names && rom.getNameKey().contains(key))
+                || (consoles && TagDictionary.containsAny(rom.getConsoleTags(), tags))
+                || (genres && TagDictionary.containsAny(rom.getGenreTags(), tags)));
+  }
+
+  /**
+   * Selects the ROMs matching a query. Selective queries are answered from the index and the few
+   * matches are sorted by name; all others scan the ROMs with the compiled predicate. The fuzzy
+   * mode returns the best matches ranked by similarity, and matches substrings for queries too
+   * short to rank.
+   *
+   * @param query The search text
+   * @param index The up-to-date index of the searched profile
+   * @param roms The ROMs to select from, sorted by name
+   * @param cancelled Tells whether the selection is no longer needed
+   * @return The matching ROMs in the order of the given list or by rank, or null if cancelled
+   */
+  public List<RomFile> select(
+      String query, RomSearchIndex index, List<RomFile> roms, BooleanSupplier cancelled) {
+    if (fuzzy) {
+      List<RomFile> ranked =
+          index.fuzzySearch(query, FUZZY_LIMIT, System.nanoTime() + FUZZY_BUDGET_NANOS);
+      if (ranked != null) {
+        return ranked;
+      }
+    }
+    if (index.isSelective(query, fields)) {
+      BitSet matches = index.search(query, fields);
+      if (matches.cardinality() <= roms.size() / SELECTIVITY) {
+        List<RomFile> result = index.getRoms(matches);
+        if (favoritesOnly) {
+          result.removeIf(rom -> !rom.isFavorite());
+        }
+        result.sort(NAME_ORDER);
+        return result;
+      }
+    }
+
+    Predicate<RomFile> filter = compile(query);
+    List<RomFile> result = new ArrayList<>();
+    for (int i = 0; i < roms.size(); i++) {
+      if (i % CANCEL_CHECK_INTERVAL == 0 && cancelled.getAsBoolean()) {
+        return null;
+      }
+      RomFile rom = roms.get(i);
+      if (filter.test(rom)) {
+        result.add(rom);
+      }
+    }
+    return result;
+  }
+}
@@ -0,0 +1,81 @@
+package com.karandaev.retrolauncher.search;
+
+import java.util.Arrays;
+import java.util.BitSet;
+
+/** Sorted set of ROM slots stored in a growable int array. */
+class Postings {
+  private int[] slots = new int[4];
+  private int size = 0;
+
+  /** Adds a slot, keeping the slots sorted. */
+  void add(int slot) {
+    int index = Arrays.binarySearch(slots, 0, size, slot);
+    if (index >= 0) {
+      return;
+    }
+    index = -index - 1;
+    if (size == slots.length) {
+      slots = Arrays.copyOf(slots, size * 2);
+    }
+    System.arraycopy(slots, index, slots, index + 1, size - index);
+    slots[index] = slot;
+    size++;
+  }
+
+  /** Removes a slot. */
+  void remove(int slot) {
+    int index = Arrays.binarySearch(slots, 0, size, slot);
+    if (index < 0) {
+      return;
+    }
+    System.arraycopy(slots, index + 1, slots, index, size - index - 1);
+    size--;
+  }
+
+  int size() {
+    return size;
+  }
+
+  int get(int index) {
+    return slots[index];
+  }
+
+  boolean isEmpty() {
+    return size == 0;
+  }
+
+  boolean contains(int slot) {
+    return Arrays.binarySearch(slots, 0, size, slot) >= 0;
+  }
+
+  /** Sets the bits of all slots in the given set. */
+  void addTo(BitSet result) {
+    for (int i = 0; i < size; i++) {
+      result.set(slots[i]);
+    }
+  }
+
+  /**
+   * Intersects posting lists.
+   *
+   * @param lists The lists to intersect, the shortest first
+   * @return The slots contained in every list, sorted
+   */
+  static int[] intersect(Postings[] lists) {
+    Postings shortest = lists[0];
+    int[] result = new int[shortest.size];
+    int count = 0;
+    for (int i = 0; i < shortest.size; i++) {
+      int slot = shortest.slots[i];
+      boolean inAll = true;
+      for (int j = 1; j < lists.length && inAll; j++) {
+        inAll = lists[j].contains(slot);
+      }
+      if (inAll) {
+        result[count++] = slot;
+      }
+    }
+    return Arrays.copyOf(result, count);
+  }
+}
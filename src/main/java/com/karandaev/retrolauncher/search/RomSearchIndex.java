@@ -0,0 +1,527 @@
+package com.karandaev.retrolauncher.search;
+
+import com.karandaev.retrolauncher.model.LibraryChange;
+import com.karandaev.retrolauncher.model.RomFile;
+import com.karandaev.retrolauncher.model.TagDictionary;
+import com.karandaev.retrolauncher.model.UserProfile;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.WeakHashMap;
+
+/**
+ * Inverted index over the ROMs of a profile for case-insensitive substring search.
+ *
+ * <p>Names are indexed by their trigrams: a query of three or more characters looks up the
+ * posting lists of its trigrams, intersects them and verifies the few remaining candidates.
+ * Consoles and genres have few distinct values, so they are indexed by their ids in the {@link
+ * TagDictionary} and a query scans the dictionary instead of the ROMs. Every ROM occupies a slot,
+ * and results are returned as a set of slots.
+ *
+ * <p>The same trigrams serve fuzzy name search, which ranks names by the share of trigrams they
+ * have in common with the query and so tolerates typos and reordered words.
+ *
+ * <p>The index follows the change version of its profile: a lookup after an edit re-indexes only
+ * the ROMs that were added, changed or removed. The posting lists of the tags and the set of
+ * favorites double as library-wide facet counts, so these stay up to date at no extra cost.
+ */
+public class RomSearchIndex {
+  /** Searchable fields of a ROM. */
+  public enum Field {
+    NAME,
+    CONSOLE,
+    GENRE
+  }
+
+  private static final int GRAM_LENGTH = 3;
+  // Share of the query trigrams a name must contain to be a fuzzy match
+  private static final double MIN_FUZZY_OVERLAP = 0.3;
+  private static final int DEADLINE_CHECK_INTERVAL = 4096;
+  private static final Map<UserProfile, RomSearchIndex> indexes = new WeakHashMap<>();
+
+  private final Map<RomFile, Integer> slots = new IdentityHashMap<>();
+  private final List<Entry> entries = new ArrayList<>();
+  private final Deque<Integer> freeSlots = new ArrayDeque<>();
+  private final BitSet liveSlots = new BitSet();
+  private final BitSet favoriteSlots = new BitSet();
+  private final Map<Long, Postings> nameGrams = new HashMap<>();
+  private final Map<Integer, Postings> consolePostings = new HashMap<>();
+  private final Map<Integer, Postings> genrePostings = new HashMap<>();
+  private long syncedVersion = -1;
+  private int generation = 0;
+  // Trigram hit counts per slot, reused by fuzzy searches and reset after each of them
+  private int[] fuzzyHits = new int[0];
+
+  /** Search keys a ROM was indexed with, kept to detect its changes and to un-index it. */
+  private static class Entry {
+    final RomFile rom;
+    String name;
+    int[] consoles;
+    int[] genres;
+    int gramCount;
+    boolean favorite;
+    int generation;
+
+    Entry(RomFile rom) {
+      this.rom = rom;
+    }
+
+    boolean isCurrent() {
+      // A ROM creates new key objects whenever a keyed field changes
+      return name == rom.getNameKey()
+          && consoles == rom.getConsoleTags()
+          && genres == rom.getGenreTags()
+          && favorite == Boolean.TRUE.equals(rom.isFavorite());
+    }
+  }
+
+  /**
+   * Returns the index of a profile, bringing it up to date with the profile's ROMs first. Builds
+   * the index on first use, so the first call for a large profile should happen off the JavaFX
+   * application thread.
+   *
+   * @param profile A loaded profile
+   * @return The index of the profile
+   */
+  public static RomSearchIndex of(UserProfile profile) {
+    RomSearchIndex index;
+    synchronized (indexes) {
+      index = indexes.computeIfAbsent(profile, p -> new RomSearchIndex());
+    }
+    index.sync(profile.getRoms(), profile.getVersion());
+    return index;
+  }
+
+  /**
+   * Returns the index of a profile, brought up to date with a copy of its ROMs. Lets a background
+   * thread index ROMs that are edited on the JavaFX application thread.
+   *
+   * @param profile A loaded profile
+   * @param roms A copy of the ROMs of the profile
+   * @param version The version of the profile the copy was taken at
+   * @return The index of the profile
+   */
+  public static RomSearchIndex of(UserProfile profile, List<RomFile> roms, long version) {
+    RomSearchIndex index;
+    synchronized (indexes) {
+      index = indexes.computeIfAbsent(profile, p -> new RomSearchIndex());
+    }
+    index.sync(roms, version);
+    return index;
+  }
+
+  /**
+   * Returns the index of a profile as it is, without bringing it up to date.
+   *
+   * @param profile A profile
+   * @return The index of the profile, or null if it was never built
+   */
+  public static RomSearchIndex peek(UserProfile profile) {
+    synchronized (indexes) {
+      return indexes.get(profile);
+    }
+  }
+
+  /** Lowercases a value the way the index stores it. */
+  public static String normalize(String value) {
+    return RomFile.toSearchKey(value);
+  }
+
+  /**
+   * Re-indexes the ROMs that changed since the last synchronization. Does nothing if the profile
+   * version did not move past the synchronized one, so a copy taken before a later edit does not
+   * undo it.
+   */
+  private synchronized void sync(List<RomFile> roms, long version) {
+    if (version <= syncedVersion) {
+      return;
+    }
+    generation++;
+    for (RomFile rom : roms) {
+      Integer slot = slots.get(rom);
+      if (slot == null) {
+        slot = insert(rom);
+      } else if (!entries.get(slot).isCurrent()) {
+        unindex(slot);
+        index(slot);
+      }
+      entries.get(slot).generation = generation;
+    }
+    for (int slot = liveSlots.nextSetBit(0); slot >= 0; slot = liveSlots.nextSetBit(slot + 1)) {
+      if (entries.get(slot).generation != generation) {
+        delete(slot);
+      }
+    }
+    syncedVersion = version;
+  }
+
+  /**
+   * Applies an edit of the ROMs to the index, taking time proportional to the edited ROMs. ROM
+   * edits reach the index through the changes the ROM registry publishes, and other edits of the
+   * profile do not affect the index, so the index counts as synchronized with the profile
+   * afterwards.
+   *
+   * @param change An edit of the ROMs of the profile of this index
+   */
+  public synchronized void apply(LibraryChange change) {
+    for (RomFile rom : change.getRoms()) {
+      switch (change.getType()) {
+        case ADDED -> add(rom);
+        case REMOVED -> remove(rom);
+        case UPDATED -> update(rom);
+      }
+    }
+    syncedVersion = change.getProfile().getVersion();
+  }
+
+  /**
+   * Returns the search keys a ROM is indexed with. After the ROM changed they are its keys before
+   * the change until the index is updated.
+   *
+   * @param rom A ROM
+   * @return The keys, or null if the ROM is not indexed
+   */
+  public synchronized IndexedKeys keysOf(RomFile rom) {
+    Integer slot = slots.get(rom);
+    if (slot == null) {
+      return null;
+    }
+    Entry entry = entries.get(slot);
+    return new IndexedKeys(entry.consoles, entry.genres, entry.favorite);
+  }
+
+  /** The console and genre tag ids and the favorite flag a ROM is indexed with. */
+  public record IndexedKeys(int[] consoles, int[] genres, boolean favorite) {}
+
+  /** Adds a ROM to the index. */
+  public synchronized void add(RomFile rom) {
+    if (!slots.containsKey(rom)) {
+      insert(rom);
+    }
+  }
+
+  /** Re-indexes a changed ROM. */
+  public synchronized void update(RomFile rom) {
+    Integer slot = slots.get(rom);
+    if (slot == null) {
+      insert(rom);
+    } else if (!entries.get(slot).isCurrent()) {
+      unindex(slot);
+      index(slot);
+    }
+  }
+
+  /** Removes a ROM from the index. */
+  public synchronized void remove(RomFile rom) {
+    Integer slot = slots.get(rom);
+    if (slot != null) {
+      delete(slot);
+    }
+  }
+
+  /** Returns the number of indexed ROMs. */
+  public synchronized int size() {
+    return slots.size();
+  }
+
+  /** Returns the facet counts of all indexed ROMs, taken from the maintained posting lists. */
+  public synchronized FacetCounts getFacetCounts() {
+    int tagCount = TagDictionary.getInstance().size();
+    int[] consoleCounts = new int[tagCount];
+    consolePostings.forEach((tag, postings) -> consoleCounts[tag] = postings.size());
+    int[] genreCounts = new int[tagCount];
+    genrePostings.forEach((tag, postings) -> genreCounts[tag] = postings.size());
+    return new FacetCounts(slots.size(), favoriteSlots.cardinality(), consoleCounts, genreCounts);
+  }
+
+  /**
+   * Finds the ROMs with a field containing the query, ignoring case.
+   *
+   * @param query The text to search for
+   * @param fields The fields to search
+   * @return The slots of the matching ROMs, to be tested with {@link #contains}
+   */
+  public synchronized BitSet search(String query, Set<Field> fields) {
+    String normalized = normalize(query);
+    BitSet result = new BitSet(entries.size());
+    if (fields.contains(Field.NAME)) {
+      searchNames(normalized, result);
+    }
+    if (fields.contains(Field.CONSOLE) || fields.contains(Field.GENRE)) {
+      BitSet tags = TagDictionary.getInstance().matching(normalized);
+      if (fields.contains(Field.CONSOLE)) {
+        searchTags(consolePostings, tags, result);
+      }
+      if (fields.contains(Field.GENRE)) {
+        searchTags(genrePostings, tags, result);
+      }
+    }
+    return result;
+  }
+
+  /**
+   * Tells whether a query is answered from posting lists rather than by scanning all names,
+   * which is the case unless names are searched for fewer than three characters.
+   */
+  public boolean isSelective(String query, Set<Field> fields) {
+    return !fields.contains(Field.NAME) || normalize(query).length() >= GRAM_LENGTH;
+  }
+
+  /** Returns the ROMs of a search result in slot order. */
+  public synchronized List<RomFile> getRoms(BitSet result) {
+    List<RomFile> roms = new ArrayList<>(result.cardinality());
+    for (int slot = result.nextSetBit(0); slot >= 0; slot = result.nextSetBit(slot + 1)) {
+      Entry entry = entries.get(slot);
+      if (entry != null) {
+        roms.add(entry.rom);
+      }
+    }
+    return roms;
+  }
+
+  /** Tells whether a ROM is part of a search result. */
+  public synchronized boolean contains(BitSet result, RomFile rom) {
+    Integer slot = slots.get(rom);
+    return slot != null && result.get(slot);
+  }
+
+  private void searchNames(String query, BitSet result) {
+    if (query.isEmpty()) {
+      result.or(liveSlots);
+      return;
+    }
+    if (query.length() < GRAM_LENGTH) {
+      // Too short for a trigram, and short names have none
+      for (int slot = liveSlots.nextSetBit(0); slot >= 0; slot = liveSlots.nextSetBit(slot + 1)) {
+        if (entries.get(slot).name.contains(query)) {
+          result.set(slot);
+        }
+      }
+      return;
+    }
+
+    long[] grams = grams(query);
+    Postings[] lists = new Postings[grams.length];
+    for (int i = 0; i < grams.length; i++) {
+      lists[i] = nameGrams.get(grams[i]);
+      if (lists[i] == null) {
+        return;
+      }
+    }
+    Arrays.sort(lists, (a, b) -> Integer.compare(a.size(), b.size()));
+    for (int slot : Postings.intersect(lists)) {
+      // All trigrams being present does not mean they are adjacent
+      if (query.length() == GRAM_LENGTH || entries.get(slot).name.contains(query)) {
+        result.set(slot);
+      }
+    }
+  }
+
+  /**
+   * Ranks names by similarity to the query: the trigrams of every query word are looked up, and
+   * names sharing at least 30% of them are scored by the Jaccard similarity of the trigram sets
+   * of their words. Only the best matches are kept in a bounded heap, so nothing else is sorted.
+   * When the deadline passes, the best matches found so far are returned.
+   *
+   * @param query The search text
+   * @param limit The maximum number of results
+   * @param deadlineNanos {@link System#nanoTime()} by which the search has to return
+   * @return The best matching ROMs, the most similar first, or null if the query contains no word
+   *     long enough for a trigram
+   */
+  public synchronized List<RomFile> fuzzySearch(String query, int limit, long deadlineNanos) {
+    long[] queryGrams = wordGrams(normalize(query));
+    if (queryGrams.length == 0) {
+      return null;
+    }
+    if (fuzzyHits.length < entries.size()) {
+      fuzzyHits = new int[entries.size()];
+    }
+
+    // Counts the shared trigrams per name, remembering which slots were touched
+    int[] touched = new int[64];
+    int touchedCount = 0;
+    int steps = 0;
+    boolean expired = false;
+    for (long gram : queryGrams) {
+      Postings postings = nameGrams.get(gram);
+      if (postings == null) {
+        continue;
+      }
+      for (int i = 0; i < postings.size() && !expired; i++) {
+        int slot = postings.get(i);
+        if (fuzzyHits[slot]++ == 0) {
+          if (touchedCount == touched.length) {
+            touched = Arrays.copyOf(touched, touchedCount * 2);
+          }
+          touched[touchedCount++] = slot;
+        }
+        expired = ++steps % DEADLINE_CHECK_INTERVAL == 0 && System.nanoTime() > deadlineNanos;
+      }
+      if (expired) {
+        break;
+      }
+    }
+
+    // Keeps the best matches in a min-heap of bounded size
+    int minHits = Math.max(1, (int) Math.ceil(queryGrams.length * MIN_FUZZY_OVERLAP));
+    PriorityQueue<ScoredRom> best = new PriorityQueue<>(limit + 1);
+    for (int i = 0; i < touchedCount; i++) {
+      int slot = touched[i];
+      int hits = fuzzyHits[slot];
+      fuzzyHits[slot] = 0;
+      if (hits < minHits) {
+        continue;
+      }
+      Entry entry = entries.get(slot);
+      double score = (double) hits / (queryGrams.length + entry.gramCount - hits);
+      if (best.size() < limit) {
+        best.add(new ScoredRom(entry.rom, score));
+      } else if (score > best.peek().score) {
+        best.poll();
+        best.add(new ScoredRom(entry.rom, score));
+      }
+    }
+
+    RomFile[] ranked = new RomFile[best.size()];
+    for (int i = ranked.length - 1; i >= 0; i--) {
+      ranked[i] = best.poll().rom;
+    }
+    return Arrays.asList(ranked);
+  }
+
+  /** A fuzzy match, ordered by score with ties broken by name. */
+  private record ScoredRom(RomFile rom, double score) implements Comparable<ScoredRom> {
+    @Override
+    public int compareTo(ScoredRom other) {
+      int byScore = Double.compare(score, other.score);
+      // Lower names rank higher on equal scores, so they sort as better in the min-heap
+      return byScore != 0 ? byScore : other.rom.getNameKey().compareTo(rom.getNameKey());
+    }
+  }
+
+  private static void searchTags(Map<Integer, Postings> postings, BitSet tags, BitSet result) {
+    for (int tag = tags.nextSetBit(0); tag >= 0; tag = tags.nextSetBit(tag + 1)) {
+      Postings list = postings.get(tag);
+      if (list != null) {
+        list.addTo(result);
+      }
+    }
+  }
+
+  private int insert(RomFile rom) {
+    int slot;
+    if (freeSlots.isEmpty()) {
+      slot = entries.size();
+      entries.add(new Entry(rom));
+    } else {
+      slot = freeSlots.pop();
+      entries.set(slot, new Entry(rom));
+    }
+    slots.put(rom, slot);
+    liveSlots.set(slot);
+    index(slot);
+    return slot;
+  }
+
+  private void delete(int slot) {
+    unindex(slot);
+    slots.remove(entries.get(slot).rom);
+    entries.set(slot, null);
+    liveSlots.clear(slot);
+    freeSlots.push(slot);
+  }
+
+  private void index(int slot) {
+    Entry entry = entries.get(slot);
+    entry.name = entry.rom.getNameKey();
+    entry.consoles = entry.rom.getConsoleTags();
+    entry.genres = entry.rom.getGenreTags();
+    entry.favorite = Boolean.TRUE.equals(entry.rom.isFavorite());
+    favoriteSlots.set(slot, entry.favorite);
+
+    // Query trigrams never span words, so fuzzy scores count only the trigrams within words
+    entry.gramCount = wordGrams(entry.name).length;
+    for (long gram : grams(entry.name)) {
+      nameGrams.computeIfAbsent(gram, g -> new Postings()).add(slot);
+    }
+    for (int console : entry.consoles) {
+      consolePostings.computeIfAbsent(console, c -> new Postings()).add(slot);
+    }
+    for (int genre : entry.genres) {
+      genrePostings.computeIfAbsent(genre, g -> new Postings()).add(slot);
+    }
+  }
+
+  private void unindex(int slot) {
+    Entry entry = entries.get(slot);
+    favoriteSlots.clear(slot);
+    for (long gram : grams(entry.name)) {
+      removePosting(nameGrams, gram, slot);
+    }
+    for (int console : entry.consoles) {
+      removePosting(consolePostings, console, slot);
+    }
+    for (int genre : entry.genres) {
+      removePosting(genrePostings, genre, slot);
+    }
+  }
+
+  private static <K> void removePosting(Map<K, Postings> postings, K key, int slot) {
+    Postings list = postings.get(key);
+    if (list != null) {
+      list.remove(slot);
+      if (list.isEmpty()) {
+        postings.remove(key);
+      }
+    }
+  }
+
+  /** Returns the distinct trigrams of the words of a normalized string. */
+  private static long[] wordGrams(String value) {
+    long[] grams = new long[0];
+    for (String word : value.split("\\s+")) {
+      long[] wordGrams = grams(word);
+      int length = grams.length;
+      grams = Arrays.copyOf(grams, length + wordGrams.length);
+      System.arraycopy(wordGrams, 0, grams, length, wordGrams.length);
+    }
+    return Arrays.stream(grams).distinct().toArray();
+  }
+
+  /**
+   * Returns the distinct trigrams of a normalized string. Each trigram is packed into a long and
+   * multiplied by an odd constant, which keeps the keys unique but spreads their hash codes.
+   */
+  static long[] grams(String value) {
+    int count = value.length() - GRAM_LENGTH + 1;
+    if (count <= 0) {
+      return new long[0];
+    }
+    long[] grams = new long[count];
+    for (int i = 0; i < count; i++) {
+      long packed =
+          ((long) value.charAt(i) << 32)
+              | ((long) value.charAt(i + 1) << 16)
+              | value.charAt(i + 2);
+      grams[i] = packed * 0x9E3779B97F4A7C15L;
+    }
+    Arrays.sort(grams);
+    int distinct = 1;
+    for (int i = 1; i < count; i++) {
+      if (grams[i] != grams[distinct - 1]) {
+        grams[distinct++] = grams[i];
+      }
+    }
+    return distinct == count ? grams : Arrays.copyOf(grams, distinct);
+  }
+}
@@ -0,0 +1,580 @@
+package com.karandaev.retrolauncher.search;
+
+import com.karandaev.retrolauncher.model.RomFile;
+import com.karandaev.retrolauncher.model.TagDictionary;
+import com.karandaev.retrolauncher.utils.FileManager;
+import com.karandaev.retrolauncher.utils.LogManager;
+
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.BooleanSupplier;
+
+/**
+ * Search index of a profile stored in a file next to its shard, so that a large library can be
+ * searched right after startup while its ROMs are still being loaded.
+ *
+ * <p>The file holds the name trigram dictionary with its posting lists, the console and genre
+ * tags with theirs, and a compact record per ROM with what the ROM table shows. It is mapped into
+ * memory with {@link FileChannel#map} instead of being read, so opening it costs the same for
+ * any library size and only the pages touched by a search are loaded.
+ *
+ * <p>The file carries the stamp of the stored profile it was built from. A file whose stamp does
+ * not match the stored profile is not opened, and is rebuilt in the background once the profile
+ * is loaded.
+ */
+public class SearchIndexFile {
+  private static final int MAGIC = 0x524C5358;
+  private static final int FORMAT_VERSION = 1;
+  private static final int HEADER_SIZE = 40;
+  private static final int CANCEL_CHECK_INTERVAL = 4096;
+  private static final byte FAVORITE = 1;
+  private static final IntList EMPTY_POSTINGS = new IntList();
+
+  private final ByteBuffer buffer;
+  private final int romCount;
+  private final int gramCount;
+  private final int tagCount;
+  private final int recordOffsets;
+  private final int gramKeys;
+  private final int gramStarts;
+  private final int tagStarts;
+  private final int postings;
+  private final int records;
+  // Tags of the file, translated to ids of the tag dictionary
+  private final int[] tagIds;
+  private final String[] tagKeys;
+
+  private SearchIndexFile(ByteBuffer buffer) {
+    this.buffer = buffer;
+    romCount = buffer.getInt(16);
+    gramCount = buffer.getInt(20);
+    tagCount = buffer.getInt(24);
+    int postingCount = buffer.getInt(28);
+    recordOffsets = HEADER_SIZE;
+    gramKeys = recordOffsets + (romCount + 1) * Integer.BYTES;
+    gramStarts = gramKeys + gramCount * Long.BYTES;
+    // Every tag has a posting list of consoles followed by one of genres
+    tagStarts = gramStarts + (gramCount + 1) * Integer.BYTES;
+    postings = tagStarts + (2 * tagCount + 1) * Integer.BYTES;
+    int tagNames = postings + postingCount * Integer.BYTES;
+
+    tagIds = new int[tagCount];
+    tagKeys = new String[tagCount];
+    int position = tagNames;
+    for (int tag = 0; tag < tagCount; tag++) {
+      int length = buffer.getInt(position);
+      String name = readString(position);
+      tagIds[tag] = TagDictionary.getInstance().idOf(name);
+      tagKeys[tag] = RomFile.toSearchKey(name);
+      position += Integer.BYTES + length;
+    }
+    records = position;
+  }
+
+  /**
+   * Maps an index file if it was built from the stored profile with the given stamp.
+   *
+   * @param path The index file
+   * @param stamp The stamp of the stored profile
+   * @return The mapped index, or null if there is none for this stamp
+   */
+  public static SearchIndexFile open(Path path, long stamp) {
+    if (path == null || !Files.isRegularFile(path)) {
+      return null;
+    }
+    try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+      // Reads the header first, so that outdated files are never mapped and can be replaced
+      if (readStamp(channel) != stamp) {
+        return null;
+      }
+      MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+      return new SearchIndexFile(buffer);
+    } catch (IOException | RuntimeException e) {
+      LogManager.getLogger().warning("Ignoring unreadable search index " + path + ": " + e);
+      return null;
+    }
+  }
+
+  /**
+   * Tells whether an index file is missing or was built from another state of the profile.
+   *
+   * @param path The index file
+   * @param stamp The stamp of the stored profile
+   */
+  public static boolean isStale(Path path, long stamp) {
+    if (!Files.isRegularFile(path)) {
+      return true;
+    }
+    try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+      return readStamp(channel) != stamp;
+    } catch (IOException e) {
+      return true;
+    }
+  }
+
+  private static long readStamp(FileChannel channel) throws IOException {
+    ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+    while (header.hasRemaining() && channel.read(header) >= 0) {
+      // Reads the whole header
+    }
+    if (header.hasRemaining()
+        || header.getInt(0) != MAGIC
+        || header.getInt(4) != FORMAT_VERSION) {
+      return -1;
+    }
+    return header.getLong(8);
+  }
+
+  /**
+   * Rebuilds an index file in the background if it does not match the stored profile.
+   *
+   * @param path The index file
+   * @param stamp The stamp of the stored profile the ROMs were loaded from
+   * @param roms The ROMs of the profile, sorted by name
+   */
+  public static void rebuildInBackground(Path path, long stamp, List<RomFile> roms) {
+    if (path == null || !isStale(path, stamp)) {
+      return;
+    }
+    List<RomFile> snapshot = new ArrayList<>(roms);
+    Thread writer =
+        new Thread(
+            () -> {
+              try {
+                long start = System.nanoTime();
+                FileManager.writeAtomically(path, build(stamp, snapshot));
+                LogManager.getLogger()
+                    .info(
+                        "Search index of "
+                            + snapshot.size()
+                            + " ROMs written to "
+                            + path
+                            + " in "
+                            + (System.nanoTime() - start) / 1_000_000
+                            + " ms.");
+              } catch (IOException | RuntimeException e) {
+                e.printStackTrace();
+                LogManager.getLogger().severe("Failed to write search index: " + e.getMessage());
+              }
+            },
+            "search-index-writer");
+    writer.setDaemon(true);
+    writer.start();
+  }
+
+  /**
+   * Encodes the index of some ROMs.
+   *
+   * @param stamp The stamp of the stored profile the ROMs were loaded from
+   * @param roms The ROMs in the order results are returned
+   * @return The file content
+   */
+  static byte[] build(long stamp, List<RomFile> roms) throws IOException {
+    // Posting lists are filled in ROM order and so come out sorted
+    Map<Long, IntList> grams = new HashMap<>();
+    // Tag ids by normalized tag, and the spelling each tag was first seen in
+    Map<String, Integer> tags = new HashMap<>();
+    List<String> tagNames = new ArrayList<>();
+    List<IntList> consolePostings = new ArrayList<>();
+    List<IntList> genrePostings = new ArrayList<>();
+    ByteArrayOutputStream recordBytes = new ByteArrayOutputStream(roms.size() * 64);
+    DataOutputStream recordOut = new DataOutputStream(new BufferedOutputStream(recordBytes));
+    int[] offsets = new int[roms.size() + 1];
+
+    for (int ordinal = 0; ordinal < roms.size(); ordinal++) {
+      RomFile rom = roms.get(ordinal);
+      for (long gram : RomSearchIndex.grams(rom.getNameKey())) {
+        grams.computeIfAbsent(gram, g -> new IntList()).add(ordinal);
+      }
+      offsets[ordinal] = recordOut.size();
+      recordOut.writeByte(Boolean.TRUE.equals(rom.isFavorite()) ? FAVORITE : 0);
+      writeString(recordOut, rom.getName());
+      writeString(recordOut, rom.getFilePath() != null ? rom.getFilePath().getPath() : "");
+      writeTags(recordOut, rom.getConsoles(), tags, tagNames, consolePostings, ordinal);
+      writeTags(recordOut, rom.getGenres(), tags, tagNames, genrePostings, ordinal);
+    }
+    offsets[roms.size()] = recordOut.size();
+    recordOut.flush();
+
+    long[] gramKeys = new long[grams.size()];
+    int gramCount = 0;
+    int postingCount = 0;
+    for (var entry : grams.entrySet()) {
+      gramKeys[gramCount++] = entry.getKey();
+      postingCount += entry.getValue().size;
+    }
+    Arrays.sort(gramKeys);
+    byte[][] tagBytes = new byte[tagNames.size()][];
+    int tagBytesSize = 0;
+    for (int tag = 0; tag < tagNames.size(); tag++) {
+      postingCount += postingsOf(consolePostings, tag).size + postingsOf(genrePostings, tag).size;
+      tagBytes[tag] = tagNames.get(tag).getBytes(StandardCharsets.UTF_8);
+      tagBytesSize += Integer.BYTES + tagBytes[tag].length;
+    }
+
+    int size =
+        HEADER_SIZE
+            + offsets.length * Integer.BYTES
+            + gramKeys.length * Long.BYTES
+            + (gramKeys.length + 1) * Integer.BYTES
+            + (2 * tagNames.size() + 1) * Integer.BYTES
+            + postingCount * Integer.BYTES
+            + tagBytesSize
+            + recordBytes.size();
+    ByteBuffer out = ByteBuffer.allocate(size);
+    out.putInt(MAGIC);
+    out.putInt(FORMAT_VERSION);
+    out.putLong(stamp);
+    out.putInt(roms.size());
+    out.putInt(gramKeys.length);
+    out.putInt(tagNames.size());
+    out.putInt(postingCount);
+    out.position(HEADER_SIZE);
+
+    for (int offset : offsets) {
+      out.putInt(offset);
+    }
+    for (long gram : gramKeys) {
+      out.putLong(gram);
+    }
+    int start = 0;
+    for (long gram : gramKeys) {
+      out.putInt(start);
+      start += grams.get(gram).size;
+    }
+    out.putInt(start);
+    for (int tag = 0; tag < tagNames.size(); tag++) {
+      out.putInt(start);
+      start += postingsOf(consolePostings, tag).size;
+      out.putInt(start);
+      start += postingsOf(genrePostings, tag).size;
+    }
+    out.putInt(start);
+    for (long gram : gramKeys) {
+      grams.get(gram).writeTo(out);
+    }
+    for (int tag = 0; tag < tagNames.size(); tag++) {
+      postingsOf(consolePostings, tag).writeTo(out);
+      postingsOf(genrePostings, tag).writeTo(out);
+    }
+    for (byte[] tag : tagBytes) {
+      out.putInt(tag.length);
+      out.put(tag);
+    }
+    out.put(recordBytes.toByteArray());
+    return out.array();
+  }
+
+  private static void writeTags(
+      DataOutputStream out,
+      List<String> values,
+      Map<String, Integer> tags,
+      List<String> tagNames,
+      List<IntList> tagPostings,
+      int ordinal)
+      throws IOException {
+    List<String> list = values != null ? values : List.of();
+    out.writeInt(list.size());
+    for (String value : list) {
+      // Tags are matched ignoring case, like in the tag dictionary
+      Integer tag =
+          tags.computeIfAbsent(
+              RomFile.toSearchKey(value),
+              key -> {
+                tagNames.add(value);
+                return tagNames.size() - 1;
+              });
+      while (tagPostings.size() <= tag) {
+        tagPostings.add(new IntList());
+      }
+      tagPostings.get(tag).addDistinct(ordinal);
+      writeString(out, value);
+    }
+  }
+
+  private static IntList postingsOf(List<IntList> tagPostings, int tag) {
+    return tag < tagPostings.size() ? tagPostings.get(tag) : EMPTY_POSTINGS;
+  }
+
+  private static void writeString(DataOutputStream out, String value) throws IOException {
+    byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+    out.writeInt(bytes.length);
+    out.write(bytes);
+  }
+
+  private String readString(int position) {
+    int length = buffer.getInt(position);
+    byte[] bytes = new byte[length];
+    buffer.get(position + Integer.BYTES, bytes);
+    return new String(bytes, StandardCharsets.UTF_8);
+  }
+
+  /** Returns the number of ROMs in the index. */
+  public int size() {
+    return romCount;
+  }
+
+  /**
+   * Finds the ROMs matching a query the way the filter mode does, ignoring case. Fuzzy queries
+   * match names by substring until the ROMs are loaded.
+   *
+   * @param query The search text
+   * @param mode The filter mode
+   * @param cancelled Tells whether the search is no longer needed
+   * @return The positions of the matching ROMs, or null if cancelled
+   */
+  public BitSet search(String query, FilterMode mode, BooleanSupplier cancelled) {
+    String key = RomFile.toSearchKey(query);
+    BitSet result = new BitSet(romCount);
+    if (mode.getFields().contains(RomSearchIndex.Field.NAME)) {
+      if (key.length() >= 3) {
+        searchNames(key, result);
+      } else {
+        for (int ordinal = 0; ordinal < romCount; ordinal++) {
+          if (ordinal % CANCEL_CHECK_INTERVAL == 0 && cancelled.getAsBoolean()) {
+            return null;
+          }
+          if (key.isEmpty() || RomFile.toSearchKey(readName(ordinal)).contains(key)) {
+            result.set(ordinal);
+          }
+        }
+      }
+    }
+    boolean consoles = mode.getFields().contains(RomSearchIndex.Field.CONSOLE);
+    boolean genres = mode.getFields().contains(RomSearchIndex.Field.GENRE);
+    for (int tag = 0; tag < tagCount; tag++) {
+      if (tagKeys[tag].contains(key)) {
+        if (consoles) {
+          addPostings(tagStart(2 * tag), tagStart(2 * tag + 1), result);
+        }
+        if (genres) {
+          addPostings(tagStart(2 * tag + 1), tagStart(2 * tag + 2), result);
+        }
+      }
+    }
+    if (mode.isFavoritesOnly()) {
+      for (int ordinal = result.nextSetBit(0);
+          ordinal >= 0;
+          ordinal = result.nextSetBit(ordinal + 1)) {
+        if (!isFavorite(ordinal)) {
+          result.clear(ordinal);
+        }
+      }
+    }
+    return result;
+  }
+
+  private void searchNames(String key, BitSet result) {
+    long[] queryGrams = RomSearchIndex.grams(key);
+    int[] starts = new int[queryGrams.length];
+    int[] ends = new int[queryGrams.length];
+    for (int i = 0; i < queryGrams.length; i++) {
+      int gram = findGram(queryGrams[i]);
+      if (gram < 0) {
+        return;
+      }
+      starts[i] = buffer.getInt(gramStarts + gram * Integer.BYTES);
+      ends[i] = buffer.getInt(gramStarts + (gram + 1) * Integer.BYTES);
+    }
+    // Walks the shortest posting list and probes the others
+    int shortest = 0;
+    for (int i = 1; i < queryGrams.length; i++) {
+      if (ends[i] - starts[i] < ends[shortest] - starts[shortest]) {
+        shortest = i;
+      }
+    }
+    for (int p = starts[shortest]; p < ends[shortest]; p++) {
+      int ordinal = posting(p);
+      boolean inAll = true;
+      for (int i = 0; i < queryGrams.length && inAll; i++) {
+        inAll = i == shortest || containsPosting(starts[i], ends[i], ordinal);
+      }
+      // All trigrams being present does not mean they are adjacent
+      if (inAll
+          && (key.length() == 3 || RomFile.toSearchKey(readName(ordinal)).contains(key))) {
+        result.set(ordinal);
+      }
+    }
+  }
+
+  private int findGram(long gram) {
+    int low = 0;
+    int high = gramCount - 1;
+    while (low <= high) {
+      int middle = (low + high) >>> 1;
+      long value = buffer.getLong(gramKeys + middle * Long.BYTES);
+      if (value < gram) {
+        low = middle + 1;
+      } else if (value > gram) {
+        high = middle - 1;
+      } else {
+        return middle;
+      }
+    }
+    return -1;
+  }
+
+  private boolean containsPosting(int start, int end, int ordinal) {
+    int low = start;
+    int high = end - 1;
+    while (low <= high) {
+      int middle = (low + high) >>> 1;
+      int value = posting(middle);
+      if (value < ordinal) {
+        low = middle + 1;
+      } else if (value > ordinal) {
+        high = middle - 1;
+      } else {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  private void addPostings(int start, int end, BitSet result) {
+    for (int p = start; p < end; p++) {
+      result.set(posting(p));
+    }
+  }
+
+  private int posting(int index) {
+    return buffer.getInt(postings + index * Integer.BYTES);
+  }
+
+  private int tagStart(int index) {
+    return buffer.getInt(tagStarts + index * Integer.BYTES);
+  }
+
+  private int record(int ordinal) {
+    return records + buffer.getInt(recordOffsets + ordinal * Integer.BYTES);
+  }
+
+  private boolean isFavorite(int ordinal) {
+    return buffer.get(record(ordinal)) == FAVORITE;
+  }
+
+  private String readName(int ordinal) {
+    return readString(record(ordinal) + 1);
+  }
+
+  /**
+   * Counts the facets of a search result from the stored records.
+   *
+   * @param matches The positions of the matching ROMs
+   * @return The counts
+   */
+  public FacetCounts countFacets(BitSet matches) {
+    int[] consoleCounts = new int[TagDictionary.getInstance().size()];
+    int[] genreCounts = new int[consoleCounts.length];
+    int favorites = 0;
+    for (int tag = 0; tag < tagCount; tag++) {
+      consoleCounts[tagIds[tag]] +=
+          countPostings(tagStart(2 * tag), tagStart(2 * tag + 1), matches);
+      genreCounts[tagIds[tag]] +=
+          countPostings(tagStart(2 * tag + 1), tagStart(2 * tag + 2), matches);
+    }
+    for (int ordinal = matches.nextSetBit(0);
+        ordinal >= 0;
+        ordinal = matches.nextSetBit(ordinal + 1)) {
+      if (isFavorite(ordinal)) {
+        favorites++;
+      }
+    }
+    return new FacetCounts(matches.cardinality(), favorites, consoleCounts, genreCounts);
+  }
+
+  private int countPostings(int start, int end, BitSet matches) {
+    int count = 0;
+    for (int p = start; p < end; p++) {
+      if (matches.get(posting(p))) {
+        count++;
+      }
+    }
+    return count;
+  }
+
+  /**
+   * Creates stand-ins for matching ROMs from their stored records, to be shown until the ROMs
+   * are loaded.
+   *
+   * @param matches The positions of the matching ROMs
+   * @param limit The maximum number of ROMs to create
+   * @return The ROMs in stored order, which is by name
+   */
+  public List<RomFile> getRoms(BitSet matches, int limit) {
+    List<RomFile> roms = new ArrayList<>(Math.min(limit, matches.cardinality()));
+    for (int ordinal = matches.nextSetBit(0);
+        ordinal >= 0 && roms.size() < limit;
+        ordinal = matches.nextSetBit(ordinal + 1)) {
+      roms.add(readRom(ordinal));
+    }
+    return roms;
+  }
+
+  private RomFile readRom(int ordinal) {
+    int position = record(ordinal);
+    boolean favorite = buffer.get(position) == FAVORITE;
+    position++;
+    String name = readString(position);
+    position += Integer.BYTES + buffer.getInt(position);
+    String path = readString(position);
+    position += Integer.BYTES + buffer.getInt(position);
+    List<String> consoles = new ArrayList<>();
+    position = readTags(position, consoles);
+    List<String> genres = new ArrayList<>();
+    readTags(position, genres);
+    return new RomFile(name, new File(path), consoles, genres, favorite, new HashMap<>());
+  }
+
+  private int readTags(int position, List<String> tags) {
+    int count = buffer.getInt(position);
+    position += Integer.BYTES;
+    for (int i = 0; i < count; i++) {
+      tags.add(readString(position));
+      position += Integer.BYTES + buffer.getInt(position);
+    }
+    return position;
+  }
+
+  /** Growable list of ints in ascending order. */
+  private static class IntList {
+    private int[] values = new int[4];
+    private int size = 0;
+
+    void add(int value) {
+      if (size == values.length) {
+        values = Arrays.copyOf(values, size * 2);
+      }
+      values[size++] = value;
+    }
+
+    /** Adds a value unless it was the last one added, e.g. a tag listed twice for a ROM. */
+    void addDistinct(int value) {
+      if (size == 0 || values[size - 1] != value) {
+        add(value);
+      }
+    }
+
+    void writeTo(ByteBuffer out) {
+      for (int i = 0; i < size; i++) {
+        out.putInt(values[i]);
+      }
+    }
+  }
+}
@@ -0,0 +1,155 @@
+package com.karandaev.retrolauncher.search;
+
+import com.karandaev.retrolauncher.utils.LogManager;
+import javafx.application.Platform;
+
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.BooleanSupplier;
+import java.util.function.Consumer;
+
+/**
+ * Evaluates search queries on a background thread and hands their results to the JavaFX
+ * application thread.
+ *
+ * <p>Only the newest query counts: submitting a query supersedes every earlier one, whether it is
+ * still waiting, being evaluated or waiting to be applied. Typing is debounced, so a burst of
+ * keystrokes evaluates a single query. The time from the input event to the applied result is
+ * collected as key-to-render latency.
+ */
+public class SearchScheduler {
+  /** Quiet period after a keystroke before the query is evaluated. */
+  public static final long DEBOUNCE_MILLIS = 120;
+
+  private static final SearchScheduler instance = new SearchScheduler();
+
+  /** A query evaluated off the JavaFX application thread. */
+  @FunctionalInterface
+  public interface Query<T> {
+    /**
+     * Evaluates the query.
+     *
+     * @param cancelled Tells whether a newer query superseded this one; checked between steps
+     * @return The result, or null if the evaluation was cancelled
+     */
+    T evaluate(BooleanSupplier cancelled);
+  }
+
+  private final ScheduledExecutorService executor =
+      Executors.newSingleThreadScheduledExecutor(
+          runnable -> {
+            Thread thread = new Thread(runnable, "rom-search");
+            thread.setDaemon(true);
+            return thread;
+          });
+  private final AtomicLong generation = new AtomicLong();
+
+  private final AtomicLong submittedQueries = new AtomicLong();
+  private final AtomicLong cancelledQueries = new AtomicLong();
+  private final AtomicLong appliedResults = new AtomicLong();
+  private final AtomicLong totalLatencyNanos = new AtomicLong();
+  private final AtomicLong maxLatencyNanos = new AtomicLong();
+  private volatile long lastLatencyNanos = 0;
+
+  private SearchScheduler() {}
+
+  public static SearchScheduler getInstance() {
+    return instance;
+  }
+
+  /**
+   * Submits a query, superseding all earlier ones.
+   *
+   * @param inputNanos {@link System#nanoTime()} of the input event that caused the query
+   * @param delayMillis How long to wait for further input before evaluating
+   * @param query The query, evaluated on the search thread
+   * @param onResult Applies the result, called on the JavaFX application thread
+   */
+  public <T> void submit(long inputNanos, long delayMillis, Query<T> query, Consumer<T> onResult) {
+    submittedQueries.incrementAndGet();
+    long queryGeneration = generation.incrementAndGet();
+    BooleanSupplier cancelled = () -> generation.get() != queryGeneration;
+    // Superseded queries are not unscheduled; they see the newer generation and return at once
+    executor.schedule(
+        () -> evaluate(inputNanos, query, onResult, cancelled), delayMillis, TimeUnit.MILLISECONDS);
+  }
+
+  private <T> void evaluate(
+      long inputNanos, Query<T> query, Consumer<T> onResult, BooleanSupplier cancelled) {
+    T result;
+    try {
+      result = cancelled.getAsBoolean() ? null : query.evaluate(cancelled);
+    } catch (RuntimeException e) {
+      e.printStackTrace();
+      LogManager.getLogger().severe("Search failed: " + e.getMessage());
+      return;
+    }
+    if (result == null) {
+      cancelledQueries.incrementAndGet();
+      return;
+    }
+
+    Platform.runLater(
+        () -> {
+          if (cancelled.getAsBoolean()) {
+            cancelledQueries.incrementAndGet();
+            return;
+          }
+          onResult.accept(result);
+          recordLatency(System.nanoTime() - inputNanos);
+        });
+  }
+
+  private void recordLatency(long nanos) {
+    appliedResults.incrementAndGet();
+    totalLatencyNanos.addAndGet(nanos);
+    maxLatencyNanos.accumulateAndGet(nanos, Math::max);
+    lastLatencyNanos = nanos;
+  }
+
+  /** Cancels pending queries, logs the collected metrics and stops the search thread. */
+  public void shutdown() {
+    generation.incrementAndGet();
+    executor.shutdownNow();
+    LogManager.getLogger().info(getMetricsSummary());
+  }
+
+  public long getSubmittedQueries() {
+    return submittedQueries.get();
+  }
+
+  public long getCancelledQueries() {
+    return cancelledQueries.get();
+  }
+
+  public long getAppliedResults() {
+    return appliedResults.get();
+  }
+
+  public double getLastLatencyMillis() {
+    return lastLatencyNanos / 1_000_000.0;
+  }
+
+  public double getMaxLatencyMillis() {
+    return maxLatencyNanos.get() / 1_000_000.0;
+  }
+
+  public double getAverageLatencyMillis() {
+    long results = appliedResults.get();
+    return results == 0 ? 0 : totalLatencyNanos.get() / 1_000_000.0 / results;
+  }
+
+  public String getMetricsSummary() {
+    return String.format(
+        "rom-search: %d queries, %d cancelled, %d applied, "
+            + "key-to-render latency avg %.2f ms, max %.2f ms, last %.2f ms",
+        getSubmittedQueries(),
+        getCancelledQueries(),
+        getAppliedResults(),
+        getAverageLatencyMillis(),
+        getMaxLatencyMillis(),
+        getLastLatencyMillis());
+  }
+}
@@ -0,0 +1,312 @@
+package com.karandaev.retrolauncher.utils;
+
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.karandaev.retrolauncher.model.Emulator;
+import com.karandaev.retrolauncher.model.RomFile;
+import com.karandaev.retrolauncher.model.UserProfile;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+
+/**
+ * Append-only log of profile mutations stored next to a profile shard.
+ *
+ * <p>Every record is one line of compact JSON describing a single ROM or emulator change. Records
+ * are idempotent upserts and removals keyed by the stable ids of ROMs and emulators, so replaying
+ * a journal over a snapshot that already contains some of its records yields the same profile.
+ * Records written before ROMs had ids are matched by ROM name.
+ */
+public class ConfigJournal {
+  /** Journal size after which the journal is folded into a fresh shard snapshot. */
+  public static final long COMPACTION_THRESHOLD_BYTES = 256 * 1024;
+
+  private static final String JOURNAL_FILE_SUFFIX = ".journal";
+
+  private static final String PUT_ROM = "putRom";
+  private static final String REMOVE_ROM = "removeRom";
+  private static final String PUT_EMULATOR = "putEmulator";
+  private static final String REMOVE_EMULATOR = "removeEmulator";
+
+  private final ObjectWriter recordWriter = JsonCodec.getInstance().writer(JournalRecord.class);
+  private final ObjectReader recordReader = JsonCodec.getInstance().reader(JournalRecord.class);
+
+  /**
+   * Returns the journal file belonging to a profile shard.
+   *
+   * @param shardPath Path to the profile shard
+   * @return Path to the journal file next to the shard
+   */
+  public static Path journalPathFor(Path shardPath) {
+    String shardName = shardPath.getFileName().toString();
+    int extension = shardName.lastIndexOf('.');
+    String baseName = extension > 0 ? shardName.substring(0, extension) : shardName;
+    return shardPath.resolveSibling(baseName + JOURNAL_FILE_SUFFIX);
+  }
+
+  /**
+   * Encodes an added or changed ROM.
+   *
+   * @param rom The ROM in its current state
+   * @return The encoded record
+   */
+  public byte[] encodePutRom(RomFile rom) throws IOException {
+    return encode(new JournalRecord(PUT_ROM, null, rom.getId(), rom, null));
+  }
+
+  public byte[] encodeRemoveRom(RomFile rom) throws IOException {
+    return encode(new JournalRecord(REMOVE_ROM, rom.getName(), rom.getId(), null, null));
+  }
+
+  public byte[] encodePutEmulator(Emulator emulator) throws IOException {
+    return encode(new JournalRecord(PUT_EMULATOR, null, null, null, emulator));
+  }
+
+  public byte[] encodeRemoveEmulator(Emulator emulator) throws IOException {
+    return encode(
+        new JournalRecord(REMOVE_EMULATOR, String.valueOf(emulator.getId()), null, null, null));
+  }
+
+  private byte[] encode(JournalRecord record) throws IOException {
+    byte[] json = recordWriter.writeValueAsBytes(record);
+    byte[] line = new byte[json.length + 1];
+    System.arraycopy(json, 0, line, 0, json.length);
+    line[json.length] = '\n';
+    return line;
+  }
+
+  /**
+   * Appends records to a journal and forces them to disk.
+   *
+   * @param journalPath The journal file
+   * @param records Encoded records
+   * @return The journal size after appending
+   * @throws IOException if an I/O error occurs
+   */
+  public long append(Path journalPath, List<byte[]> records) throws IOException {
+    try (FileChannel channel =
+        FileChannel.open(journalPath, StandardOpenOption.CREATE, StandardOpenOption.APPEND)) {
+      for (byte[] record : records) {
+        ByteBuffer buffer = ByteBuffer.wrap(record);
+        while (buffer.hasRemaining()) {
+          channel.write(buffer);
+        }
+      }
+      channel.force(false);
+      return channel.size();
+    }
+  }
+
+  /**
+   * Deletes a journal after its records were folded into a snapshot.
+   *
+   * @param journalPath The journal file
+   * @throws IOException if an I/O error occurs
+   */
+  public void truncate(Path journalPath) throws IOException {
+    Files.deleteIfExists(journalPath);
+  }
+
+  /**
+   * Replays a journal over a profile loaded from its snapshot. A damaged trailing record, e.g.
+   * left by a crash during an append, ends the replay.
+   *
+   * @param journalPath The journal file
+   * @param profile The profile loaded from the snapshot
+   * @return The number of applied records
+   * @throws IOException if an I/O error occurs
+   */
+  public int replay(Path journalPath, UserProfile profile) throws IOException {
+    if (!Files.exists(journalPath)) {
+      return 0;
+    }
+
+    RomTable roms = null;
+    Set<Integer> removedEmulators = new HashSet<>();
+    int applied = 0;
+    try (BufferedReader reader = Files.newBufferedReader(journalPath, StandardCharsets.UTF_8)) {
+      String line;
+      while ((line = reader.readLine()) != null) {
+        if (line.isBlank()) {
+          continue;
+        }
+        JournalRecord record;
+        try {
+          record = recordReader.readValue(line);
+        } catch (IOException e) {
+          LogManager.getLogger()
+              .warning("Ignoring damaged journal record in " + journalPath + ": " + e.getMessage());
+          break;
+        }
+        if (roms == null) {
+          roms = new RomTable(profile.getRoms());
+        }
+        apply(record, profile, roms);
+        if (REMOVE_EMULATOR.equals(record.getOp()) && record.getKey().matches("\\d+")) {
+          removedEmulators.add(Integer.valueOf(record.getKey()));
+        }
+        applied++;
+      }
+    }
+
+    if (applied > 0) {
+      // Controllers keep both lists sorted by name
+      List<RomFile> replayed = roms.toList();
+      replayed.sort(Comparator.comparing(RomFile::getName));
+      // Also gives ids to ROMs of records written before ROMs had ids
+      profile.setRoms(replayed);
+      profile.getEmulators().sort(Comparator.comparing(Emulator::getName));
+      // ROMs saved before the removal of an emulator may still have its launch parameters
+      for (Integer emulatorId : removedEmulators) {
+        if (profile.getEmulatorRegistry().get(emulatorId) == null) {
+          profile.getEmulatorRegistry().removeLaunchParameters(emulatorId);
+        }
+      }
+    }
+    return applied;
+  }
+
+  private static void apply(JournalRecord record, UserProfile profile, RomTable roms) {
+    switch (record.getOp()) {
+      case PUT_ROM:
+        roms.put(record.getRom(), record.getKey());
+        break;
+      case REMOVE_ROM:
+        roms.remove(record.getId(), record.getKey());
+        break;
+      case PUT_EMULATOR:
+        putEmulator(profile.getEmulators(), record.getEmulator());
+        break;
+      case REMOVE_EMULATOR:
+        profile
+            .getEmulators()
+            .removeIf(emulator -> String.valueOf(emulator.getId()).equals(record.getKey()));
+        break;
+      default:
+        LogManager.getLogger().warning("Unknown journal record: " + record.getOp());
+    }
+  }
+
+  /**
+   * The ROMs of a profile during a replay, found by id in constant time. ROMs without an id, and
+   * records written before ROMs had ids, are matched by name.
+   */
+  private static class RomTable {
+    private final Map<Integer, RomFile> byId = new LinkedHashMap<>();
+    private final List<RomFile> withoutId = new ArrayList<>();
+
+    RomTable(List<RomFile> roms) {
+      for (RomFile rom : roms) {
+        if (rom.getId() != null) {
+          byId.put(rom.getId(), rom);
+        } else {
+          withoutId.add(rom);
+        }
+      }
+    }
+
+    void put(RomFile rom, String previousName) {
+      if (rom.getId() != null) {
+        byId.put(rom.getId(), rom);
+        return;
+      }
+      removeByName(previousName != null ? previousName : rom.getName());
+      withoutId.add(rom);
+    }
+
+    void remove(Integer id, String name) {
+      if (id != null) {
+        byId.remove(id);
+      } else {
+        removeByName(name);
+      }
+    }
+
+    private void removeByName(String name) {
+      if (!withoutId.removeIf(rom -> rom.getName().equals(name))) {
+        byId.values().removeIf(rom -> rom.getName().equals(name));
+      }
+    }
+
+    List<RomFile> toList() {
+      List<RomFile> roms = new ArrayList<>(byId.size() + withoutId.size());
+      roms.addAll(byId.values());
+      roms.addAll(withoutId);
+      return roms;
+    }
+  }
+
+  private static void putEmulator(List<Emulator> emulators, Emulator emulator) {
+    for (int i = 0; i < emulators.size(); i++) {
+      if (Objects.equals(emulators.get(i).getId(), emulator.getId())) {
+        emulators.set(i, emulator);
+        return;
+      }
+    }
+    emulators.add(emulator);
+  }
+
+  // Inner class holding a single journal record for serialization
+  @JsonIgnoreProperties(ignoreUnknown = true)
+  @JsonInclude(JsonInclude.Include.NON_NULL)
+  private static class JournalRecord {
+    private String op;
+    private String key;
+    private Integer id;
+    private RomFile rom;
+    private Emulator emulator;
+
+    public JournalRecord() {
+      // Default constructor
+    }
+
+    public JournalRecord(String op, String key, Integer id, RomFile rom, Emulator emulator) {
+      this.op = op;
+      this.key = key;
+      this.id = id;
+      this.rom = rom;
+      this.emulator = emulator;
+    }
+
+    public String getOp() {
+      return op;
+    }
+
+    /**
+     * Returns the name of a removed ROM, the id of a removed emulator or, in records written
+     * before ROMs had ids, the previous name of a changed ROM.
+     */
+    public String getKey() {
+      return key;
+    }
+
+    /** Returns the id of a removed ROM. */
+    public Integer getId() {
+      return id;
+    }
+
+    public RomFile getRom() {
+      return rom;
+    }
+
+    public Emulator getEmulator() {
+      return emulator;
+    }
+  }
+}
@@ -1,23 +1,139 @@
 package com.karandaev.retrolauncher.utils;
 
 import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
-import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.core.JsonEncoding;
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.karandaev.retrolauncher.model.Emulator;
+import com.karandaev.retrolauncher.model.RomFile;
 import com.karandaev.retrolauncher.model.UserProfile;
+import javafx.application.Platform;
 
+import java.io.BufferedInputStream;
+import java.io.ByteArrayOutputStream;
 import java.io.File;
 import java.io.IOException;
+import java.io.InputStream;
+import java.lang.ref.WeakReference;
+import java.nio.file.Files;
+import java.nio.file.InvalidPathException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.IdentityHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.Consumer;
+import java.util.zip.CRC32;
 
-/** Singleton class for managing configuration. */
+/**
+ * Singleton class for managing configuration.
+ *
+ * <p>Configuration is stored as a small index file holding the profile names and the current
+ * profile index, plus one shard file per profile. Only shards of changed profiles are rewritten,
+ * and only the current profile is read at startup.
+ *
+ * <p>In journal mode single ROM and emulator edits are appended to a journal next to the shard
+ * instead of rewriting it. The journal is replayed on load and folded into a fresh snapshot once
+ * it grows past {@link ConfigJournal#COMPACTION_THRESHOLD_BYTES}. Journaled profiles still count
+ * as changed, since they may carry changes no record describes, so the next full save folds the
+ * journal into the snapshot.
+ *
+ * <p>Every profile carries a change version. Save requests compare it with the version that was
+ * last written, so profiles that did not change are not written and requests that find nothing
+ * to write are dropped and counted as skipped saves. Changed profiles and the profile list are
+ * copied when the save is requested, on the thread that edits them, and the writer thread only
+ * serializes those copies. Save requests must therefore be made on the JavaFX application thread.
+ *
+ * <p>While the application runs, the index and the shards are watched for edits made by other
+ * programs. Changed shards are parsed on their own and merged into the live profile entry by
+ * entry; own writes are recognized by their checksum and ignored. A profile with unsaved changes
+ * is not merged, and its changes are written over the edit.
+ *
+ * <p>Shards are written in the binary {@link SnapshotFormat#SMILE} format by default; the format
+ * of a stored shard is detected when it is read. JSON stays available through {@link
+ * #exportJson(Path)} and {@link #importJson(Path)}.
+ */
 public class ConfigManager {
+  /** How long a save request waits for further requests before the config is written. */
+  private static final long SAVE_COALESCE_DELAY_MS = 250;
+
+  private static final String SHARD_FILE_PREFIX = "profile-";
+  private static final String SEARCH_INDEX_EXTENSION = ".idx";
+  // Enough leading bytes of a shard to detect its format
+  private static final int HEAD_SIZE = 16;
+
   private static ConfigManager instance;
-  private List<UserProfile> profiles;
-  private Integer currentUserProfileIndex = 0;
+  private volatile List<UserProfile> profiles;
+  private volatile Integer currentUserProfileIndex = 0;
   private final String configFilePath = "config.json";
+  private final Path legacyConfigPath;
+  private final Path configDirectory;
+  private final Path indexFilePath;
+  private final Path profilesDirectory;
+  private final PersistenceService persistenceService;
+  private final ConfigWatcher watcher;
+  private final List<WeakReference<Consumer<ProfileDiff>>> externalChangeListeners =
+      new CopyOnWriteArrayList<>();
+  private final JsonCodec codec = JsonCodec.getInstance();
+  private final ConfigJournal journal = new ConfigJournal();
+  private volatile boolean journalEnabled = true;
+  private volatile SnapshotFormat snapshotFormat = SnapshotFormat.SMILE;
+
+  // Shard bookkeeping, guarded by this
+  private final Map<UserProfile, String> shardFiles = new IdentityHashMap<>();
+  private final Map<String, Long> shardChecksums = new HashMap<>();
+  private final Map<UserProfile, ProfileSnapshot> pendingSnapshots = new IdentityHashMap<>();
+  private final Map<UserProfile, List<byte[]>> pendingJournalRecords = new IdentityHashMap<>();
+  private final Map<UserProfile, Long> savedVersions = new IdentityHashMap<>();
+  // Profiles whose shard could not be read; they are never written, so the shard is kept as is
+  private final Set<UserProfile> unreadableProfiles =
+      Collections.newSetFromMap(new IdentityHashMap<>());
+  private List<String> savedUsernames = List.of();
+  private Integer savedCurrentIndex = -1;
+  private IndexSnapshot pendingIndex = new IndexSnapshot(List.of(), List.of(), 0);
+  private int nextShardId = 0;
+  private long indexChecksum = -1;
+
+  // A copy of a profile taken when its save was requested, and the version it has
+  private record ProfileSnapshot(UserProfile copy, long version) {}
+
+  // The profile list, the profile names and the current profile when a save was requested
+  private record IndexSnapshot(
+      List<UserProfile> profiles, List<String> usernames, Integer currentIndex) {}
 
   private ConfigManager() {
+    this(Path.of("config"));
+  }
+
+  /**
+   * Creates a configuration manager storing its files in the given directory.
+   *
+   * @param configDirectory Directory of the index and the profile shards
+   */
+  ConfigManager(Path configDirectory) {
+    this.configDirectory = configDirectory;
+    legacyConfigPath = configDirectory.resolveSibling(configFilePath);
+    indexFilePath = configDirectory.resolve("index.json");
+    profilesDirectory = configDirectory.resolve("profiles");
     profiles = new ArrayList<>();
+    persistenceService =
+        new PersistenceService("config-writer", SAVE_COALESCE_DELAY_MS, this::writeConfig);
+    watcher =
+        new ConfigWatcher(
+            Set.of(configDirectory, profilesDirectory),
+            this::isWatchedFile,
+            this::handleExternalChanges);
   }
 
   public static ConfigManager getInstance() {
@@ -27,17 +143,25 @@ public class ConfigManager {
     return instance;
   }
 
-  /** Loads configuration from a JSON file. */
+  /**
+   * Loads configuration from the index and profile shard files. Profiles are kept as stubs
+   * holding just the username and are loaded from their shards on first access; of the current
+   * profile, the language and theme are read ahead so the main window can open while its ROMs
+   * load in the background. A legacy single-file {@code config.json} is migrated to the sharded
+   * layout on first load.
+   */
   public void loadConfig() {
-    ObjectMapper mapper = new ObjectMapper();
     try {
-      File configFile = new File(configFilePath);
-      if (configFile.exists()) {
-        // Deserialize configuration
-        ConfigData configData = mapper.readValue(configFile, ConfigData.class);
-        this.profiles = configData.getProfiles();
-        this.currentUserProfileIndex = configData.getCurrentUserProfileIndex();
+      if (Files.exists(indexFilePath)) {
+        byte[] indexBytes = Files.readAllBytes(indexFilePath);
+        IndexData indexData = codec.reader(IndexData.class).readValue(indexBytes);
+        synchronized (this) {
+          indexChecksum = checksum(indexBytes);
+        }
+        installProfiles(indexData.getProfiles(), indexData.getCurrentUserProfileIndex());
         LogManager.getLogger().info("Configuration loaded successfully.");
+      } else if (Files.exists(legacyConfigPath)) {
+        migrateLegacyConfig();
       } else {
         // Initialize with default data
         LogManager.getLogger().info("Configuration file not found.");
@@ -48,19 +172,976 @@ public class ConfigManager {
     }
   }
 
-  /** Saves configuration to a JSON file. */
+  /** Creates profile stubs for the index entries and reads ahead the current profile settings. */
+  private void installProfiles(List<IndexEntry> entries, Integer currentIndex) {
+    List<UserProfile> stubs = new ArrayList<>();
+    synchronized (this) {
+      for (IndexEntry entry : entries) {
+        String file = entry.getFile();
+        UserProfile stub = UserProfile.stub(entry.getUsername(), p -> loadShard(p, file));
+        stubs.add(stub);
+        shardFiles.put(stub, file);
+        nextShardId = Math.max(nextShardId, parseShardId(file) + 1);
+      }
+      savedUsernames = entries.stream().map(IndexEntry::getUsername).toList();
+      savedCurrentIndex = currentIndex;
+    }
+
+    this.profiles = stubs;
+    this.currentUserProfileIndex = currentIndex;
+    IndexSnapshot index = snapshotIndex();
+    synchronized (this) {
+      pendingIndex = index;
+    }
+
+    UserProfile currentProfile = getCurrentUserProfile();
+    if (currentProfile != null) {
+      preloadSettings(currentProfile);
+    }
+  }
+
+  /**
+   * Reads the language and theme of a profile stub from the start of its shard, without binding
+   * the emulators and ROMs that follow them.
+   */
+  private void preloadSettings(UserProfile stub) {
+    String file;
+    synchronized (this) {
+      file = shardFiles.get(stub);
+    }
+    Path shardPath = profilesDirectory.resolve(file);
+    try (InputStream input = new BufferedInputStream(Files.newInputStream(shardPath))) {
+      input.mark(HEAD_SIZE);
+      byte[] head = input.readNBytes(HEAD_SIZE);
+      input.reset();
+      try (JsonParser parser =
+          codec.getMapper(SnapshotFormat.detect(head)).getFactory().createParser(input)) {
+        if (parser.nextToken() != JsonToken.START_OBJECT) {
+          return;
+        }
+        String language = null;
+        String theme = null;
+        while ((language == null || theme == null)
+            && parser.nextToken() == JsonToken.FIELD_NAME) {
+          String field = parser.currentName();
+          JsonToken value = parser.nextToken();
+          if ("preferredLanguageShort".equals(field) && value == JsonToken.VALUE_STRING) {
+            language = parser.getText();
+          } else if ("preferredThemeEn".equals(field) && value == JsonToken.VALUE_STRING) {
+            theme = parser.getText();
+          } else {
+            parser.skipChildren();
+          }
+        }
+        stub.preloadSettings(language, theme);
+      }
+    } catch (IOException e) {
+      // The settings are read along with the rest of the profile then
+      LogManager.getLogger()
+          .warning("Failed to read settings of " + stub.getUsername() + ": " + e.getMessage());
+    }
+  }
+
+  /**
+   * Returns the file the search index of a profile is kept in, next to the profile shard.
+   *
+   * @param profile A profile
+   * @return The index file, or null if the profile was never saved
+   */
+  public synchronized Path getSearchIndexPath(UserProfile profile) {
+    String file = shardFiles.get(profile);
+    if (file == null) {
+      return null;
+    }
+    return profilesDirectory.resolve(searchIndexFileName(file));
+  }
+
+  /**
+   * Returns a stamp of the stored state of a profile. It changes whenever the shard or the
+   * journal of the profile is written, so data derived from the stored profile can tell whether
+   * it is still current without reading the profile.
+   *
+   * @param profile A profile
+   * @return The stamp, or -1 if the profile is not stored
+   */
+  public long getStoredStamp(UserProfile profile) {
+    String file;
+    synchronized (this) {
+      file = shardFiles.get(profile);
+    }
+    if (file == null) {
+      return -1;
+    }
+    Path shardPath = profilesDirectory.resolve(file);
+    try {
+      long stamp = fileStamp(shardPath);
+      Path journalPath = ConfigJournal.journalPathFor(shardPath);
+      if (Files.exists(journalPath)) {
+        stamp = stamp * 31 + fileStamp(journalPath);
+      }
+      return stamp & Long.MAX_VALUE;
+    } catch (IOException e) {
+      return -1;
+    }
+  }
+
+  private static long fileStamp(Path file) throws IOException {
+    return Files.size(file) * 1_000_003L + Files.getLastModifiedTime(file).toMillis();
+  }
+
+  /** Binds a profile stub from its shard and replays the shard journal over it. */
+  private void loadShard(UserProfile stub, String file) {
+    Path shardPath = profilesDirectory.resolve(file);
+    try {
+      byte[] shardBytes = Files.readAllBytes(shardPath);
+      String username = stub.getUsername();
+      SnapshotFormat format = SnapshotFormat.detect(shardBytes);
+      codec.reader(format, UserProfile.class).withValueToUpdate(stub).readValue(shardBytes);
+      // The index is authoritative for the profile name
+      stub.setUsername(username);
+      synchronized (this) {
+        shardChecksums.put(file, checksum(shardBytes));
+      }
+
+      int replayed = journal.replay(ConfigJournal.journalPathFor(shardPath), stub);
+      if (replayed > 0) {
+        LogManager.getLogger().info("Replayed " + replayed + " journal records for " + username);
+      }
+      synchronized (this) {
+        savedVersions.put(stub, stub.getVersion());
+      }
+      LogManager.getLogger().info("Profile " + username + " loaded from " + shardPath + ".");
+    } catch (IOException e) {
+      e.printStackTrace();
+      LogManager.getLogger()
+          .severe(
+              "Failed to load profile "
+                  + stub.getUsername()
+                  + ", its changes are not saved until "
+                  + shardPath
+                  + " can be read: "
+                  + e.getMessage());
+      // The stub ends up loaded but empty, and writing it would replace the stored profile
+      synchronized (this) {
+        unreadableProfiles.add(stub);
+      }
+    }
+  }
+
+  /** Migrates a legacy {@code config.json} to the sharded layout and keeps it as a backup. */
+  private void migrateLegacyConfig() throws IOException {
+    importConfigFile(legacyConfigPath.toFile());
+
+    Files.move(
+        legacyConfigPath,
+        legacyConfigPath.resolveSibling(configFilePath + ".bak"),
+        StandardCopyOption.REPLACE_EXISTING);
+    LogManager.getLogger().info("Configuration migrated to " + configDirectory + ".");
+  }
+
+  /**
+   * Imports a single-file JSON configuration, replacing all profiles. Every profile is streamed
+   * into its own shard without binding it, so memory use does not grow with the number of
+   * profiles.
+   */
+  private void importConfigFile(File source) throws IOException {
+    JsonFactory shardFactory = codec.getMapper(snapshotFormat).getFactory();
+    List<IndexEntry> entries = new ArrayList<>();
+    Integer importedIndex = 0;
+
+    Files.createDirectories(profilesDirectory);
+    JsonFactory jsonFactory = codec.getMapper(SnapshotFormat.JSON).getFactory();
+    try (JsonParser parser = jsonFactory.createParser(source)) {
+      if (parser.nextToken() != JsonToken.START_OBJECT) {
+        throw new IOException("Unexpected content in " + source);
+      }
+      while (parser.nextToken() == JsonToken.FIELD_NAME) {
+        String field = parser.currentName();
+        JsonToken value = parser.nextToken();
+        if ("profiles".equals(field) && value == JsonToken.START_ARRAY) {
+          while (parser.nextToken() == JsonToken.START_OBJECT) {
+            String file;
+            synchronized (this) {
+              file = shardFileName(nextShardId++, snapshotFormat);
+            }
+            String username = copyProfile(shardFactory, parser, profilesDirectory.resolve(file));
+            entries.add(new IndexEntry(username, file));
+          }
+        } else if ("currentUserProfileIndex".equals(field) && value.isNumeric()) {
+          importedIndex = parser.getIntValue();
+        } else {
+          parser.skipChildren();
+        }
+      }
+    }
+
+    byte[] indexBytes =
+        codec.writer(IndexData.class).writeValueAsBytes(new IndexData(entries, importedIndex));
+    FileManager.writeAtomically(indexFilePath, indexBytes);
+    synchronized (this) {
+      indexChecksum = checksum(indexBytes);
+    }
+    installProfiles(entries, importedIndex);
+  }
+
+  /**
+   * Replaces all profiles with the ones from a single-file JSON configuration in the format of
+   * the former {@code config.json}. Shards of the replaced profiles are deleted.
+   *
+   * @param source The JSON file to import
+   * @throws IOException if the file can not be read
+   */
+  public void importJson(Path source) throws IOException {
+    flushConfig();
+    importConfigFile(source.toFile());
+    // The writer is idle after the flush, and the imported index no longer lists the replaced
+    // profiles, so their shards are deleted right away
+    deleteRemovedShards(profiles);
+    LogManager.getLogger().info("Configuration imported from " + source + ".");
+  }
+
+  /**
+   * Exports all profiles into a single JSON file in the format of the former {@code
+   * config.json}. Profiles that are not loaded are read from their shards one at a time.
+   *
+   * @param target The JSON file to write
+   * @throws IOException if the file can not be written
+   */
+  public void exportJson(Path target) throws IOException {
+    flushConfig();
+    ObjectWriter profileWriter = codec.writer(UserProfile.class);
+    List<UserProfile> snapshot = new ArrayList<>(profiles);
+    Map<UserProfile, String> files;
+    synchronized (this) {
+      files = new IdentityHashMap<>(shardFiles);
+    }
+
+    try (JsonGenerator generator =
+        codec.getMapper(SnapshotFormat.JSON)
+            .getFactory()
+            .createGenerator(target.toFile(), JsonEncoding.UTF8)) {
+      generator.writeStartObject();
+      generator.writeArrayFieldStart("profiles");
+      for (UserProfile profile : snapshot) {
+        if (profile.isLoaded()) {
+          profileWriter.writeValue(generator, profile);
+        } else {
+          // Bind a temporary copy so that the stub itself stays unloaded
+          String file = files.get(profile);
+          UserProfile copy = UserProfile.stub(profile.getUsername(), p -> loadShard(p, file));
+          profileWriter.writeValue(generator, copy);
+        }
+      }
+      generator.writeEndArray();
+      generator.writeNumberField("currentUserProfileIndex", currentUserProfileIndex);
+      generator.writeEndObject();
+    }
+    LogManager.getLogger().info("Configuration exported to " + target + ".");
+  }
+
+  /**
+   * Copies the profile object the parser is positioned at into a shard file.
+   *
+   * @return The username found in the profile
+   */
+  private static String copyProfile(JsonFactory factory, JsonParser parser, Path shardPath)
+      throws IOException {
+    ByteArrayOutputStream out = new ByteArrayOutputStream();
+    String username = null;
+    try (JsonGenerator generator = factory.createGenerator(out)) {
+      int depth = 0;
+      do {
+        JsonToken token = parser.currentToken();
+        if (depth == 1
+            && token == JsonToken.VALUE_STRING
+            && "username".equals(parser.currentName())) {
+          username = parser.getText();
+        }
+        generator.copyCurrentEvent(parser);
+        if (token.isStructStart()) {
+          depth++;
+        } else if (token.isStructEnd()) {
+          depth--;
+        }
+      } while (depth > 0 && parser.nextToken() != null);
+    }
+    FileManager.writeAtomically(shardPath, out.toByteArray());
+    return username;
+  }
+
+  /**
+   * Requests saving the whole configuration. The write happens in the background, and requests
+   * made in quick succession are coalesced into a single write. Only profiles that changed since
+   * they were last saved are written.
+   */
   public void saveConfig() {
-    ObjectMapper mapper = new ObjectMapper();
+    requestWriteIfChanged(profiles);
+  }
+
+  /**
+   * Requests saving a single profile together with the index.
+   *
+   * @param profile The changed profile
+   */
+  public void saveProfile(UserProfile profile) {
+    requestWriteIfChanged(profile != null ? List.of(profile) : List.of());
+  }
+
+  /**
+   * Copies the candidates that changed since they were last saved along with the profile list,
+   * and requests a write if anything is left to write. Otherwise the request is counted as
+   * skipped.
+   */
+  private void requestWriteIfChanged(List<UserProfile> candidates) {
+    Map<UserProfile, ProfileSnapshot> snapshots = new IdentityHashMap<>();
+    for (UserProfile profile : candidates) {
+      Long savedVersion;
+      boolean unreadable;
+      synchronized (this) {
+        savedVersion = savedVersions.get(profile);
+        unreadable = unreadableProfiles.contains(profile);
+      }
+      if (profile.isLoaded()
+          && !unreadable
+          && (savedVersion == null || savedVersion != profile.getVersion())) {
+        snapshots.put(profile, snapshot(profile));
+      }
+    }
+    IndexSnapshot index = snapshotIndex();
+
+    boolean changed;
+    synchronized (this) {
+      pendingIndex = index;
+      changed =
+          !snapshots.isEmpty()
+              || !pendingSnapshots.isEmpty()
+              || !pendingJournalRecords.isEmpty()
+              || isIndexChanged(index);
+      snapshots.forEach(this::queueSnapshot);
+    }
+    if (changed) {
+      persistenceService.requestWrite();
+    } else {
+      persistenceService.recordSkippedSave();
+    }
+  }
+
+  private static ProfileSnapshot snapshot(UserProfile profile) {
+    long version = profile.getVersion();
+    return new ProfileSnapshot(new UserProfile(profile), version);
+  }
+
+  private IndexSnapshot snapshotIndex() {
+    List<UserProfile> current = new ArrayList<>(profiles);
+    List<String> usernames = current.stream().map(UserProfile::getUsername).toList();
+    return new IndexSnapshot(current, usernames, currentUserProfileIndex);
+  }
+
+  /** Queues a snapshot for writing; it replaces the journal records made before it was taken. */
+  private synchronized void queueSnapshot(UserProfile profile, ProfileSnapshot snapshot) {
+    pendingSnapshots.put(profile, snapshot);
+    pendingJournalRecords.remove(profile);
+  }
+
+  /** Requests writing a fresh snapshot of a profile, e.g. to fold its journal into it. */
+  private void requestSnapshot(UserProfile profile) {
+    if (!profile.isLoaded()) {
+      return;
+    }
+    ProfileSnapshot snapshot = snapshot(profile);
+    synchronized (this) {
+      if (!profiles.contains(profile) || unreadableProfiles.contains(profile)) {
+        return;
+      }
+      queueSnapshot(profile, snapshot);
+    }
+    persistenceService.requestWrite();
+  }
+
+  private synchronized boolean isIndexChanged(IndexSnapshot index) {
+    return !Objects.equals(savedCurrentIndex, index.currentIndex())
+        || !savedUsernames.equals(index.usernames());
+  }
+
+  /**
+   * Requests saving an added or changed ROM of the current profile. In journal mode only the ROM
+   * is written.
+   *
+   * @param rom The ROM in its current state
+   */
+  public void saveRom(RomFile rom) {
+    try {
+      journalOrSave(journalEnabled ? journal.encodePutRom(rom) : null);
+    } catch (IOException e) {
+      LogManager.getLogger().warning("Failed to journal ROM change: " + e.getMessage());
+      saveCurrentProfile();
+    }
+  }
+
+  /**
+   * Requests saving the removal of a ROM from the current profile.
+   *
+   * @param rom The removed ROM
+   */
+  public void removeRom(RomFile rom) {
+    try {
+      journalOrSave(journalEnabled ? journal.encodeRemoveRom(rom) : null);
+    } catch (IOException e) {
+      LogManager.getLogger().warning("Failed to journal ROM removal: " + e.getMessage());
+      saveCurrentProfile();
+    }
+  }
+
+  /**
+   * Requests saving an added or changed emulator of the current profile.
+   *
+   * @param emulator The emulator in its current state
+   */
+  public void saveEmulator(Emulator emulator) {
+    try {
+      journalOrSave(journalEnabled ? journal.encodePutEmulator(emulator) : null);
+    } catch (IOException e) {
+      LogManager.getLogger().warning("Failed to journal emulator change: " + e.getMessage());
+      saveCurrentProfile();
+    }
+  }
+
+  /**
+   * Requests saving the removal of an emulator from the current profile.
+   *
+   * @param emulator The removed emulator
+   */
+  public void removeEmulator(Emulator emulator) {
+    try {
+      journalOrSave(journalEnabled ? journal.encodeRemoveEmulator(emulator) : null);
+    } catch (IOException e) {
+      LogManager.getLogger().warning("Failed to journal emulator removal: " + e.getMessage());
+      saveCurrentProfile();
+    }
+  }
+
+  private void journalOrSave(byte[] record) {
+    UserProfile profile = getCurrentUserProfile();
+    if (record == null || profile == null) {
+      saveProfile(profile);
+      return;
+    }
+    boolean stored;
+    synchronized (this) {
+      String file = shardFiles.get(profile);
+      stored = file != null && shardChecksums.containsKey(file);
+      if (stored) {
+        pendingJournalRecords.computeIfAbsent(profile, p -> new ArrayList<>()).add(record);
+      }
+    }
+    if (stored) {
+      persistenceService.requestWrite();
+    } else {
+      // A journal needs a snapshot to be replayed over
+      requestSnapshot(profile);
+    }
+  }
+
+  /** Requests saving the profile that is currently active. */
+  public void saveCurrentProfile() {
+    saveProfile(getCurrentUserProfile());
+  }
+
+  /** Requests saving only the index, e.g. after the active profile or the profile list changed. */
+  public void saveIndex() {
+    requestWriteIfChanged(List.of());
+  }
+
+  /** Writes any pending configuration changes and waits until they are on disk. */
+  public void flushConfig() {
+    persistenceService.flush();
+  }
+
+  /** Flushes pending configuration changes and stops the background writer. */
+  public void shutdown() {
+    watcher.stop();
+    persistenceService.shutdown();
+  }
+
+  /** Starts merging edits that other programs make to the configuration files. */
+  public void startWatching() {
     try {
-      ConfigData configData = new ConfigData(profiles, currentUserProfileIndex);
-      mapper.writeValue(new File(configFilePath), configData);
-      LogManager.getLogger().info("Configuration saved successfully.");
+      watcher.start();
     } catch (IOException e) {
       e.printStackTrace();
-      LogManager.getLogger().severe("Failed to save configuration: " + e.getMessage());
+      LogManager.getLogger().severe("Failed to watch configuration: " + e.getMessage());
+    }
+  }
+
+  /**
+   * Registers a listener for changes merged from configuration files edited by other programs.
+   * Listeners are called on the JavaFX application thread after the model was updated. They are
+   * held weakly, so the caller keeps a reference for as long as it listens.
+   *
+   * @param listener Receives the merged changes of a profile
+   */
+  public void addExternalChangeListener(Consumer<ProfileDiff> listener) {
+    externalChangeListeners.add(new WeakReference<>(listener));
+  }
+
+  public void removeExternalChangeListener(Consumer<ProfileDiff> listener) {
+    externalChangeListeners.removeIf(reference -> reference.get() == listener);
+  }
+
+  private boolean isWatchedFile(Path file) {
+    if (file.equals(indexFilePath)) {
+      return true;
+    }
+    String name = file.getFileName().toString();
+    return profilesDirectory.equals(file.getParent())
+        && name.startsWith(SHARD_FILE_PREFIX)
+        && Arrays.stream(SnapshotFormat.values())
+            .anyMatch(format -> name.endsWith(format.getFileExtension()));
+  }
+
+  /** Reads the changed files on the watcher thread and merges them on the JavaFX thread. */
+  private void handleExternalChanges(Set<Path> changedFiles) {
+    for (Path file : changedFiles) {
+      try {
+        if (file.equals(indexFilePath)) {
+          readExternalIndex();
+        } else {
+          readExternalShard(file);
+        }
+      } catch (IOException e) {
+        // Most likely the other program is still writing; its next write triggers another event
+        LogManager.getLogger().warning("Ignoring unreadable " + file + ": " + e.getMessage());
+      }
+    }
+  }
+
+  private void readExternalShard(Path shardPath) throws IOException {
+    String file = shardPath.getFileName().toString();
+    UserProfile profile = null;
+    synchronized (this) {
+      for (var entry : shardFiles.entrySet()) {
+        if (entry.getValue().equals(file)) {
+          profile = entry.getKey();
+          break;
+        }
+      }
+    }
+    if (profile == null || !Files.exists(shardPath)) {
+      // Not part of the configuration, or deleted
+      return;
+    }
+
+    byte[] shardBytes = Files.readAllBytes(shardPath);
+    long checksum = checksum(shardBytes);
+    synchronized (this) {
+      Long known = shardChecksums.get(file);
+      if (known != null && known == checksum) {
+        // Written by this application
+        return;
+      }
+      if (!profile.isLoaded()) {
+        // The stub reads the new content on first access
+        shardChecksums.remove(file);
+        return;
+      }
+    }
+
+    UserProfile stored = new UserProfile();
+    codec.reader(SnapshotFormat.detect(shardBytes), UserProfile.class)
+        .withValueToUpdate(stored)
+        .readValue(shardBytes);
+    // The journal holds edits made here after the snapshot; they survive the external edit
+    journal.replay(ConfigJournal.journalPathFor(shardPath), stored);
+
+    UserProfile target = profile;
+    Platform.runLater(() -> mergeExternalProfile(target, stored, file, checksum));
+  }
+
+  /**
+   * Merges a profile read from its edited shard into the live profile, unless the live profile
+   * has unsaved changes. Must be called on the JavaFX application thread.
+   *
+   * @param profile The live profile
+   * @param stored The profile read from the shard, with the journal replayed over it
+   * @param file The shard file name
+   * @param checksum The checksum of the shard content
+   */
+  void mergeExternalProfile(UserProfile profile, UserProfile stored, String file, long checksum) {
+    boolean clean;
+    synchronized (this) {
+      if (!file.equals(shardFiles.get(profile))) {
+        // Profile was removed or its shard was replaced in the meantime
+        return;
+      }
+      Long savedVersion = savedVersions.get(profile);
+      // A profile whose shard could not be read takes the stored profile as it is now
+      clean =
+          unreadableProfiles.remove(profile)
+              || (savedVersion != null
+                  && savedVersion == profile.getVersion()
+                  && !pendingSnapshots.containsKey(profile)
+                  && !pendingJournalRecords.containsKey(profile));
+    }
+
+    if (!clean) {
+      // Merging would take the stored values over the unsaved ones, so the edit loses instead
+      LogManager.getLogger()
+          .warning(
+              "Profile "
+                  + profile.getUsername()
+                  + " has unsaved changes; writing them over the external edit of "
+                  + file
+                  + ".");
+      requestSnapshot(profile);
+      return;
+    }
+
+    ProfileDiff diff = ProfileDiff.merge(profile, stored);
+    // Shard and journal on disk describe the merged profile
+    synchronized (this) {
+      savedVersions.put(profile, profile.getVersion());
+      shardChecksums.put(file, checksum);
+    }
+
+    if (!diff.isEmpty()) {
+      LogManager.getLogger()
+          .info(
+              "Merged "
+                  + diff.size()
+                  + " external changes into profile "
+                  + profile.getUsername()
+                  + ".");
+      for (var reference : externalChangeListeners) {
+        Consumer<ProfileDiff> listener = reference.get();
+        if (listener != null) {
+          listener.accept(diff);
+        } else {
+          externalChangeListeners.remove(reference);
+        }
+      }
+    }
+  }
+
+  /** Reads an edited index on the watcher thread and applies it on the JavaFX thread if valid. */
+  void readExternalIndex() throws IOException {
+    if (!Files.exists(indexFilePath)) {
+      return;
+    }
+    byte[] indexBytes = Files.readAllBytes(indexFilePath);
+    long checksum = checksum(indexBytes);
+    synchronized (this) {
+      if (checksum == indexChecksum) {
+        return;
+      }
+    }
+    IndexData indexData = codec.reader(IndexData.class).readValue(indexBytes);
+    String problem = findProblem(indexData);
+    if (problem != null) {
+      LogManager.getLogger().warning("Ignoring invalid " + indexFilePath + ": " + problem);
+      return;
+    }
+    Platform.runLater(() -> mergeExternalIndex(indexData, checksum));
+  }
+
+  /**
+   * Checks an index written by another program before it replaces the profile list.
+   *
+   * @return What is wrong with the index, or null if it can be applied
+   */
+  private String findProblem(IndexData indexData) {
+    if (indexData == null || indexData.getProfiles() == null) {
+      return "no profile list";
+    }
+    Set<String> files = new HashSet<>();
+    for (IndexEntry entry : indexData.getProfiles()) {
+      if (entry == null || entry.getUsername() == null || entry.getFile() == null) {
+        return "a profile without username or file";
+      }
+      try {
+        if (!profilesDirectory.equals(profilesDirectory.resolve(entry.getFile()).getParent())) {
+          return "profile file " + entry.getFile() + " outside of " + profilesDirectory;
+        }
+      } catch (InvalidPathException e) {
+        return "invalid profile file " + entry.getFile();
+      }
+      if (!files.add(entry.getFile())) {
+        return "profile file " + entry.getFile() + " listed twice";
+      }
+    }
+    return null;
+  }
+
+  /**
+   * Applies an edited index: profiles are renamed, added as stubs or removed. The active profile
+   * stays active, even if the edit removed it.
+   */
+  private void mergeExternalIndex(IndexData indexData, long checksum) {
+    UserProfile currentProfile = getCurrentUserProfile();
+    List<UserProfile> merged = new ArrayList<>();
+    synchronized (this) {
+      Map<String, UserProfile> profilesByFile = new HashMap<>();
+      for (var entry : shardFiles.entrySet()) {
+        profilesByFile.put(entry.getValue(), entry.getKey());
+      }
+      for (IndexEntry entry : indexData.getProfiles()) {
+        String file = entry.getFile();
+        UserProfile profile = profilesByFile.get(file);
+        if (profile == null) {
+          profile = UserProfile.stub(entry.getUsername(), p -> loadShard(p, file));
+          shardFiles.put(profile, file);
+          nextShardId = Math.max(nextShardId, parseShardId(file) + 1);
+        }
+        profile.setUsername(entry.getUsername());
+        merged.add(profile);
+      }
+      if (currentProfile != null && !merged.contains(currentProfile)) {
+        LogManager.getLogger().warning("Keeping active profile removed from the index.");
+        merged.add(currentProfile);
+      }
+
+      indexChecksum = checksum;
+      savedUsernames = indexData.getProfiles().stream().map(IndexEntry::getUsername).toList();
+      savedCurrentIndex = indexData.getCurrentUserProfileIndex();
+    }
+
+    profiles.clear();
+    profiles.addAll(merged);
+    currentUserProfileIndex = merged.indexOf(currentProfile);
+    LogManager.getLogger().info("Merged external changes of the profile index.");
+    // Writes the index again only if it differs from the edited one
+    saveIndex();
+  }
+
+  /**
+   * Writes the queued profile snapshots, appends pending journal records and then writes the
+   * index, each shard and the index through an atomic file replace. Records are appended after
+   * the snapshot of their profile, since they were made after it was taken.
+   */
+  private void writeConfig() throws IOException {
+    SnapshotFormat format = snapshotFormat;
+    ObjectWriter shardWriter = codec.writer(format, UserProfile.class);
+    List<String> replacedFiles = new ArrayList<>();
+    List<UserProfile> compactions = new ArrayList<>();
+    IndexSnapshot index;
+    Map<UserProfile, ProfileSnapshot> snapshots;
+    Map<UserProfile, List<byte[]>> journalRecords;
+    Map<UserProfile, String> files;
+    synchronized (this) {
+      index = pendingIndex;
+      snapshots = new IdentityHashMap<>(pendingSnapshots);
+      pendingSnapshots.clear();
+      journalRecords = new IdentityHashMap<>(pendingJournalRecords);
+      pendingJournalRecords.clear();
+      for (UserProfile profile : index.profiles()) {
+        shardFiles.computeIfAbsent(profile, p -> shardFileName(nextShardId++, format));
+      }
+      files = new IdentityHashMap<>(shardFiles);
+    }
+
+    int written = 0;
+    try {
+      Files.createDirectories(profilesDirectory);
+
+      for (var entry : snapshots.entrySet()) {
+        UserProfile profile = entry.getKey();
+        String file = files.get(profile);
+        if (file == null) {
+          // Profile was removed in the meantime
+          continue;
+        }
+        // A shard stored in another format is rewritten under the matching file name
+        String targetFile = shardFileName(parseShardId(file), format);
+        Path shardPath = profilesDirectory.resolve(targetFile);
+        if (writeIfChanged(shardPath, shardWriter.writeValueAsBytes(entry.getValue().copy()))) {
+          written++;
+        }
+        markSaved(profile, entry.getValue().version());
+        if (!targetFile.equals(file)) {
+          files.put(profile, targetFile);
+          replacedFiles.add(file);
+          synchronized (this) {
+            shardFiles.put(profile, targetFile);
+            shardChecksums.remove(file);
+          }
+        }
+        journal.truncate(ConfigJournal.journalPathFor(shardPath));
+      }
+
+      for (var entry : journalRecords.entrySet()) {
+        UserProfile profile = entry.getKey();
+        String file = files.get(profile);
+        if (file == null) {
+          continue;
+        }
+        Path journalPath = ConfigJournal.journalPathFor(profilesDirectory.resolve(file));
+        // Not marked saved: the profile may have changes no record describes, which the next
+        // full save writes along with the journaled ones
+        long journalSize = journal.append(journalPath, entry.getValue());
+        if (journalSize > ConfigJournal.COMPACTION_THRESHOLD_BYTES) {
+          compactions.add(profile);
+        }
+      }
+
+      List<IndexEntry> entries = new ArrayList<>();
+      for (int i = 0; i < index.profiles().size(); i++) {
+        entries.add(new IndexEntry(index.usernames().get(i), files.get(index.profiles().get(i))));
+      }
+      byte[] indexBytes =
+          codec
+              .writer(IndexData.class)
+              .writeValueAsBytes(new IndexData(entries, index.currentIndex()));
+      long checksum = checksum(indexBytes);
+      boolean indexChanged;
+      synchronized (this) {
+        indexChanged = checksum != indexChecksum;
+      }
+      if (indexChanged) {
+        FileManager.writeAtomically(indexFilePath, indexBytes);
+      }
+      synchronized (this) {
+        indexChecksum = checksum;
+        savedUsernames = index.usernames();
+        savedCurrentIndex = index.currentIndex();
+      }
+    } catch (IOException | RuntimeException e) {
+      // Retries the snapshots and records on the next write, unless newer snapshots replace them
+      synchronized (this) {
+        Set<UserProfile> replaced = Collections.newSetFromMap(new IdentityHashMap<>());
+        replaced.addAll(pendingSnapshots.keySet());
+        snapshots.forEach(pendingSnapshots::putIfAbsent);
+        for (var entry : journalRecords.entrySet()) {
+          UserProfile profile = entry.getKey();
+          if (replaced.contains(profile)) {
+            continue;
+          }
+          // Records are idempotent, so appending some of them twice does no harm
+          List<byte[]> records = new ArrayList<>(entry.getValue());
+          records.addAll(pendingJournalRecords.getOrDefault(profile, List.of()));
+          pendingJournalRecords.put(profile, records);
+        }
+      }
+      throw e;
+    }
+
+    for (String file : replacedFiles) {
+      Files.deleteIfExists(profilesDirectory.resolve(file));
+    }
+    deleteRemovedShards(index.profiles());
+    if (!compactions.isEmpty()) {
+      // The profiles are copied on the thread that edits them
+      Platform.runLater(() -> compactions.forEach(this::requestSnapshot));
+    }
+    LogManager.getLogger()
+        .info(
+            "Configuration saved successfully ("
+                + written
+                + " profile shards written, "
+                + compactions.size()
+                + " journals to compact).");
+  }
+
+  private synchronized void markSaved(UserProfile profile, Long version) {
+    if (version != null) {
+      savedVersions.merge(profile, version, Math::max);
+    }
+  }
+
+  private boolean writeIfChanged(Path shardPath, byte[] data) throws IOException {
+    String key = shardPath.getFileName().toString();
+    long checksum = checksum(data);
+    Long previous;
+    synchronized (this) {
+      previous = shardChecksums.get(key);
+    }
+    if (previous != null && previous == checksum && Files.exists(shardPath)) {
+      return false;
+    }
+    FileManager.writeAtomically(shardPath, data);
+    synchronized (this) {
+      shardChecksums.put(key, checksum);
+    }
+    return true;
+  }
+
+  private void deleteRemovedShards(List<UserProfile> snapshot) {
+    Set<UserProfile> alive = Collections.newSetFromMap(new IdentityHashMap<>());
+    alive.addAll(snapshot);
+    List<String> removedFiles = new ArrayList<>();
+    synchronized (this) {
+      var iterator = shardFiles.entrySet().iterator();
+      while (iterator.hasNext()) {
+        var entry = iterator.next();
+        if (!alive.contains(entry.getKey())) {
+          removedFiles.add(entry.getValue());
+          shardChecksums.remove(entry.getValue());
+          savedVersions.remove(entry.getKey());
+          unreadableProfiles.remove(entry.getKey());
+          pendingSnapshots.remove(entry.getKey());
+          pendingJournalRecords.remove(entry.getKey());
+          iterator.remove();
+        }
+      }
+    }
+    for (String file : removedFiles) {
+      try {
+        Path shardPath = profilesDirectory.resolve(file);
+        Files.deleteIfExists(shardPath);
+        journal.truncate(ConfigJournal.journalPathFor(shardPath));
+        Files.deleteIfExists(profilesDirectory.resolve(searchIndexFileName(file)));
+        LogManager.getLogger().info("Deleted profile shard: " + file);
+      } catch (IOException e) {
+        LogManager.getLogger().warning("Failed to delete profile shard " + file + ": " + e);
+      }
     }
   }
 
+  private static long checksum(byte[] data) {
+    CRC32 crc = new CRC32();
+    crc.update(data);
+    return ((long) data.length << 32) ^ crc.getValue();
+  }
+
+  private static String shardFileName(int shardId, SnapshotFormat format) {
+    return SHARD_FILE_PREFIX + shardId + format.getFileExtension();
+  }
+
+  /** Returns the name of the search index file kept along with a shard in any format. */
+  private String searchIndexFileName(String shardFile) {
+    return SHARD_FILE_PREFIX + parseShardId(shardFile) + SEARCH_INDEX_EXTENSION;
+  }
+
+  private int parseShardId(String file) {
+    try {
+      int extension = file.indexOf('.', SHARD_FILE_PREFIX.length());
+      return Integer.parseInt(
+          file.substring(SHARD_FILE_PREFIX.length(), extension < 0 ? file.length() : extension));
+    } catch (RuntimeException e) {
+      synchronized (this) {
+        return nextShardId++;
+      }
+    }
+  }
+
+  public SnapshotFormat getSnapshotFormat() {
+    return snapshotFormat;
+  }
+
+  public void setSnapshotFormat(SnapshotFormat snapshotFormat) {
+    this.snapshotFormat = snapshotFormat;
+  }
+
+  public boolean isJournalEnabled() {
+    return journalEnabled;
+  }
+
+  public void setJournalEnabled(boolean journalEnabled) {
+    this.journalEnabled = journalEnabled;
+  }
+
+  public PersistenceService getPersistenceService() {
+    return persistenceService;
+  }
+
   public List<UserProfile> getProfiles() {
     return profiles;
   }
@@ -85,17 +1166,21 @@ public class ConfigManager {
     return configFilePath;
   }
 
-  // Inner class to hold configuration data for serialization
+  public Path getConfigDirectory() {
+    return configDirectory;
+  }
+
+  // Inner class to hold the index file data for serialization
   @JsonIgnoreProperties(ignoreUnknown = true)
-  private static class ConfigData {
-    private List<UserProfile> profiles;
+  private static class IndexData {
+    private List<IndexEntry> profiles;
     private Integer currentUserProfileIndex;
 
-    public ConfigData() {
+    public IndexData() {
       // Default constructor
     }
 
-    public ConfigData(List<UserProfile> profiles, Integer currentUserProfileIndex) {
+    public IndexData(List<IndexEntry> profiles, Integer currentUserProfileIndex) {
       this.profiles = profiles;
       this.currentUserProfileIndex = currentUserProfileIndex;
     }
@@ -104,8 +1189,32 @@ public class ConfigManager {
       return currentUserProfileIndex;
     }
 
-    public List<UserProfile> getProfiles() {
+    public List<IndexEntry> getProfiles() {
       return profiles;
     }
   }
+
+  // Inner class describing where a single profile is stored
+  @JsonIgnoreProperties(ignoreUnknown = true)
+  private static class IndexEntry {
+    private String username;
+    private String file;
+
+    public IndexEntry() {
+      // Default constructor
+    }
+
+    public IndexEntry(String username, String file) {
+      this.username = username;
+      this.file = file;
+    }
+
+    public String getUsername() {
+      return username;
+    }
+
+    public String getFile() {
+      return file;
+    }
+  }
 }
@@ -0,0 +1,134 @@
+package com.karandaev.retrolauncher.utils;
+
+import java.io.IOException;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.FileSystems;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.util.LinkedHashSet;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+import java.util.function.Predicate;
+
+/**
+ * Watches configuration directories for files changed by other programs.
+ *
+ * <p>Events are debounced: once a change is seen, the watcher waits until no further event
+ * arrives for {@link #DEBOUNCE_MILLIS} and then reports all changed files at once. Events of a
+ * directory the watcher lost track of are reported as a change of every matching file in it.
+ */
+public class ConfigWatcher {
+  /** Quiet period after the last event before changes are reported. */
+  public static final long DEBOUNCE_MILLIS = 300;
+
+  private final Set<Path> directories;
+  private final Predicate<Path> fileFilter;
+  private final Consumer<Set<Path>> onChange;
+  private WatchService watchService;
+
+  /**
+   * Creates a new watcher.
+   *
+   * @param directories The directories to watch
+   * @param fileFilter Selects the files whose changes are reported
+   * @param onChange Receives the changed files, called on the watcher thread
+   */
+  public ConfigWatcher(
+      Set<Path> directories, Predicate<Path> fileFilter, Consumer<Set<Path>> onChange) {
+    this.directories = directories;
+    this.fileFilter = fileFilter;
+    this.onChange = onChange;
+  }
+
+  /** Starts watching on a daemon thread. */
+  public synchronized void start() throws IOException {
+    if (watchService != null) {
+      return;
+    }
+    watchService = FileSystems.getDefault().newWatchService();
+    for (Path directory : directories) {
+      Files.createDirectories(directory);
+      directory.register(
+          watchService,
+          StandardWatchEventKinds.ENTRY_CREATE,
+          StandardWatchEventKinds.ENTRY_MODIFY,
+          StandardWatchEventKinds.ENTRY_DELETE);
+    }
+
+    WatchService service = watchService;
+    Thread thread = new Thread(() -> watch(service), "config-watcher");
+    thread.setDaemon(true);
+    thread.start();
+  }
+
+  /** Stops watching. */
+  public synchronized void stop() {
+    if (watchService == null) {
+      return;
+    }
+    try {
+      watchService.close();
+    } catch (IOException e) {
+      LogManager.getLogger().warning("Failed to stop config watcher: " + e.getMessage());
+    }
+    watchService = null;
+  }
+
+  private void watch(WatchService service) {
+    try {
+      while (true) {
+        Set<Path> changed = new LinkedHashSet<>();
+        collect(service.take(), changed);
+        WatchKey key;
+        while ((key = service.poll(DEBOUNCE_MILLIS, TimeUnit.MILLISECONDS)) != null) {
+          collect(key, changed);
+        }
+        if (!changed.isEmpty()) {
+          try {
+            onChange.accept(changed);
+          } catch (RuntimeException e) {
+            e.printStackTrace();
+            LogManager.getLogger().severe("Failed to process config changes: " + e.getMessage());
+          }
+        }
+      }
+    } catch (ClosedWatchServiceException e) {
+      // Watcher was stopped
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    }
+  }
+
+  private void collect(WatchKey key, Set<Path> changed) {
+    Path directory = (Path) key.watchable();
+    for (WatchEvent<?> event : key.pollEvents()) {
+      if (event.kind() == StandardWatchEventKinds.OVERFLOW) {
+        addAll(directory, changed);
+        continue;
+      }
+      Path file = directory.resolve((Path) event.context());
+      if (fileFilter.test(file)) {
+        changed.add(file);
+      }
+    }
+    key.reset();
+  }
+
+  private void addAll(Path directory, Set<Path> changed) {
+    try (DirectoryStream<Path> files = Files.newDirectoryStream(directory)) {
+      for (Path file : files) {
+        if (fileFilter.test(file)) {
+          changed.add(file);
+        }
+      }
+    } catch (IOException e) {
+      LogManager.getLogger().warning("Failed to list " + directory + ": " + e.getMessage());
+    }
+  }
+}
@@ -2,6 +2,8 @@ package com.karandaev.retrolauncher.utils;
 
 import java.io.File;
 import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
 import java.nio.file.*;
 import java.nio.file.attribute.BasicFileAttributes;
 
@@ -30,6 +32,42 @@ public class FileManager {
     }
   }
 
+  /**
+   * Writes data to a file so that readers never observe a partially written file. The data is
+   * written to a temporary file in the same directory, flushed to disk and moved over the target.
+   *
+   * @param target the file to replace
+   * @param data the new file content
+   * @throws IOException if an I/O error occurs
+   */
+  public static void writeAtomically(Path target, byte[] data) throws IOException {
+    Path absoluteTarget = target.toAbsolutePath();
+    Path tempFile = absoluteTarget.resolveSibling(absoluteTarget.getFileName() + ".tmp");
+
+    try (FileChannel channel =
+        FileChannel.open(
+            tempFile,
+            StandardOpenOption.CREATE,
+            StandardOpenOption.WRITE,
+            StandardOpenOption.TRUNCATE_EXISTING)) {
+      ByteBuffer buffer = ByteBuffer.wrap(data);
+      while (buffer.hasRemaining()) {
+        channel.write(buffer);
+      }
+      channel.force(true);
+    }
+
+    try {
+      Files.move(
+          tempFile,
+          absoluteTarget,
+          StandardCopyOption.ATOMIC_MOVE,
+          StandardCopyOption.REPLACE_EXISTING);
+    } catch (AtomicMoveNotSupportedException e) {
+      Files.move(tempFile, absoluteTarget, StandardCopyOption.REPLACE_EXISTING);
+    }
+  }
+
   public static void deleteDirectoryRecursively(Path path) throws IOException {
     if (Files.notExists(path)) {
       return;
@@ -0,0 +1,141 @@
+package com.karandaev.retrolauncher.utils;
+
+import javafx.beans.value.ChangeListener;
+import javafx.beans.value.ObservableValue;
+import javafx.scene.image.Image;
+
+import java.io.File;
+import java.lang.ref.SoftReference;
+import java.net.URL;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * Decoded images of the application, e.g. the program icon of every window and alert, and any
+ * artwork shown for ROMs.
+ *
+ * <p>Images are kept by location and requested size in a bounded least recently used cache. The
+ * cache holds them softly, so the garbage collector releases decoded images under memory pressure
+ * and they are decoded again on their next use. An image decoded in the background is cached once
+ * it is complete, and only if it decoded without error.
+ */
+public class ImageCache {
+  private static final int MAX_IMAGES = 64;
+  private static ImageCache instance;
+
+  private final Map<Key, SoftReference<Image>> images =
+      new LinkedHashMap<>(16, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<Key, SoftReference<Image>> eldest) {
+          return size() > MAX_IMAGES;
+        }
+      };
+
+  private record Key(String location, double width, double height) {}
+
+  private ImageCache() {}
+
+  public static synchronized ImageCache getInstance() {
+    if (instance == null) {
+      instance = new ImageCache();
+    }
+    return instance;
+  }
+
+  /**
+   * Returns a resource image at its own size, decoding it on first use.
+   *
+   * @param clazz Class whose resources contain the image
+   * @param resourcePath Resource path of the image
+   * @return The decoded image
+   */
+  public Image get(Class<?> clazz, String resourcePath) {
+    return get(clazz, resourcePath, 0, 0);
+  }
+
+  /**
+   * Returns a resource image scaled to fit a size, decoding it on first use.
+   *
+   * @param clazz Class whose resources contain the image
+   * @param resourcePath Resource path of the image
+   * @param width Width to fit the image into, or 0 for its own width
+   * @param height Height to fit the image into, or 0 for its own height
+   * @return The decoded image
+   */
+  public Image get(Class<?> clazz, String resourcePath, double width, double height) {
+    return get(resourceLocation(clazz, resourcePath), width, height, false);
+  }
+
+  /**
+   * Returns an image file scaled to fit a size. A missing image is decoded on a background
+   * thread; the returned image shows its progress and is complete once decoded.
+   *
+   * @param file The image file
+   * @param width Width to fit the image into, or 0 for its own width
+   * @param height Height to fit the image into, or 0 for its own height
+   * @return The image, possibly still decoding
+   */
+  public Image getInBackground(File file, double width, double height) {
+    return get(file.toURI().toString(), width, height, true);
+  }
+
+  /**
+   * Returns a resource image scaled to fit a size, decoding a missing image on a background
+   * thread.
+   *
+   * @see #getInBackground(File, double, double)
+   */
+  public Image getInBackground(Class<?> clazz, String resourcePath, double width, double height) {
+    return get(resourceLocation(clazz, resourcePath), width, height, true);
+  }
+
+  private Image get(String location, double width, double height, boolean background) {
+    Key key = new Key(location, width, height);
+    synchronized (this) {
+      SoftReference<Image> reference = images.get(key);
+      Image image = reference != null ? reference.get() : null;
+      if (image != null && !image.isError()) {
+        return image;
+      }
+      if (reference != null) {
+        // Released, or failed after it was cached
+        images.remove(key);
+      }
+    }
+
+    Image image = new Image(location, width, height, true, true, background);
+    if (image.getProgress() >= 1) {
+      cacheIfDecoded(key, image);
+    } else {
+      // Cached once decoded, so a failed decoding is tried again on the next request
+      image
+          .progressProperty()
+          .addListener(
+              new ChangeListener<>() {
+                @Override
+                public void changed(
+                    ObservableValue<? extends Number> observable,
+                    Number oldValue,
+                    Number newValue) {
+                  if (newValue.doubleValue() >= 1) {
+                    observable.removeListener(this);
+                    cacheIfDecoded(key, image);
+                  }
+                }
+              });
+    }
+    return image;
+  }
+
+  private synchronized void cacheIfDecoded(Key key, Image image) {
+    if (!image.isError()) {
+      images.put(key, new SoftReference<>(image));
+    }
+  }
+
+  private static String resourceLocation(Class<?> clazz, String resourcePath) {
+    URL url = Objects.requireNonNull(clazz.getResource(resourcePath), resourcePath);
+    return url.toExternalForm();
+  }
+}
@@ -0,0 +1,113 @@
+package com.karandaev.retrolauncher.utils;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.module.blackbird.BlackbirdModule;
+import com.karandaev.retrolauncher.model.Emulator;
+import com.karandaev.retrolauncher.model.LaunchParameters;
+import com.karandaev.retrolauncher.model.RomFile;
+import com.karandaev.retrolauncher.model.UserProfile;
+
+import java.io.File;
+import java.io.IOException;
+import java.lang.invoke.MethodHandles;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Shared codec for everything the application reads and writes as JSON or Smile.
+ *
+ * <p>Holds one pre-configured object mapper per {@link SnapshotFormat} and caches the immutable,
+ * thread-safe readers and writers built from them, so that every type is introspected only once
+ * per application run. The Blackbird module replaces reflective property access with generated
+ * accessors when it is available.
+ */
+public class JsonCodec {
+  private static final JsonCodec instance = new JsonCodec();
+
+  private final Map<SnapshotFormat, ObjectMapper> mappers = new EnumMap<>(SnapshotFormat.class);
+  private final Map<SnapshotFormat, Map<Class<?>, ObjectReader>> readers =
+      new EnumMap<>(SnapshotFormat.class);
+  private final Map<SnapshotFormat, Map<Class<?>, ObjectWriter>> writers =
+      new EnumMap<>(SnapshotFormat.class);
+
+  private JsonCodec() {
+    for (SnapshotFormat format : SnapshotFormat.values()) {
+      ObjectMapper mapper = format.createMapper();
+      try {
+        // Blackbird generates accessors through the lookup of this module, which can access the
+        // model without opening it to Blackbird
+        mapper.registerModule(new BlackbirdModule(MethodHandles::lookup));
+      } catch (RuntimeException | LinkageError e) {
+        LogManager.getLogger().warning("Blackbird is not available, using reflection: " + e);
+      }
+      mappers.put(format, mapper);
+      readers.put(format, new ConcurrentHashMap<>());
+      writers.put(format, new ConcurrentHashMap<>());
+    }
+  }
+
+  public static JsonCodec getInstance() {
+    return instance;
+  }
+
+  public ObjectMapper getMapper(SnapshotFormat format) {
+    return mappers.get(format);
+  }
+
+  /** Returns the cached JSON reader for a type. */
+  public ObjectReader reader(Class<?> type) {
+    return reader(SnapshotFormat.JSON, type);
+  }
+
+  /** Returns the cached reader for a type in the given format. */
+  public ObjectReader reader(SnapshotFormat format, Class<?> type) {
+    return readers.get(format).computeIfAbsent(type, t -> mappers.get(format).readerFor(t));
+  }
+
+  /** Returns the cached JSON writer for a type. */
+  public ObjectWriter writer(Class<?> type) {
+    return writer(SnapshotFormat.JSON, type);
+  }
+
+  /** Returns the cached writer for a type in the given format. */
+  public ObjectWriter writer(SnapshotFormat format, Class<?> type) {
+    return writers.get(format).computeIfAbsent(type, t -> mappers.get(format).writerFor(t));
+  }
+
+  /**
+   * Builds the serializers and deserializers of the configuration model in every format by
+   * round-tripping a small sample profile. Meant to run once at startup, off the JavaFX
+   * application thread.
+   */
+  public void warmUp() {
+    long start = System.nanoTime();
+
+    // Without consoles and genres: tags are interned for the lifetime of the application
+    UserProfile sample = new UserProfile("warm-up");
+    sample.getEmulators().add(new Emulator("Emulator", new File("emulator"), List.of()));
+    Map<Integer, LaunchParameters> launchParameters = new HashMap<>();
+    launchParameters.put(0, new LaunchParameters());
+    sample
+        .getRoms()
+        .add(new RomFile("Game", new File("game"), List.of(), List.of(), false, launchParameters));
+
+    try {
+      for (SnapshotFormat format : SnapshotFormat.values()) {
+        byte[] data = writer(format, UserProfile.class).writeValueAsBytes(sample);
+        reader(format, UserProfile.class).readValue(data);
+      }
+      LogManager.getLogger()
+          .info(
+              String.format(
+                  "JSON codec warmed up in %.1f ms", (System.nanoTime() - start) / 1_000_000.0));
+    } catch (IOException e) {
+      e.printStackTrace();
+      LogManager.getLogger().severe("Failed to warm up JSON codec: " + e.getMessage());
+    }
+  }
+}
@@ -1,21 +1,32 @@
 package com.karandaev.retrolauncher.utils;
 
+import java.text.Collator;
 import java.util.*;
 
 /** Utility class for managing application language. */
 public class LanguageManager {
   private static Locale locale;
   private static ResourceBundle resourceBundle;
+  private static Collator collator;
 
   public static void setLocale(Locale newLocale) {
     locale = newLocale;
     resourceBundle = ResourceBundle.getBundle("i18n.messages", locale);
+    collator = Collator.getInstance(locale);
   }
 
   public static ResourceBundle getResourceBundle() {
     return resourceBundle;
   }
 
+  /**
+   * Returns the collator ordering text in the current language. A new collator is created when the
+   * language changes, so orders built from its keys can tell that they are outdated.
+   */
+  public static Collator getCollator() {
+    return collator;
+  }
+
   public static List<String> getAllTranslates(String resource) {
     var en = ResourceBundle.getBundle("i18n.messages", new Locale("en"));
     var ru = ResourceBundle.getBundle("i18n.messages", new Locale("ru"));
@@ -0,0 +1,192 @@
+package com.karandaev.retrolauncher.utils;
+
+import java.io.IOException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Background writer that coalesces bursts of save requests into a single write.
+ *
+ * <p>Requests made while a write is already scheduled are folded into it. All writes run on one
+ * daemon thread, so they never overlap and never block the JavaFX application thread.
+ */
+public class PersistenceService {
+
+  /** A unit of persistence work executed on the writer thread. */
+  @FunctionalInterface
+  public interface WriteTask {
+    void write() throws IOException;
+  }
+
+  private final String name;
+  private final WriteTask writeTask;
+  private final long coalesceDelayMillis;
+  private final ScheduledExecutorService executor;
+
+  private ScheduledFuture<?> pendingWrite;
+  private boolean writeScheduled = false;
+
+  private final AtomicLong requestedSaves = new AtomicLong();
+  private final AtomicLong coalescedSaves = new AtomicLong();
+  private final AtomicLong skippedSaves = new AtomicLong();
+  private final AtomicLong completedWrites = new AtomicLong();
+  private final AtomicLong failedWrites = new AtomicLong();
+  private final AtomicLong totalWriteNanos = new AtomicLong();
+  private final AtomicLong maxWriteNanos = new AtomicLong();
+  private volatile long lastWriteNanos = 0;
+
+  /**
+   * Creates a new persistence service.
+   *
+   * @param name Name of the writer thread, also used in log messages
+   * @param coalesceDelayMillis How long a request waits for further requests before writing
+   * @param writeTask The task that performs the actual write
+   */
+  public PersistenceService(String name, long coalesceDelayMillis, WriteTask writeTask) {
+    this.name = name;
+    this.writeTask = writeTask;
+    this.coalesceDelayMillis = coalesceDelayMillis;
+    this.executor =
+        Executors.newSingleThreadScheduledExecutor(
+            runnable -> {
+              Thread thread = new Thread(runnable, name);
+              thread.setDaemon(true);
+              return thread;
+            });
+  }
+
+  /** Requests a write. Requests arriving before the scheduled write starts are coalesced. */
+  public synchronized void requestWrite() {
+    requestedSaves.incrementAndGet();
+    if (executor.isShutdown()) {
+      LogManager.getLogger().warning(name + ": write requested after shutdown, ignored");
+      return;
+    }
+    if (writeScheduled) {
+      coalescedSaves.incrementAndGet();
+      return;
+    }
+    scheduleWrite(coalesceDelayMillis);
+  }
+
+  /** Records a save request that was dropped because there was nothing to write. */
+  public void recordSkippedSave() {
+    requestedSaves.incrementAndGet();
+    skippedSaves.incrementAndGet();
+  }
+
+  /** Runs any pending write immediately and waits until all submitted writes are finished. */
+  public void flush() {
+    Future<?> barrier;
+    synchronized (this) {
+      if (executor.isShutdown()) {
+        return;
+      }
+      if (writeScheduled && pendingWrite.cancel(false)) {
+        writeScheduled = false;
+        barrier = executor.submit(this::runWrite);
+      } else {
+        // Either nothing is pending or the write is already running; wait for it to finish
+        barrier = executor.submit(() -> {});
+      }
+    }
+
+    try {
+      barrier.get();
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      LogManager.getLogger().warning(name + ": interrupted while flushing");
+    } catch (ExecutionException e) {
+      e.printStackTrace();
+      LogManager.getLogger().severe(name + ": flush failed: " + e.getMessage());
+    }
+  }
+
+  /** Flushes pending writes, logs the collected metrics and stops the writer thread. */
+  public void shutdown() {
+    flush();
+    synchronized (this) {
+      executor.shutdown();
+    }
+    LogManager.getLogger().info(getMetricsSummary());
+  }
+
+  private synchronized void scheduleWrite(long delayMillis) {
+    writeScheduled = true;
+    pendingWrite = executor.schedule(this::runWrite, delayMillis, TimeUnit.MILLISECONDS);
+  }
+
+  private void runWrite() {
+    synchronized (this) {
+      writeScheduled = false;
+      pendingWrite = null;
+    }
+
+    long start = System.nanoTime();
+    try {
+      writeTask.write();
+      long elapsed = System.nanoTime() - start;
+      completedWrites.incrementAndGet();
+      totalWriteNanos.addAndGet(elapsed);
+      maxWriteNanos.accumulateAndGet(elapsed, Math::max);
+      lastWriteNanos = elapsed;
+    } catch (IOException | RuntimeException e) {
+      failedWrites.incrementAndGet();
+      e.printStackTrace();
+      LogManager.getLogger().severe(name + ": write failed: " + e.getMessage());
+    }
+  }
+
+  public long getRequestedSaves() {
+    return requestedSaves.get();
+  }
+
+  public long getCoalescedSaves() {
+    return coalescedSaves.get();
+  }
+
+  public long getSkippedSaves() {
+    return skippedSaves.get();
+  }
+
+  public long getCompletedWrites() {
+    return completedWrites.get();
+  }
+
+  public long getFailedWrites() {
+    return failedWrites.get();
+  }
+
+  public double getLastWriteMillis() {
+    return lastWriteNanos / 1_000_000.0;
+  }
+
+  public double getMaxWriteMillis() {
+    return maxWriteNanos.get() / 1_000_000.0;
+  }
+
+  public double getAverageWriteMillis() {
+    long writes = completedWrites.get();
+    return writes == 0 ? 0 : totalWriteNanos.get() / 1_000_000.0 / writes;
+  }
+
+  public String getMetricsSummary() {
+    return String.format(
+        "%s: %d save requests, %d coalesced, %d skipped, %d writes (%d failed), "
+            + "write latency avg %.2f ms, max %.2f ms, last %.2f ms",
+        name,
+        getRequestedSaves(),
+        getCoalescedSaves(),
+        getSkippedSaves(),
+        getCompletedWrites(),
+        getFailedWrites(),
+        getAverageWriteMillis(),
+        getMaxWriteMillis(),
+        getLastWriteMillis());
+  }
+}
@@ -0,0 +1,237 @@
+package com.karandaev.retrolauncher.utils;
+
+import com.karandaev.retrolauncher.model.Emulator;
+import com.karandaev.retrolauncher.model.LaunchParameters;
+import com.karandaev.retrolauncher.model.RomFile;
+import com.karandaev.retrolauncher.model.UserProfile;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+
+/**
+ * Changes merged into a live profile from a stored copy of it, e.g. a profile shard edited by an
+ * external script. ROMs are matched by name and emulators by id; matched entries are updated in
+ * place, so references held by the UI stay valid.
+ */
+public class ProfileDiff {
+  private static final Comparator<RomFile> ROM_ORDER = Comparator.comparing(RomFile::getName);
+  private static final Comparator<Emulator> EMULATOR_ORDER =
+      Comparator.comparing(Emulator::getName);
+
+  private final UserProfile profile;
+  private final List<RomFile> addedRoms = new ArrayList<>();
+  private final List<RomFile> removedRoms = new ArrayList<>();
+  private final List<RomFile> updatedRoms = new ArrayList<>();
+  private final List<Emulator> addedEmulators = new ArrayList<>();
+  private final List<Emulator> removedEmulators = new ArrayList<>();
+  private final List<Emulator> updatedEmulators = new ArrayList<>();
+  private boolean settingsChanged = false;
+
+  private ProfileDiff(UserProfile profile) {
+    this.profile = profile;
+  }
+
+  /**
+   * Merges a stored copy of a profile into the live profile. Only entries that differ are
+   * touched.
+   *
+   * @param live The profile shown by the application
+   * @param stored The profile as read from disk; its entries are handed over to the live profile
+   * @return The applied changes
+   */
+  public static ProfileDiff merge(UserProfile live, UserProfile stored) {
+    ProfileDiff diff = new ProfileDiff(live);
+
+    if (!Objects.equals(live.getPreferredLanguageShort(), stored.getPreferredLanguageShort())
+        || !Objects.equals(live.getPreferredThemeEn(), stored.getPreferredThemeEn())) {
+      live.setPreferredLanguageShort(stored.getPreferredLanguageShort());
+      live.setPreferredThemeEn(stored.getPreferredThemeEn());
+      diff.settingsChanged = true;
+    }
+
+    Map<String, RomFile> liveRoms = new HashMap<>();
+    for (RomFile rom : live.getRoms()) {
+      liveRoms.put(rom.getName(), rom);
+    }
+    for (RomFile storedRom : stored.getRoms()) {
+      RomFile liveRom = liveRoms.remove(storedRom.getName());
+      if (liveRom == null) {
+        diff.addedRoms.add(storedRom);
+      } else if (!sameRom(liveRom, storedRom)) {
+        liveRom.setFilePath(storedRom.getFilePath());
+        liveRom.setConsoles(storedRom.getConsoles());
+        liveRom.setGenres(storedRom.getGenres());
+        liveRom.setFavorite(storedRom.isFavorite());
+        liveRom.setLaunchParameters(storedRom.getLaunchParameters());
+        diff.updatedRoms.add(liveRom);
+      }
+    }
+    diff.removedRoms.addAll(liveRoms.values());
+    diff.patchRoms(live.getRoms());
+
+    Map<Integer, Emulator> liveEmulators = new HashMap<>();
+    for (Emulator emulator : live.getEmulators()) {
+      liveEmulators.put(emulator.getId(), emulator);
+    }
+    for (Emulator storedEmulator : stored.getEmulators()) {
+      Emulator liveEmulator = liveEmulators.remove(storedEmulator.getId());
+      if (liveEmulator == null) {
+        diff.addedEmulators.add(storedEmulator);
+      } else if (!sameEmulator(liveEmulator, storedEmulator)) {
+        liveEmulator.setName(storedEmulator.getName());
+        liveEmulator.setExecutablePath(storedEmulator.getExecutablePath());
+        liveEmulator.setSupportedConsoles(storedEmulator.getSupportedConsoles());
+        liveEmulator.setLaunchParameters(storedEmulator.getLaunchParameters());
+        diff.updatedEmulators.add(liveEmulator);
+      }
+    }
+    diff.removedEmulators.addAll(liveEmulators.values());
+    diff.patchEmulators(live.getEmulators());
+
+    return diff;
+  }
+
+  /**
+   * Removes and inserts entries of a list sorted by the given order. Removed entries are matched
+   * by identity.
+   *
+   * @param list The sorted list to patch
+   * @param removed Entries to remove
+   * @param added Entries to insert at their sorted position
+   * @param order The order of the list
+   */
+  public static <T> void patchList(
+      List<T> list, Collection<T> removed, Collection<T> added, Comparator<? super T> order) {
+    if (!removed.isEmpty()) {
+      Set<T> removedSet = Collections.newSetFromMap(new IdentityHashMap<>());
+      removedSet.addAll(removed);
+      list.removeIf(removedSet::contains);
+    }
+    for (T entry : added) {
+      int index = Collections.binarySearch(list, entry, order);
+      list.add(index < 0 ? -index - 1 : index, entry);
+    }
+  }
+
+  /**
+   * Patches a sorted list of ROMs shown by the UI with the ROM changes of this diff.
+   *
+   * @param roms A list sorted by ROM name
+   */
+  public void patchRoms(List<RomFile> roms) {
+    patchList(roms, removedRoms, addedRoms, ROM_ORDER);
+  }
+
+  /**
+   * Patches a list of emulators shown by the UI with the emulator changes of this diff.
+   *
+   * @param emulators A list sorted by emulator name
+   */
+  public void patchEmulators(List<Emulator> emulators) {
+    if (!updatedEmulators.isEmpty()) {
+      // Emulators are matched by id, so an update may rename them
+      emulators.sort(EMULATOR_ORDER);
+    }
+    patchList(emulators, removedEmulators, addedEmulators, EMULATOR_ORDER);
+  }
+
+  private static boolean sameRom(RomFile a, RomFile b) {
+    return Objects.equals(a.getFilePath(), b.getFilePath())
+        && Objects.equals(a.getConsoles(), b.getConsoles())
+        && Objects.equals(a.getGenres(), b.getGenres())
+        && Objects.equals(a.isFavorite(), b.isFavorite())
+        && sameLaunchParameters(a.getLaunchParameters(), b.getLaunchParameters());
+  }
+
+  private static boolean sameEmulator(Emulator a, Emulator b) {
+    return Objects.equals(a.getName(), b.getName())
+        && Objects.equals(a.getExecutablePath(), b.getExecutablePath())
+        && Objects.equals(a.getSupportedConsoles(), b.getSupportedConsoles())
+        && Objects.equals(
+            launchParametersOf(a.getLaunchParameters()),
+            launchParametersOf(b.getLaunchParameters()));
+  }
+
+  private static boolean sameLaunchParameters(
+      Map<Integer, LaunchParameters> a, Map<Integer, LaunchParameters> b) {
+    if (a == null || b == null) {
+      return a == b;
+    }
+    if (a.size() != b.size()) {
+      return false;
+    }
+    for (var entry : a.entrySet()) {
+      if (!b.containsKey(entry.getKey())
+          || !Objects.equals(
+              launchParametersOf(entry.getValue()), launchParametersOf(b.get(entry.getKey())))) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  private static String launchParametersOf(LaunchParameters parameters) {
+    return parameters != null ? parameters.getLaunchParameters() : null;
+  }
+
+  public boolean isEmpty() {
+    return !settingsChanged
+        && addedRoms.isEmpty()
+        && removedRoms.isEmpty()
+        && updatedRoms.isEmpty()
+        && addedEmulators.isEmpty()
+        && removedEmulators.isEmpty()
+        && updatedEmulators.isEmpty();
+  }
+
+  /** Returns the number of changed settings and entries. */
+  public int size() {
+    return (settingsChanged ? 1 : 0)
+        + addedRoms.size()
+        + removedRoms.size()
+        + updatedRoms.size()
+        + addedEmulators.size()
+        + removedEmulators.size()
+        + updatedEmulators.size();
+  }
+
+  public UserProfile getProfile() {
+    return profile;
+  }
+
+  public List<RomFile> getAddedRoms() {
+    return addedRoms;
+  }
+
+  public List<RomFile> getRemovedRoms() {
+    return removedRoms;
+  }
+
+  public List<RomFile> getUpdatedRoms() {
+    return updatedRoms;
+  }
+
+  public List<Emulator> getAddedEmulators() {
+    return addedEmulators;
+  }
+
+  public List<Emulator> getRemovedEmulators() {
+    return removedEmulators;
+  }
+
+  public List<Emulator> getUpdatedEmulators() {
+    return updatedEmulators;
+  }
+
+  public boolean isSettingsChanged() {
+    return settingsChanged;
+  }
+}
@@ -0,0 +1,60 @@
+package com.karandaev.retrolauncher.utils;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+import com.fasterxml.jackson.dataformat.smile.SmileGenerator;
+
+/**
+ * On-disk formats of profile shard snapshots.
+ *
+ * <p>{@link #SMILE} is the compact binary encoding of the JSON data model. It stores repeated
+ * property names and short string values such as consoles and genres once and refers back to
+ * them, which keeps large libraries small and fast to parse. {@link #JSON} remains supported for
+ * reading and for import and export.
+ */
+public enum SnapshotFormat {
+  JSON(".json"),
+  SMILE(".sml");
+
+  // Every Smile document starts with ":)\n"
+  private static final byte[] SMILE_HEADER = {':', ')', '\n'};
+
+  private final String fileExtension;
+
+  SnapshotFormat(String fileExtension) {
+    this.fileExtension = fileExtension;
+  }
+
+  public String getFileExtension() {
+    return fileExtension;
+  }
+
+  /** Creates an object mapper reading and writing this format. */
+  public ObjectMapper createMapper() {
+    if (this == SMILE) {
+      SmileFactory factory =
+          SmileFactory.builder().enable(SmileGenerator.Feature.CHECK_SHARED_STRING_VALUES).build();
+      return new ObjectMapper(factory);
+    }
+    return new ObjectMapper();
+  }
+
+  /**
+   * Detects the format of stored data from its first bytes.
+   *
+   * @param data The stored data
+   * @return The format of the data
+   */
+  public static SnapshotFormat detect(byte[] data) {
+    if (data.length >= SMILE_HEADER.length) {
+      boolean smile = true;
+      for (int i = 0; i < SMILE_HEADER.length; i++) {
+        smile &= data[i] == SMILE_HEADER[i];
+      }
+      if (smile) {
+        return SMILE;
+      }
+    }
+    return JSON;
+  }
+}
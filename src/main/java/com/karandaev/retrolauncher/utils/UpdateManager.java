@@ -3,7 +3,7 @@ package com.karandaev.retrolauncher.utils;
 import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
 import com.fasterxml.jackson.annotation.JsonProperty;
 import com.fasterxml.jackson.databind.DeserializationFeature;
-import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
 import javafx.application.Platform;
 import javafx.beans.property.Property;
 import javafx.event.Event;
@@ -33,12 +33,10 @@ public class UpdateManager {
   private static final String VERSION_PATH = "VERSION";
   public static final String VERSION_UNKNOWN = "unknown";
 
-  private static ObjectMapper objectMapper;
-
-  static {
-    objectMapper = new ObjectMapper();
-    objectMapper.configure(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES, false);
-  }
+  private static final ObjectReader releaseReader =
+      JsonCodec.getInstance()
+          .reader(Release.class)
+          .without(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES);
 
   public static String getVersion() {
     Path versionFile = Paths.get(VERSION_PATH);
@@ -99,6 +97,8 @@ public class UpdateManager {
       waitAlert.getButtonTypes().clear();
       waitAlert.initModality(Modality.APPLICATION_MODAL);
       waitAlert.show();
+      // Profiles are copied for saving on this thread, where they are edited
+      ConfigManager.getInstance().saveConfig();
       Thread t =
           new Thread(
               () -> {
@@ -174,7 +174,7 @@ public class UpdateManager {
     }
 
     try (InputStream is = new BufferedInputStream(conn.getInputStream())) {
-      Release release = objectMapper.readValue(is, Release.class);
+      Release release = releaseReader.readValue(is);
       return release;
     } finally {
       conn.disconnect();
@@ -220,6 +220,8 @@ public class UpdateManager {
 
     LogManager.getLogger().info("Successfully unpacked update to " + updateDir.toString());
 
+    // Writes pending configuration changes before the updater replaces the application
+    ConfigManager.getInstance().shutdown();
     launchUpdater(updateDir);
     System.exit(0);
   }
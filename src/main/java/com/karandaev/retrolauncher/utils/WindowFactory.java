@@ -0,0 +1,174 @@
+package com.karandaev.retrolauncher.utils;
+
+import com.karandaev.retrolauncher.controller.interfaces.IController;
+import javafx.fxml.FXMLLoader;
+import javafx.scene.Group;
+import javafx.scene.Parent;
+import javafx.scene.Scene;
+import javafx.stage.Stage;
+import javafx.stage.WindowEvent;
+import javafx.util.Pair;
+
+import java.io.IOException;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.ResourceBundle;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Creates the application windows from their FXML views.
+ *
+ * <p>Views that are opened often are loaded ahead on a background thread, so opening them only
+ * wraps an already built scene graph in a new stage. When such a window is closed, its scene graph
+ * is kept for the next opening if its controller can be {@linkplain IController#reset() reset};
+ * otherwise the view is loaded ahead again. Views loaded for another language are dropped.
+ */
+public class WindowFactory {
+  private static final int SPARES_PER_VIEW = 1;
+  private static WindowFactory instance;
+
+  // Views ready to be shown, per view path
+  private final Map<String, Deque<LoadedView>> spares = new HashMap<>();
+  private final Set<String> preloadedViews = new HashSet<>();
+  private final ExecutorService loader =
+      Executors.newSingleThreadExecutor(
+          runnable -> {
+            Thread thread = new Thread(runnable, "window-pre-warm");
+            thread.setDaemon(true);
+            return thread;
+          });
+
+  private record LoadedView(Parent root, IController controller, ResourceBundle resources) {}
+
+  private WindowFactory() {}
+
+  public static synchronized WindowFactory getInstance() {
+    if (instance == null) {
+      instance = new WindowFactory();
+    }
+    return instance;
+  }
+
+  /**
+   * Creates a window showing a view, reusing a view loaded ahead if there is one.
+   *
+   * @param clazz Class whose resources contain the view and the icon
+   * @param fxmlPath Resource path of the view
+   * @param name Title of the window
+   * @param iconPath Resource path of the window icon
+   * @return The window and the controller of its view
+   * @throws IOException If the view can not be loaded
+   */
+  public Pair<Stage, IController> getWindow(
+      Class<?> clazz, String fxmlPath, String name, String iconPath) throws IOException {
+    long start = System.nanoTime();
+    LoadedView view = takeSpare(fxmlPath);
+    boolean preloaded = view != null;
+    if (view == null) {
+      view = load(clazz, fxmlPath);
+    }
+
+    Stage stage = new Stage();
+    stage.setScene(new Scene(view.root()));
+    stage.setTitle(name);
+    stage.getIcons().add(ImageCache.getInstance().get(clazz, iconPath));
+    if (isPreloaded(fxmlPath)) {
+      LoadedView shown = view;
+      stage.addEventHandler(WindowEvent.WINDOW_HIDDEN, event -> closed(clazz, fxmlPath, shown));
+    }
+
+    LogManager.getLogger()
+        .fine(
+            String.format(
+                "Created window %s in %.1f ms%s.",
+                fxmlPath,
+                (System.nanoTime() - start) / 1e6,
+                preloaded ? " from a preloaded view" : ""));
+    return new Pair<>(stage, view.controller());
+  }
+
+  /**
+   * Loads views in the background, so the next windows showing them open without parsing FXML.
+   * The views are kept ready from then on.
+   *
+   * @param clazz Class whose resources contain the views
+   * @param fxmlPaths Resource paths of the views
+   */
+  public void preload(Class<?> clazz, String... fxmlPaths) {
+    for (String fxmlPath : fxmlPaths) {
+      synchronized (this) {
+        preloadedViews.add(fxmlPath);
+      }
+      loadAhead(clazz, fxmlPath);
+    }
+  }
+
+  private synchronized boolean isPreloaded(String fxmlPath) {
+    return preloadedViews.contains(fxmlPath);
+  }
+
+  /** Keeps the view of a closed window, or loads a new one for the next opening. */
+  private void closed(Class<?> clazz, String fxmlPath, LoadedView view) {
+    if (view.controller().reset()) {
+      // Frees the scene graph from the scene of the closed window
+      view.root().getScene().setRoot(new Group());
+      offer(fxmlPath, view);
+    } else {
+      loadAhead(clazz, fxmlPath);
+    }
+  }
+
+  private void loadAhead(Class<?> clazz, String fxmlPath) {
+    loader.execute(
+        () -> {
+          if (hasSpare(fxmlPath)) {
+            return;
+          }
+          try {
+            offer(fxmlPath, load(clazz, fxmlPath));
+          } catch (IOException | RuntimeException e) {
+            e.printStackTrace();
+            LogManager.getLogger().severe("Failed to preload " + fxmlPath + ": " + e.getMessage());
+          }
+        });
+  }
+
+  private synchronized boolean hasSpare(String fxmlPath) {
+    Deque<LoadedView> views = spares.get(fxmlPath);
+    return views != null
+        && views.stream().anyMatch(view -> view.resources() == LanguageManager.getResourceBundle());
+  }
+
+  private synchronized LoadedView takeSpare(String fxmlPath) {
+    Deque<LoadedView> views = spares.get(fxmlPath);
+    while (views != null && !views.isEmpty()) {
+      LoadedView view = views.poll();
+      if (view.resources() == LanguageManager.getResourceBundle()) {
+        return view;
+      }
+    }
+    return null;
+  }
+
+  private synchronized void offer(String fxmlPath, LoadedView view) {
+    Deque<LoadedView> views = spares.computeIfAbsent(fxmlPath, path -> new ArrayDeque<>());
+    views.removeIf(spare -> spare.resources() != LanguageManager.getResourceBundle());
+    if (view.resources() == LanguageManager.getResourceBundle()
+        && views.size() < SPARES_PER_VIEW) {
+      views.add(view);
+    }
+  }
+
+  private static LoadedView load(Class<?> clazz, String fxmlPath) throws IOException {
+    ResourceBundle resources = LanguageManager.getResourceBundle();
+    FXMLLoader loader = new FXMLLoader(clazz.getResource(fxmlPath));
+    loader.setResources(resources);
+    Parent root = loader.load();
+    return new LoadedView(root, loader.getController(), resources);
+  }
+}
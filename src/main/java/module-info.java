@@ -4,6 +4,8 @@ module com.karandaev.retrolauncher {
   requires java.logging;
   requires javafx.web;
   requires com.fasterxml.jackson.databind;
+  requires com.fasterxml.jackson.dataformat.smile;
+  requires com.fasterxml.jackson.module.blackbird;
   requires jdk.jshell;
   requires atlantafx.base;
   requires java.desktop;
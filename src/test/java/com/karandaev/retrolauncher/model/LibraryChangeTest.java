@@ -0,0 +1,94 @@
+package com.karandaev.retrolauncher.model;
+
+import static com.karandaev.retrolauncher.model.RomFixtures.names;
+import static com.karandaev.retrolauncher.model.RomFixtures.rom;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Consumer;
+import org.junit.jupiter.api.Test;
+
+class LibraryChangeTest {
+  private final UserProfile profile = new UserProfile("test");
+
+  private LibraryChange change(LibraryChange.Type type, String previousName, RomFile... roms) {
+    return new LibraryChange(profile, type, List.of(roms), previousName);
+  }
+
+  @Test
+  void insertsAddedRomsAtTheirSortedPosition() {
+    List<RomFile> list = new ArrayList<>(List.of(rom("B"), rom("D")));
+
+    change(LibraryChange.Type.ADDED, null, rom("C")).patch(list);
+    change(LibraryChange.Type.ADDED, null, rom("A"), rom("E")).patch(list);
+
+    assertEquals(List.of("A", "B", "C", "D", "E"), names(list));
+  }
+
+  @Test
+  void removesRomInstances() {
+    RomFile removed = rom("B");
+    RomFile kept = rom("B");
+    List<RomFile> list = new ArrayList<>(List.of(rom("A"), removed, kept, rom("C")));
+
+    change(LibraryChange.Type.REMOVED, null, removed, rom("Z")).patch(list);
+
+    assertEquals(List.of("A", "B", "C"), names(list));
+    assertSame(kept, list.get(1));
+  }
+
+  @Test
+  void replacesUpdatedRomInPlace() {
+    RomFile updated = rom("B");
+    List<RomFile> list = new ArrayList<>(List.of(rom("A"), updated, rom("C")));
+    LibraryChange change = change(LibraryChange.Type.UPDATED, "B", updated);
+
+    change.patch(list);
+
+    assertFalse(change.isRenamed());
+    assertSame(updated, list.get(1));
+    assertEquals(3, list.size());
+  }
+
+  @Test
+  void movesRenamedRom() {
+    RomFile renamed = rom("B");
+    List<RomFile> list = new ArrayList<>(List.of(rom("A"), renamed, rom("C")));
+    renamed.setName("D");
+
+    change(LibraryChange.Type.UPDATED, "B", renamed).patch(list);
+
+    assertEquals(List.of("A", "C", "D"), names(list));
+    assertSame(renamed, list.get(2));
+  }
+
+  @Test
+  void ignoresUpdatesOfRomsNotInTheList() {
+    List<RomFile> list = new ArrayList<>(List.of(rom("A"), rom("C")));
+
+    change(LibraryChange.Type.UPDATED, "B", rom("B")).patch(list);
+
+    assertEquals(List.of("A", "C"), names(list));
+  }
+
+  @Test
+  void keepsListsInStepWithTheProfile() {
+    RomRegistry registry = profile.getRomRegistry();
+    List<RomFile> view = new ArrayList<>();
+    Consumer<LibraryChange> listener = change -> change.patch(view);
+    profile.addLibraryListener(listener);
+    RomFile metroid = rom("Metroid");
+
+    registry.addAll(List.of(rom("Zelda"), metroid, rom("Contra")));
+    registry.rename(metroid, "Castlevania");
+    metroid.setFavorite(true);
+    registry.updated(metroid);
+    registry.remove(profile.getRoms().get(0));
+    registry.add(rom("Kirby"));
+
+    assertEquals(profile.getRoms(), view);
+  }
+}
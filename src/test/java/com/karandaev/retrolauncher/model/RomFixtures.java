@@ -0,0 +1,38 @@
+package com.karandaev.retrolauncher.model;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+
+/** ROMs for tests. */
+public final class RomFixtures {
+  private RomFixtures() {}
+
+  /**
+   * Creates a ROM without consoles, genres or launch parameters.
+   *
+   * @param name Name of the ROM, also used as its file path
+   * @return The ROM
+   */
+  public static RomFile rom(String name) {
+    return new RomFile(name, new File(name), List.of(), List.of(), false, new HashMap<>());
+  }
+
+  /**
+   * Creates a ROM running on the given consoles.
+   *
+   * @param name Name of the ROM, also used as its file path
+   * @param consoles Consoles of the ROM
+   * @return The ROM
+   */
+  public static RomFile rom(String name, String... consoles) {
+    List<String> consoleList = new ArrayList<>(List.of(consoles));
+    return new RomFile(name, new File(name), consoleList, List.of(), false, new HashMap<>());
+  }
+
+  /** Returns the names of some ROMs in their order. */
+  public static List<String> names(List<RomFile> roms) {
+    return roms.stream().map(RomFile::getName).toList();
+  }
+}
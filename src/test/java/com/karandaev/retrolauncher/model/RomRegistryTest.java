@@ -0,0 +1,109 @@
+package com.karandaev.retrolauncher.model;
+
+import static com.karandaev.retrolauncher.model.RomFixtures.names;
+import static com.karandaev.retrolauncher.model.RomFixtures.rom;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Consumer;
+import org.junit.jupiter.api.Test;
+
+class RomRegistryTest {
+  private static RomFile withId(String name, Integer id) {
+    RomFile rom = rom(name);
+    rom.assignId(id);
+    return rom;
+  }
+
+  @Test
+  void addsRomsInNameOrderWithNewIds() {
+    UserProfile profile = new UserProfile("test");
+    RomRegistry registry = profile.getRomRegistry();
+
+    registry.add(rom("Metroid"));
+    registry.addAll(List.of(rom("Zelda"), rom("Contra")));
+    registry.add(rom("Kirby"));
+
+    assertEquals(List.of("Contra", "Kirby", "Metroid", "Zelda"), names(profile.getRoms()));
+    assertEquals(4, profile.getRoms().stream().map(RomFile::getId).distinct().count());
+    assertSame(profile.getRoms().get(1), registry.getByName("KIRBY"));
+    assertSame(profile.getRoms().get(1), registry.get(profile.getRoms().get(1).getId()));
+  }
+
+  @Test
+  void renamesRomsToTheirSortedPosition() {
+    UserProfile profile = new UserProfile("test");
+    RomRegistry registry = profile.getRomRegistry();
+    RomFile rom = rom("Alpha");
+    registry.addAll(List.of(rom, rom("Beta"), rom("Gamma")));
+    List<LibraryChange> changes = new ArrayList<>();
+    Consumer<LibraryChange> listener = changes::add;
+    profile.addLibraryListener(listener);
+
+    registry.rename(rom, "Delta");
+
+    assertEquals(List.of("Beta", "Delta", "Gamma"), names(profile.getRoms()));
+    assertNull(registry.getByName("alpha"));
+    assertSame(rom, registry.getByName("delta"));
+    assertEquals(1, changes.size());
+    assertTrue(changes.get(0).isRenamed());
+    assertEquals("Alpha", changes.get(0).getPreviousName());
+  }
+
+  @Test
+  void findsRomInstancesAmongEqualNames() {
+    RomFile first = rom("Tetris");
+    RomFile second = rom("Tetris");
+    List<RomFile> roms = List.of(rom("Asteroids"), first, second, rom("Zork"));
+
+    assertEquals(1, RomRegistry.indexOf(roms, first, "Tetris"));
+    assertEquals(2, RomRegistry.indexOf(roms, second, "Tetris"));
+    assertEquals(-1, RomRegistry.indexOf(roms, rom("Tetris"), "Tetris"));
+    assertEquals(3, RomRegistry.insertionPoint(roms, rom("Tetris")));
+  }
+
+  @Test
+  void findsRenamedRomByItsPreviousName() {
+    RomFile renamed = rom("Beta");
+    List<RomFile> roms = List.of(rom("Alpha"), renamed, rom("Gamma"));
+
+    renamed.setName("Zeta");
+
+    assertEquals(1, RomRegistry.indexOf(roms, renamed, "Beta"));
+  }
+
+  @Test
+  void assignsMissingAndDuplicateIdsInNameOrder() {
+    RomFile zeta = rom("Zeta");
+    RomFile alpha = withId("Alpha", 4);
+    RomFile beta = withId("Beta", 4);
+    RomFile gamma = rom("Gamma");
+    List<RomFile> roms = List.of(zeta, alpha, beta, gamma);
+
+    RomRegistry.assignIds(roms);
+
+    assertEquals(4, alpha.getId());
+    assertEquals(5, beta.getId());
+    assertEquals(6, gamma.getId());
+    assertEquals(7, zeta.getId());
+  }
+
+  @Test
+  void loadingRomsWithoutIdsLeavesTheProfileUnchanged() {
+    UserProfile profile = new UserProfile();
+    profile.setRoms(new ArrayList<>(List.of(rom("Zeta"), rom("Alpha"))));
+    long version = profile.getVersion();
+
+    RomFile alpha = profile.getRomRegistry().getByName("alpha");
+
+    assertEquals(0, alpha.getId());
+    assertEquals(1, profile.getRomRegistry().getByName("zeta").getId());
+    assertEquals(version, profile.getVersion());
+    assertFalse(profile.getRomRegistry().containsName("beta"));
+  }
+}
@@ -0,0 +1,78 @@
+package com.karandaev.retrolauncher.model;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.List;
+import org.junit.jupiter.api.Test;
+
+class TagDictionaryTest {
+  // The dictionary is shared by the whole application, so each test uses tags of its own
+  private final TagDictionary dictionary = TagDictionary.getInstance();
+
+  @Test
+  void givesOneIdPerTagIgnoringCase() {
+    int id = dictionary.idOf("DictTest Super Famicom");
+
+    assertEquals(id, dictionary.idOf("dicttest super famicom"));
+    assertEquals("dicttest super famicom", dictionary.keyOf(id));
+    assertEquals("DictTest Super Famicom", dictionary.displayNameOf(id));
+    assertTrue(dictionary.size() > id);
+  }
+
+  @Test
+  void returnsSortedDistinctIds() {
+    int b = dictionary.idOf("DictTest B");
+    int a = dictionary.idOf("DictTest A");
+
+    assertArrayEquals(
+        new int[] {Math.min(a, b), Math.max(a, b)},
+        dictionary.idsOf(List.of("DictTest A", "dicttest b", "DICTTEST A")));
+    assertArrayEquals(new int[0], dictionary.idsOf(List.of()));
+    assertArrayEquals(new int[0], dictionary.idsOf(null));
+  }
+
+  @Test
+  void internsSpellings() {
+    String spelling = new String("DictTest Shared");
+    String copy = new String("DictTest Shared");
+    assertNotSame(spelling, copy);
+
+    assertSame(dictionary.intern(spelling), dictionary.intern(copy));
+  }
+
+  @Test
+  void romsShareInternedTagsAndIds() {
+    RomFile first = rom(new String("DictTest Console"));
+    RomFile second = rom(new String("DictTest Console"));
+
+    assertSame(first.getConsoles().get(0), second.getConsoles().get(0));
+    assertArrayEquals(first.getConsoleTags(), second.getConsoleTags());
+  }
+
+  @Test
+  void matchesTagsContainingQuery() {
+    int arcade = dictionary.idOf("DictTest Arcade");
+    int racing = dictionary.idOf("DictTest Racing");
+
+    BitSet matches = dictionary.matching("dicttest arc");
+
+    assertTrue(matches.get(arcade));
+    assertFalse(matches.get(racing));
+    assertTrue(TagDictionary.containsAny(new int[] {racing, arcade}, matches));
+    assertFalse(TagDictionary.containsAny(new int[] {racing}, matches));
+  }
+
+  private static RomFile rom(String console) {
+    List<String> consoles = new ArrayList<>(List.of(console));
+    return new RomFile("Game", new File("game"), consoles, List.of(), false, new HashMap<>());
+  }
+}
@@ -0,0 +1,52 @@
+package com.karandaev.retrolauncher.search;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import com.karandaev.retrolauncher.model.RomFile;
+import java.io.File;
+import java.util.HashMap;
+import java.util.List;
+import org.junit.jupiter.api.Test;
+
+class FacetCountsTest {
+  private static RomFile rom(List<String> consoles, List<String> genres, boolean favorite) {
+    return new RomFile("Game", new File("game"), consoles, genres, favorite, new HashMap<>());
+  }
+
+  @Test
+  void countsRomsPerTagAndFavorites() {
+    FacetCounts facets =
+        FacetCounts.of(
+            List.of(
+                rom(List.of("FacetTest SNES"), List.of("FacetTest RPG"), true),
+                rom(List.of("FacetTest SNES", "FacetTest SFC"), List.of("FacetTest RPG"), false),
+                rom(List.of("FacetTest Genesis"), List.of(), true)));
+
+    assertEquals(3, facets.getTotal());
+    assertEquals(2, facets.getFavorites());
+    assertEquals(new FacetCounts.Facet("FacetTest SNES", 2), facets.getConsoles().get(0));
+    assertEquals(3, facets.getConsoles().size());
+    assertEquals(List.of(new FacetCounts.Facet("FacetTest RPG", 2)), facets.getGenres());
+  }
+
+  @Test
+  void adjustsCountsByOneRom() {
+    RomFile kept = rom(List.of("FacetTest NES"), List.of("FacetTest Action"), false);
+    RomFile changed = rom(List.of("FacetTest NES"), List.of("FacetTest Puzzle"), true);
+    FacetCounts facets = FacetCounts.of(List.of(kept, changed));
+
+    FacetCounts removed =
+        facets.adjusted(changed.getConsoleTags(), changed.getGenreTags(), true, -1);
+    RomFile added = rom(List.of("FacetTest New Console"), List.of("FacetTest Action"), false);
+    FacetCounts adjusted =
+        removed.adjusted(added.getConsoleTags(), added.getGenreTags(), false, 1);
+
+    assertEquals(FacetCounts.of(List.of(kept)).getConsoles(), removed.getConsoles());
+    assertEquals(0, removed.getFavorites());
+    FacetCounts expected = FacetCounts.of(List.of(kept, added));
+    assertEquals(expected.getTotal(), adjusted.getTotal());
+    assertEquals(expected.getFavorites(), adjusted.getFavorites());
+    assertEquals(expected.getConsoles(), adjusted.getConsoles());
+    assertEquals(expected.getGenres(), adjusted.getGenres());
+  }
+}
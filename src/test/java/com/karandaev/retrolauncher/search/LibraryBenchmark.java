@@ -0,0 +1,280 @@
+package com.karandaev.retrolauncher.search;
+
+import com.karandaev.retrolauncher.model.LibraryChange;
+import com.karandaev.retrolauncher.model.RomFile;
+import com.karandaev.retrolauncher.model.UserProfile;
+import com.karandaev.retrolauncher.utils.ConfigJournal;
+import com.karandaev.retrolauncher.utils.FileManager;
+import com.karandaev.retrolauncher.utils.JsonCodec;
+import com.karandaev.retrolauncher.utils.SnapshotFormat;
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.text.CollationKey;
+import java.text.Collator;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Random;
+import java.util.concurrent.Callable;
+import java.util.function.Consumer;
+import java.util.function.Predicate;
+
+/**
+ * Times the library operations of a large synthetic profile: indexing, searching, facet counts,
+ * edits, the journal, snapshots and the index file. Not a test; run it after {@code mvn
+ * test-compile} with
+ *
+ * <pre>
+ * java -cp target/test-classes:target/classes:&lt;dependencies&gt; \
+ *     com.karandaev.retrolauncher.search.LibraryBenchmark [rom count]
+ * </pre>
+ *
+ * <p>Every operation is repeated and the fastest run is reported, so the numbers leave out
+ * warm-up and collection pauses.
+ */
+public class LibraryBenchmark {
+  private static final String[] WORDS = {
+    "super", "mario", "zelda", "metroid", "castlevania", "contra", "mega", "man", "final",
+    "fantasy", "chrono", "trigger", "sonic", "street", "fighter", "donkey", "kong", "kirby",
+    "star", "fox", "tetris", "pokemon", "dragon", "quest", "ninja", "gaiden"
+  };
+  private static final String[] CONSOLES = {
+    "NES", "SNES", "Game Boy", "Game Boy Advance", "Nintendo 64", "PlayStation", "Genesis", "Arcade"
+  };
+  private static final String[] GENRES = {
+    "RPG", "Platformer", "Puzzle", "Racing", "Shooter", "Fighting"
+  };
+  private static final String[] QUERIES = {"zelda", "mario kong", "game boy", "rpg", "ma"};
+  private static final int RUNS = 7;
+
+  private static volatile Object sink;
+
+  public static void main(String[] args) throws Exception {
+    int count = args.length > 0 ? Integer.parseInt(args[0]) : 100_000;
+    List<RomFile> roms = roms(count, new Random(1));
+    UserProfile profile = new UserProfile("benchmark");
+    profile.getRomRegistry().addAll(roms);
+    roms = profile.getRoms();
+    System.out.printf("%,d ROMs%n", count);
+
+    List<RomFile> indexed = roms;
+    // A new profile each run, since indexes are kept per profile and only synced afterwards
+    report("Index build", () -> RomSearchIndex.of(new UserProfile("benchmark"), indexed, 0));
+    RomSearchIndex index = RomSearchIndex.of(profile);
+    benchmarkSearch(index, roms);
+    benchmarkFacets(index, roms);
+    benchmarkEdits(profile, index);
+    benchmarkPersistence(profile);
+    benchmarkIndexFile(roms);
+    benchmarkCollation(roms);
+  }
+
+  private static List<RomFile> roms(int count, Random random) {
+    List<RomFile> roms = new ArrayList<>(count);
+    for (int i = 0; i < count; i++) {
+      String name =
+          WORDS[random.nextInt(WORDS.length)]
+              + " "
+              + WORDS[random.nextInt(WORDS.length)]
+              + " "
+              + WORDS[random.nextInt(WORDS.length)]
+              + " "
+              + i;
+      List<String> consoles = new ArrayList<>(List.of(CONSOLES[random.nextInt(CONSOLES.length)]));
+      List<String> genres = new ArrayList<>(List.of(GENRES[random.nextInt(GENRES.length)]));
+      roms.add(
+          new RomFile(
+              name,
+              new File("/roms/" + i + ".bin"),
+              consoles,
+              genres,
+              random.nextInt(10) == 0,
+              new HashMap<>()));
+    }
+    return roms;
+  }
+
+  private static void benchmarkSearch(RomSearchIndex index, List<RomFile> roms) throws Exception {
+    for (String query : QUERIES) {
+      String lowerQuery = query.toLowerCase();
+      report(
+          "Search \"" + query + "\", lower-cased scan",
+          () -> {
+            int matches = 0;
+            for (RomFile rom : roms) {
+              if (rom.getName().toLowerCase().contains(lowerQuery)
+                  || rom.getConsoles().stream().anyMatch(c -> c.toLowerCase().contains(lowerQuery))
+                  || rom.getGenres().stream().anyMatch(g -> g.toLowerCase().contains(lowerQuery))) {
+                matches++;
+              }
+            }
+            return matches;
+          });
+      report(
+          "Search \"" + query + "\", predicate scan",
+          () -> {
+            Predicate<RomFile> filter = FilterMode.ALL.compile(query);
+            int matches = 0;
+            for (RomFile rom : roms) {
+              if (filter.test(rom)) {
+                matches++;
+              }
+            }
+            return matches;
+          });
+      report(
+          "Search \"" + query + "\", select",
+          () -> FilterMode.ALL.select(query, index, roms, () -> false));
+    }
+    report(
+        "Fuzzy search",
+        () -> FilterMode.FUZZY.select("zeldda linkk", index, roms, () -> false));
+  }
+
+  private static void benchmarkFacets(RomSearchIndex index, List<RomFile> roms)
+      throws Exception {
+    report("Facets, counted from ROMs", () -> FacetCounts.of(roms));
+    report("Facets, from the index", index::getFacetCounts);
+    FacetCounts facets = index.getFacetCounts();
+    RomFile rom = roms.get(roms.size() / 2);
+    report(
+        "Facets, adjusted by one ROM",
+        () -> facets.adjusted(rom.getConsoleTags(), rom.getGenreTags(), rom.isFavorite(), -1));
+  }
+
+  private static void benchmarkEdits(UserProfile profile, RomSearchIndex index) throws Exception {
+    List<LibraryChange> changes = new ArrayList<>();
+    Consumer<LibraryChange> listener = changes::add;
+    profile.addLibraryListener(listener);
+    RomFile rom = profile.getRoms().get(profile.getRoms().size() / 2);
+    String name = rom.getName();
+    report(
+        "Rename, registry and index",
+        () -> {
+          changes.clear();
+          profile.getRomRegistry().rename(rom, name.equals(rom.getName()) ? name + "!" : name);
+          changes.forEach(index::apply);
+          return changes;
+        });
+    report(
+        "Rename, resorted and resynced",
+        () -> {
+          rom.setName(name.equals(rom.getName()) ? name + "!" : name);
+          profile.getRoms().sort(Comparator.comparing(RomFile::getName));
+          return RomSearchIndex.of(profile);
+        });
+    profile.removeLibraryListener(listener);
+  }
+
+  private static void benchmarkPersistence(UserProfile profile) throws Exception {
+    Path directory = Files.createTempDirectory("library-benchmark");
+    try {
+      Path shard = directory.resolve("profile-0" + SnapshotFormat.SMILE.getFileExtension());
+      report(
+          "Snapshot write",
+          () -> {
+            byte[] bytes =
+                JsonCodec.getInstance()
+                    .writer(SnapshotFormat.SMILE, UserProfile.class)
+                    .writeValueAsBytes(profile);
+            FileManager.writeAtomically(shard, bytes);
+            return bytes;
+          });
+
+      ConfigJournal journal = new ConfigJournal();
+      Path journalPath = ConfigJournal.journalPathFor(shard);
+      RomFile rom = profile.getRoms().get(0);
+      report(
+          "Journal append of one ROM",
+          () -> journal.append(journalPath, List.of(journal.encodePutRom(rom))));
+      journal.truncate(journalPath);
+      List<byte[]> records = new ArrayList<>();
+      for (RomFile edited : profile.getRoms().subList(0, 1000)) {
+        records.add(journal.encodePutRom(edited));
+      }
+      journal.append(journalPath, records);
+      UserProfile stored = new UserProfile(profile);
+      report("Journal replay of 1000 records", () -> journal.replay(journalPath, stored));
+    } finally {
+      deleteDirectory(directory);
+    }
+  }
+
+  private static void benchmarkIndexFile(List<RomFile> roms) throws Exception {
+    Path directory = Files.createTempDirectory("library-benchmark");
+    try {
+      Path path = directory.resolve("profile-0.idx");
+      report(
+          "Index file build and write",
+          () -> {
+            FileManager.writeAtomically(path, SearchIndexFile.build(1, roms));
+            return path;
+          });
+      report("Index file open", () -> SearchIndexFile.open(path, 1));
+      SearchIndexFile file = SearchIndexFile.open(path, 1);
+      report(
+          "Index file search",
+          () -> {
+            int matches = 0;
+            for (String query : QUERIES) {
+              BitSet result = file.search(query, FilterMode.ALL, () -> false);
+              matches += result.cardinality();
+            }
+            return matches;
+          });
+    } finally {
+      deleteDirectory(directory);
+    }
+  }
+
+  private static void benchmarkCollation(List<RomFile> roms) throws Exception {
+    Collator collator = Collator.getInstance(Locale.forLanguageTag("ru"));
+    List<String> names = new ArrayList<>(roms.size());
+    for (RomFile rom : roms) {
+      names.add(rom.getName());
+    }
+    Collections.shuffle(names, new Random(2));
+    report(
+        "Sort, collator",
+        () -> {
+          List<String> sorted = new ArrayList<>(names);
+          sorted.sort(collator);
+          return sorted;
+        });
+    List<CollationKey> keys = new ArrayList<>(names.size());
+    for (String name : names) {
+      keys.add(collator.getCollationKey(name));
+    }
+    report(
+        "Sort, cached collation keys",
+        () -> {
+          List<CollationKey> sorted = new ArrayList<>(keys);
+          Collections.sort(sorted);
+          return sorted;
+        });
+  }
+
+  private static void report(String operation, Callable<?> run) throws Exception {
+    long best = Long.MAX_VALUE;
+    for (int i = 0; i < RUNS; i++) {
+      long start = System.nanoTime();
+      sink = run.call();
+      best = Math.min(best, System.nanoTime() - start);
+    }
+    System.out.printf("%-40s %10.3f ms%n", operation, best / 1e6);
+  }
+
+  private static void deleteDirectory(Path directory) throws IOException {
+    try (var paths = Files.walk(directory)) {
+      for (Path path : paths.sorted(Comparator.reverseOrder()).toList()) {
+        Files.delete(path);
+      }
+    }
+  }
+}
@@ -0,0 +1,66 @@
+package com.karandaev.retrolauncher.search;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.BitSet;
+import org.junit.jupiter.api.Test;
+
+class PostingsTest {
+  private static Postings postingsOf(int... slots) {
+    Postings postings = new Postings();
+    for (int slot : slots) {
+      postings.add(slot);
+    }
+    return postings;
+  }
+
+  @Test
+  void keepsSlotsSortedAndDistinct() {
+    Postings postings = postingsOf(9, 2, 5, 2, 7, 0, 9);
+
+    assertEquals(5, postings.size());
+    int[] slots = new int[postings.size()];
+    for (int i = 0; i < slots.length; i++) {
+      slots[i] = postings.get(i);
+    }
+    assertArrayEquals(new int[] {0, 2, 5, 7, 9}, slots);
+  }
+
+  @Test
+  void removesSlots() {
+    Postings postings = postingsOf(1, 2, 3);
+
+    postings.remove(2);
+    postings.remove(4);
+
+    assertEquals(2, postings.size());
+    assertFalse(postings.contains(2));
+    assertTrue(postings.contains(1));
+    assertTrue(postings.contains(3));
+    postings.remove(1);
+    postings.remove(3);
+    assertTrue(postings.isEmpty());
+  }
+
+  @Test
+  void intersectsLists() {
+    Postings[] lists = {postingsOf(2, 4, 8), postingsOf(1, 2, 3, 4, 5, 8), postingsOf(0, 2, 8, 9)};
+
+    assertArrayEquals(new int[] {2, 8}, Postings.intersect(lists));
+    Postings[] disjoint = {postingsOf(1), postingsOf(2)};
+    assertArrayEquals(new int[0], Postings.intersect(disjoint));
+  }
+
+  @Test
+  void addsSlotsToBitSet() {
+    BitSet result = new BitSet();
+    result.set(1);
+
+    postingsOf(3, 64).addTo(result);
+
+    assertEquals("{1, 3, 64}", result.toString());
+  }
+}
@@ -0,0 +1,193 @@
+package com.karandaev.retrolauncher.search;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.karandaev.retrolauncher.model.RomFile;
+import com.karandaev.retrolauncher.model.UserProfile;
+import java.io.File;
+import java.util.EnumSet;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Set;
+import org.junit.jupiter.api.Test;
+
+class RomSearchIndexTest {
+  private static final Set<RomSearchIndex.Field> ALL_FIELDS =
+      EnumSet.allOf(RomSearchIndex.Field.class);
+
+  private static RomFile rom(String name, String console, String genre) {
+    return new RomFile(
+        name, new File(name), List.of(console), List.of(genre), false, new HashMap<>());
+  }
+
+  private static UserProfile profileOf(RomFile... roms) {
+    UserProfile profile = new UserProfile("test");
+    profile.getRomRegistry().addAll(List.of(roms));
+    return profile;
+  }
+
+  private static List<String> names(RomSearchIndex index, String query) {
+    return names(index, query, ALL_FIELDS);
+  }
+
+  private static List<String> names(
+      RomSearchIndex index, String query, Set<RomSearchIndex.Field> fields) {
+    return index.getRoms(index.search(query, fields)).stream()
+        .map(RomFile::getName)
+        .sorted()
+        .toList();
+  }
+
+  @Test
+  void findsNamesContainingQueryIgnoringCase() {
+    UserProfile profile =
+        profileOf(
+            rom("Super Mario World", "SNES", "Platformer"),
+            rom("Super Metroid", "SNES", "Action"),
+            rom("Mario Kart", "N64", "Racing"));
+    RomSearchIndex index = RomSearchIndex.of(profile);
+
+    assertEquals(List.of("Mario Kart", "Super Mario World"), names(index, "MARIO"));
+    assertEquals(List.of("Super Mario World", "Super Metroid"), names(index, "super m"));
+    // Both trigrams occur, but not next to each other
+    assertEquals(List.of(), names(index, "marioid"));
+    assertEquals(List.of("Mario Kart"), names(index, "rt"));
+    assertEquals(3, names(index, "").size());
+  }
+
+  @Test
+  void searchesOnlyTheGivenFields() {
+    UserProfile profile =
+        profileOf(rom("Snes Classics", "Genesis", "Puzzle"), rom("Contra", "SNES", "Action"));
+    RomSearchIndex index = RomSearchIndex.of(profile);
+
+    assertEquals(
+        List.of("Snes Classics"), names(index, "snes", EnumSet.of(RomSearchIndex.Field.NAME)));
+    assertEquals(
+        List.of("Contra"), names(index, "snes", EnumSet.of(RomSearchIndex.Field.CONSOLE)));
+    assertEquals(List.of("Contra", "Snes Classics"), names(index, "snes"));
+    assertEquals(
+        List.of("Snes Classics"), names(index, "puz", EnumSet.of(RomSearchIndex.Field.GENRE)));
+  }
+
+  @Test
+  void followsEditsOfTheProfile() {
+    RomFile metroid = rom("Metroid", "NES", "Action");
+    UserProfile profile = profileOf(metroid, rom("Zelda", "NES", "Adventure"));
+    RomSearchIndex index = RomSearchIndex.of(profile);
+    assertEquals(List.of("Metroid"), names(index, "metro"));
+
+    profile.getRomRegistry().rename(metroid, "Kid Icarus");
+    profile.getRomRegistry().add(rom("Metroid Fusion", "GBA", "Action"));
+    index = RomSearchIndex.of(profile);
+
+    assertEquals(List.of("Metroid Fusion"), names(index, "metro"));
+    assertEquals(List.of("Kid Icarus"), names(index, "icarus"));
+    assertEquals(3, index.size());
+  }
+
+  @Test
+  void appliesLibraryChangesWithoutSynchronizing() {
+    RomFile zelda = rom("Zelda", "NES", "Adventure");
+    UserProfile profile = profileOf(zelda);
+    RomSearchIndex index = RomSearchIndex.of(profile);
+    profile.addLibraryListener(index::apply);
+    assertSame(index, RomSearchIndex.peek(profile));
+
+    RomFile link = rom("Zelda II", "NES", "Action");
+    profile.getRomRegistry().add(link);
+    RomSearchIndex.IndexedKeys before = index.keysOf(zelda);
+    zelda.setFavorite(true);
+    profile.getRomRegistry().updated(zelda);
+
+    assertEquals(List.of("Zelda", "Zelda II"), names(index, "zelda"));
+    assertFalse(before.favorite());
+    assertTrue(index.keysOf(zelda).favorite());
+    assertEquals(1, index.getFacetCounts().getFavorites());
+
+    profile.getRomRegistry().remove(link);
+    assertNull(index.keysOf(link));
+    assertEquals(List.of("Zelda"), names(index, "zelda"));
+  }
+
+  @Test
+  void ignoresCopiesTakenBeforeAnAppliedChange() {
+    UserProfile profile = profileOf(rom("Contra", "NES", "Action"));
+    List<RomFile> copy = List.copyOf(profile.getRoms());
+    long version = profile.getVersion();
+    RomSearchIndex index = RomSearchIndex.of(profile, copy, version);
+    profile.addLibraryListener(index::apply);
+
+    profile.getRomRegistry().add(rom("Super Contra", "NES", "Action"));
+    RomSearchIndex.of(profile, copy, version);
+
+    assertEquals(List.of("Contra", "Super Contra"), names(index, "contra"));
+  }
+
+  private static List<String> fuzzyNames(RomSearchIndex index, String query, int limit) {
+    return index.fuzzySearch(query, limit, Long.MAX_VALUE).stream().map(RomFile::getName).toList();
+  }
+
+  @Test
+  void ranksFuzzyMatchesDespiteTyposAndWordOrder() {
+    UserProfile profile =
+        profileOf(
+            rom("Legend of Zelda - Link's Awakening", "GB", "Adventure"),
+            rom("Legend of Zelda - Ocarina of Time", "N64", "Adventure"),
+            rom("Link's Crossbow Training", "Wii", "Shooter"),
+            rom("Super Mario Land", "GB", "Platformer"));
+    RomSearchIndex index = RomSearchIndex.of(profile);
+
+    assertEquals(
+        "Legend of Zelda - Link's Awakening", fuzzyNames(index, "zelda link awakning", 10).get(0));
+    assertEquals(
+        "Legend of Zelda - Link's Awakening", fuzzyNames(index, "awakening zelda", 10).get(0));
+    assertFalse(fuzzyNames(index, "zelda link awakning", 10).contains("Super Mario Land"));
+  }
+
+  @Test
+  void keepsOnlyTheBestFuzzyMatches() {
+    UserProfile profile =
+        profileOf(
+            rom("Mario Kart", "N64", "Racing"),
+            rom("Mario", "NES", "Platformer"),
+            rom("Mario Party", "N64", "Party"),
+            rom("Mario Golf", "N64", "Sports"));
+    RomSearchIndex index = RomSearchIndex.of(profile);
+
+    // Equal scores rank by name
+    assertEquals(List.of("Mario", "Mario Golf"), fuzzyNames(index, "mario", 2));
+    assertNull(index.fuzzySearch("ab", 10, Long.MAX_VALUE));
+    // A passed deadline still returns the matches found so far
+    assertTrue(index.fuzzySearch("mario", 10, 0).size() <= 4);
+  }
+
+  @Test
+  void scoresFuzzyMatchesByTheTrigramsOfTheirWords() {
+    UserProfile profile = profileOf(rom("Zeldas", "NES", "Action"), rom("a b c Zelda", "NES", "X"));
+    RomSearchIndex index = RomSearchIndex.of(profile);
+
+    // Short words have no trigrams, and no trigram spans two words: the second name matches fully
+    assertEquals(List.of("a b c Zelda", "Zeldas"), fuzzyNames(index, "zelda", 10));
+  }
+
+  @Test
+  void countsFacetsOfAllRoms() {
+    UserProfile profile =
+        profileOf(
+            rom("A", "SNES", "RPG"), rom("B", "SNES", "Action"), rom("C", "Genesis", "RPG"));
+    FacetCounts facets = RomSearchIndex.of(profile).getFacetCounts();
+
+    assertEquals(3, facets.getTotal());
+    assertEquals(
+        List.of(new FacetCounts.Facet("SNES", 2), new FacetCounts.Facet("Genesis", 1)),
+        facets.getConsoles());
+    assertEquals(
+        List.of(new FacetCounts.Facet("RPG", 2), new FacetCounts.Facet("Action", 1)),
+        facets.getGenres());
+  }
+}
@@ -0,0 +1,113 @@
+package com.karandaev.retrolauncher.search;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.karandaev.retrolauncher.model.RomFile;
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.List;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class SearchIndexFileTest {
+  private static final long STAMP = 42;
+
+  @TempDir Path directory;
+
+  private final List<RomFile> roms =
+      List.of(
+          rom("Chrono Trigger", List.of("IndexFileTest SNES"), List.of("IndexFileTest RPG"), true),
+          rom("Contra", List.of("IndexFileTest NES"), List.of("IndexFileTest Action"), false),
+          rom("Dr. Mario", List.of("IndexFileTest NES"), List.of("IndexFileTest Puzzle"), true),
+          rom("Super Contra", List.of("IndexFileTest NES"), List.of(), false));
+  private Path path;
+  private SearchIndexFile index;
+
+  private static RomFile rom(
+      String name, List<String> consoles, List<String> genres, boolean favorite) {
+    return new RomFile(name, new File(name + ".rom"), consoles, genres, favorite, new HashMap<>());
+  }
+
+  @BeforeEach
+  void writeIndex() throws IOException {
+    path = directory.resolve("profile-1.idx");
+    Files.write(path, SearchIndexFile.build(STAMP, roms));
+    index = SearchIndexFile.open(path, STAMP);
+  }
+
+  private List<String> search(String query, FilterMode mode) {
+    BitSet matches = index.search(query, mode, () -> false);
+    return index.getRoms(matches, Integer.MAX_VALUE).stream().map(RomFile::getName).toList();
+  }
+
+  @Test
+  void opensOnlyForTheStampItWasBuiltFrom() {
+    assertNotNull(index);
+    assertEquals(roms.size(), index.size());
+    assertFalse(SearchIndexFile.isStale(path, STAMP));
+    assertTrue(SearchIndexFile.isStale(path, STAMP + 1));
+    assertNull(SearchIndexFile.open(path, STAMP + 1));
+    assertTrue(SearchIndexFile.isStale(directory.resolve("missing.idx"), STAMP));
+    assertNull(SearchIndexFile.open(directory.resolve("missing.idx"), STAMP));
+  }
+
+  @Test
+  void searchesNamesByTrigramsAndShortQueriesByScan() {
+    assertEquals(List.of("Contra", "Super Contra"), search("CONTRA", FilterMode.FUZZY));
+    assertEquals(List.of("Contra", "Super Contra"), search("ntr", FilterMode.FUZZY));
+    assertEquals(List.of("Dr. Mario"), search("r.", FilterMode.FUZZY));
+    assertEquals(List.of(), search("artnoc", FilterMode.FUZZY));
+    assertEquals(4, search("", FilterMode.FUZZY).size());
+  }
+
+  @Test
+  void searchesTagsAndFavorites() {
+    assertEquals(
+        List.of("Contra", "Dr. Mario", "Super Contra"),
+        search("indexfiletest nes", FilterMode.CONSOLE));
+    assertEquals(List.of("Dr. Mario"), search("puzzle", FilterMode.GENRE));
+    assertEquals(List.of(), search("puzzle", FilterMode.CONSOLE));
+    assertEquals(List.of("Chrono Trigger", "Dr. Mario"), search("", FilterMode.FAVORITES));
+    assertEquals(List.of("Chrono Trigger"), search("rpg", FilterMode.ALL));
+  }
+
+  @Test
+  void readsRomsBackFromTheirRecords() {
+    BitSet all = index.search("", FilterMode.ALL, () -> false);
+    List<RomFile> read = index.getRoms(all, 2);
+
+    assertEquals(2, read.size());
+    RomFile first = read.get(0);
+    assertEquals("Chrono Trigger", first.getName());
+    assertEquals(new File("Chrono Trigger.rom"), first.getFilePath());
+    assertEquals(List.of("IndexFileTest SNES"), first.getConsoles());
+    assertEquals(List.of("IndexFileTest RPG"), first.getGenres());
+    assertTrue(first.isFavorite());
+  }
+
+  @Test
+  void countsFacetsLikeTheLoadedRoms() {
+    BitSet matches = index.search("contra", FilterMode.ALL, () -> false);
+    FacetCounts counts = index.countFacets(matches);
+
+    FacetCounts expected = FacetCounts.of(List.of(roms.get(1), roms.get(3)));
+    assertEquals(expected.getTotal(), counts.getTotal());
+    assertEquals(expected.getFavorites(), counts.getFavorites());
+    assertEquals(expected.getConsoles(), counts.getConsoles());
+    assertEquals(expected.getGenres(), counts.getGenres());
+  }
+
+  @Test
+  void stopsWhenCancelled() {
+    assertNull(index.search("c", FilterMode.FUZZY, () -> true));
+  }
+}
@@ -0,0 +1,147 @@
+package com.karandaev.retrolauncher.utils;
+
+import static com.karandaev.retrolauncher.model.RomFixtures.names;
+import static com.karandaev.retrolauncher.model.RomFixtures.rom;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.karandaev.retrolauncher.model.Emulator;
+import com.karandaev.retrolauncher.model.LaunchParameters;
+import com.karandaev.retrolauncher.model.RomFile;
+import com.karandaev.retrolauncher.model.UserProfile;
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class ConfigJournalTest {
+  @TempDir Path directory;
+
+  private final ConfigJournal journal = new ConfigJournal();
+
+  private static List<String> idsAndNames(UserProfile profile) {
+    return profile.getRoms().stream().map(rom -> rom.getId() + ":" + rom.getName()).toList();
+  }
+
+  private Path journalPath() {
+    return ConfigJournal.journalPathFor(directory.resolve("profile-1.sml"));
+  }
+
+  @Test
+  void placesTheJournalNextToTheShard() {
+    assertEquals(directory.resolve("profile-1.journal"), journalPath());
+  }
+
+  @Test
+  void replaysRomEditsByIdOverTheSnapshot() throws IOException {
+    UserProfile live = new UserProfile("test");
+    RomFile renamed = rom("Alpha", "NES");
+    RomFile removed = rom("Beta");
+    live.getRomRegistry().addAll(List.of(renamed, removed, rom("Gamma")));
+    UserProfile snapshot = new UserProfile(live);
+
+    live.getRomRegistry().rename(renamed, "Zeta");
+    live.getRomRegistry().remove(removed);
+    RomFile added = rom("Delta", "SNES");
+    live.getRomRegistry().add(added);
+    long size =
+        journal.append(
+            journalPath(),
+            List.of(
+                journal.encodePutRom(renamed),
+                journal.encodeRemoveRom(removed),
+                journal.encodePutRom(added)));
+
+    assertEquals(Files.size(journalPath()), size);
+    assertEquals(3, journal.replay(journalPath(), snapshot));
+    assertEquals(idsAndNames(live), idsAndNames(snapshot));
+    assertEquals(List.of("SNES"), snapshot.getRoms().get(0).getConsoles());
+  }
+
+  @Test
+  void replaysRecordsWrittenBeforeRomsHadIds() throws IOException {
+    UserProfile profile = new UserProfile("test");
+    profile.getRoms().addAll(List.of(rom("Alpha"), rom("Beta")));
+    append(
+        "{\"op\":\"putRom\",\"key\":\"Alpha\",\"rom\":{\"name\":\"Omega\"}}",
+        "{\"op\":\"removeRom\",\"key\":\"Beta\"}",
+        "{\"op\":\"putRom\",\"rom\":{\"name\":\"Gamma\"}}");
+
+    assertEquals(3, journal.replay(journalPath(), profile));
+
+    assertEquals(List.of("Gamma", "Omega"), names(profile.getRoms()));
+    assertTrue(profile.getRoms().stream().allMatch(rom -> rom.getId() != null));
+  }
+
+  @Test
+  void stopsAtADamagedTrailingRecord() throws IOException {
+    UserProfile profile = new UserProfile("test");
+    profile.getRomRegistry().add(rom("Alpha"));
+    RomFile added = rom("Beta");
+    added.setFavorite(true);
+    journal.append(journalPath(), List.of(journal.encodePutRom(added)));
+    append("{\"op\":\"putRom\",\"rom\":{\"na");
+
+    assertEquals(1, journal.replay(journalPath(), profile));
+    assertEquals(List.of("Alpha", "Beta"), names(profile.getRoms()));
+    assertTrue(profile.getRoms().get(1).isFavorite());
+  }
+
+  @Test
+  void replaysEmulatorEditsAndDropsLaunchParametersOfRemovedEmulators() throws IOException {
+    UserProfile live = new UserProfile("test");
+    Emulator kept = new Emulator("Kept", new File("kept"), new ArrayList<>(List.of("NES")));
+    Emulator removed =
+        new Emulator("Removed", new File("removed"), new ArrayList<>(List.of("NES")));
+    live.getEmulatorRegistry().add(kept);
+    live.getEmulatorRegistry().add(removed);
+    Map<Integer, LaunchParameters> parameters = new HashMap<>();
+    parameters.put(kept.getId(), new LaunchParameters());
+    parameters.put(removed.getId(), new LaunchParameters());
+    live.getRomRegistry()
+        .add(new RomFile("Game", new File("game"), List.of("NES"), List.of(), false, parameters));
+    UserProfile snapshot = new UserProfile(live);
+
+    kept.setName("Renamed");
+    journal.append(
+        journalPath(),
+        List.of(journal.encodePutEmulator(kept), journal.encodeRemoveEmulator(removed)));
+
+    assertEquals(2, journal.replay(journalPath(), snapshot));
+    assertEquals(1, snapshot.getEmulators().size());
+    assertEquals("Renamed", snapshot.getEmulators().get(0).getName());
+    assertEquals(kept.getId(), snapshot.getEmulators().get(0).getId());
+    Map<Integer, LaunchParameters> replayed = snapshot.getRoms().get(0).getLaunchParameters();
+    assertTrue(replayed.containsKey(kept.getId()));
+    assertFalse(replayed.containsKey(removed.getId()));
+  }
+
+  @Test
+  void replaysNothingWithoutAJournal() throws IOException {
+    UserProfile profile = new UserProfile("test");
+
+    assertEquals(0, journal.replay(journalPath(), profile));
+
+    journal.append(journalPath(), List.of(journal.encodePutRom(rom("Alpha"))));
+    journal.truncate(journalPath());
+    assertFalse(Files.exists(journalPath()));
+  }
+
+  private void append(String... lines) throws IOException {
+    Files.writeString(
+        journalPath(),
+        String.join("\n", lines) + "\n",
+        StandardCharsets.UTF_8,
+        StandardOpenOption.CREATE,
+        StandardOpenOption.APPEND);
+  }
+}
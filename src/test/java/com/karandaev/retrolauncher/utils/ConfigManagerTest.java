@@ -0,0 +1,142 @@
+package com.karandaev.retrolauncher.utils;
+
+import static com.karandaev.retrolauncher.model.RomFixtures.names;
+import static com.karandaev.retrolauncher.model.RomFixtures.rom;
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.karandaev.retrolauncher.model.UserProfile;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class ConfigManagerTest {
+  private static final byte[] CORRUPT_SHARD =
+      "{\"username\":\"alice\",\"roms\":[{\"na".getBytes(StandardCharsets.UTF_8);
+
+  @TempDir Path directory;
+
+  private Path profilesDirectory;
+  private ConfigManager manager;
+
+  @BeforeEach
+  void writeConfig() throws IOException {
+    Path configDirectory = directory.resolve("config");
+    profilesDirectory = configDirectory.resolve("profiles");
+    Files.createDirectories(profilesDirectory);
+    Files.writeString(
+        configDirectory.resolve("index.json"),
+        "{\"profiles\":[{\"username\":\"alice\",\"file\":\"profile-0.json\"},"
+            + "{\"username\":\"bob\",\"file\":\"profile-1.json\"}],"
+            + "\"currentUserProfileIndex\":0}");
+    Files.write(profilesDirectory.resolve("profile-0.json"), CORRUPT_SHARD);
+    Files.writeString(
+        profilesDirectory.resolve("profile-1.json"),
+        "{\"username\":\"bob\",\"emulators\":[],\"roms\":[]}");
+    manager = new ConfigManager(configDirectory);
+    manager.loadConfig();
+  }
+
+  @Test
+  void ignoresInvalidExternalIndexEdits() throws IOException {
+    List<UserProfile> profiles = List.copyOf(manager.getProfiles());
+    Path index = profilesDirectory.getParent().resolve("index.json");
+
+    for (String edit :
+        List.of(
+            "{\"currentUserProfileIndex\":0}",
+            "{\"profiles\":[{\"username\":\"alice\"}]}",
+            "{\"profiles\":[{\"file\":\"profile-0.json\"}]}",
+            "{\"profiles\":[null]}",
+            "{\"profiles\":[{\"username\":\"alice\",\"file\":\"../profile-0.json\"}]}",
+            "{\"profiles\":[{\"username\":\"a\",\"file\":\"profile-0.json\"},"
+                + "{\"username\":\"b\",\"file\":\"profile-0.json\"}]}")) {
+      Files.writeString(index, edit);
+      // A valid edit would be applied on the JavaFX thread, which does not run here
+      manager.readExternalIndex();
+    }
+
+    assertEquals(profiles, manager.getProfiles());
+    assertEquals("alice", profiles.get(0).getUsername());
+  }
+
+  private UserProfile readShard(String file) throws IOException {
+    UserProfile profile = new UserProfile();
+    JsonCodec.getInstance()
+        .reader(SnapshotFormat.SMILE, UserProfile.class)
+        .withValueToUpdate(profile)
+        .readValue(Files.readAllBytes(profilesDirectory.resolve(file)));
+    return profile;
+  }
+
+  @AfterEach
+  void stopWriter() {
+    manager.shutdown();
+  }
+
+  @Test
+  void keepsAnUnreadableShardOnDisk() throws IOException {
+    UserProfile alice = manager.getProfiles().get(0);
+    assertTrue(alice.getRoms().isEmpty());
+
+    alice.getRomRegistry().add(rom("Alpha"));
+    manager.saveRom(alice.getRoms().get(0));
+    manager.saveConfig();
+    manager.flushConfig();
+
+    Path shard = profilesDirectory.resolve("profile-0.json");
+    assertArrayEquals(CORRUPT_SHARD, Files.readAllBytes(shard));
+    assertFalse(Files.exists(ConfigJournal.journalPathFor(shard)));
+  }
+
+  @Test
+  void savesReadableProfilesNextToAnUnreadableOne() throws IOException {
+    manager.getProfiles().get(0).getRoms();
+    UserProfile bob = manager.getProfiles().get(1);
+
+    bob.getRomRegistry().add(rom("Beta"));
+    manager.saveConfig();
+    manager.flushConfig();
+
+    Path unreadable = profilesDirectory.resolve("profile-0.json");
+    assertArrayEquals(CORRUPT_SHARD, Files.readAllBytes(unreadable));
+    assertEquals(List.of("Beta"), names(readShard("profile-1.sml").getRoms()));
+  }
+
+  @Test
+  void mergesExternalEditsIntoACleanProfile() throws IOException {
+    UserProfile bob = manager.getProfiles().get(1);
+    UserProfile stored = new UserProfile(bob);
+    stored.getRomRegistry().add(rom("Gamma"));
+
+    manager.mergeExternalProfile(bob, stored, "profile-1.json", 1);
+    manager.saveConfig();
+    manager.flushConfig();
+
+    assertEquals(List.of("Gamma"), names(bob.getRoms()));
+    // The merged profile is what the edited shard holds, so it is not written again
+    assertFalse(Files.exists(profilesDirectory.resolve("profile-1.sml")));
+  }
+
+  @Test
+  void keepsUnsavedChangesOverExternalEdits() throws IOException {
+    UserProfile bob = manager.getProfiles().get(1);
+    UserProfile stored = new UserProfile(bob);
+    stored.getRomRegistry().add(rom("Gamma"));
+    bob.getRomRegistry().add(rom("Delta"));
+
+    manager.mergeExternalProfile(bob, stored, "profile-1.json", 1);
+    manager.flushConfig();
+
+    assertEquals(List.of("Delta"), names(bob.getRoms()));
+    assertEquals(List.of("Delta"), names(readShard("profile-1.sml").getRoms()));
+  }
+}
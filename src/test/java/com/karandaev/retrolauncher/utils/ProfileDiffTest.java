@@ -0,0 +1,88 @@
+package com.karandaev.retrolauncher.utils;
+
+import static com.karandaev.retrolauncher.model.RomFixtures.names;
+import static com.karandaev.retrolauncher.model.RomFixtures.rom;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.karandaev.retrolauncher.model.Emulator;
+import com.karandaev.retrolauncher.model.RomFile;
+import com.karandaev.retrolauncher.model.UserProfile;
+import java.io.File;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import org.junit.jupiter.api.Test;
+
+class ProfileDiffTest {
+  private static UserProfile profile(RomFile... roms) {
+    UserProfile profile = new UserProfile("test");
+    profile.getRoms().addAll(List.of(roms));
+    return profile;
+  }
+
+  @Test
+  void patchesASortedListByIdentity() {
+    String b1 = new String("b");
+    String b2 = new String("b");
+    List<String> list = new ArrayList<>(List.of("a", b1, b2, "d"));
+
+    ProfileDiff.patchList(list, List.of(b2), List.of("c", "e", "0"), Comparator.naturalOrder());
+
+    assertEquals(List.of("0", "a", "b", "c", "d", "e"), list);
+    assertSame(b1, list.get(2));
+  }
+
+  @Test
+  void mergesRomsByName() {
+    RomFile alpha = rom("Alpha");
+    UserProfile live = profile(alpha, rom("Beta"), rom("Gamma"));
+    UserProfile stored = new UserProfile(live);
+    stored.getRoms().remove(1);
+    stored.getRoms().get(0).setFilePath(new File("moved/Alpha"));
+    stored.getRoms().add(1, rom("Delta", "NES"));
+    List<RomFile> shown = new ArrayList<>(live.getRoms());
+
+    ProfileDiff diff = ProfileDiff.merge(live, stored);
+
+    assertEquals(3, diff.size());
+    assertEquals(List.of("Delta"), names(diff.getAddedRoms()));
+    assertEquals(List.of("Beta"), names(diff.getRemovedRoms()));
+    assertEquals(List.of(alpha), diff.getUpdatedRoms());
+    assertEquals(new File("moved/Alpha"), alpha.getFilePath());
+    assertEquals(List.of("Alpha", "Delta", "Gamma"), names(live.getRoms()));
+
+    diff.patchRoms(shown);
+    assertEquals(names(live.getRoms()), names(shown));
+    assertSame(alpha, shown.get(0));
+  }
+
+  @Test
+  void mergesEmulatorsById() {
+    UserProfile live = profile();
+    Emulator emulator = new Emulator("Alpha", new File("alpha"), new ArrayList<>(List.of("NES")));
+    live.getEmulators().add(emulator);
+    UserProfile stored = new UserProfile(live);
+    stored.getEmulators().get(0).setName("Zeta");
+    List<Emulator> shown = new ArrayList<>(live.getEmulators());
+
+    ProfileDiff diff = ProfileDiff.merge(live, stored);
+
+    assertEquals(List.of(emulator), diff.getUpdatedEmulators());
+    assertEquals("Zeta", emulator.getName());
+    diff.patchEmulators(shown);
+    assertEquals(List.of(emulator), shown);
+  }
+
+  @Test
+  void mergesNothingFromAnEqualCopy() {
+    UserProfile live = profile(rom("Alpha", "NES"), rom("Beta"));
+    long version = live.getVersion();
+
+    ProfileDiff diff = ProfileDiff.merge(live, new UserProfile(live));
+
+    assertTrue(diff.isEmpty());
+    assertEquals(version, live.getVersion());
+  }
+}